@@ -295,8 +295,10 @@ public class WsMasterModule extends AbstractModule {
 
   private void configureMultiUserMode(
       Map<String, String> persistenceProperties, String infrastructure) {
-    if (OpenShiftInfrastructure.NAME.equals(infrastructure)
-        || KubernetesInfrastructure.NAME.equals(infrastructure)) {
+    boolean replicated =
+        OpenShiftInfrastructure.NAME.equals(infrastructure)
+            || KubernetesInfrastructure.NAME.equals(infrastructure);
+    if (replicated) {
       install(new ReplicationModule(persistenceProperties));
     } else {
       bind(RemoteSubscriptionStorage.class)
@@ -325,7 +327,7 @@ public class WsMasterModule extends AbstractModule {
     install(
         new org.eclipse.che.multiuser.permission.workspace.server.jpa
             .MultiuserWorkspaceJpaModule());
-    install(new MultiUserWorkspaceActivityModule());
+    install(new MultiUserWorkspaceActivityModule(replicated));
 
     // Permission filters
     bind(org.eclipse.che.multiuser.permission.system.SystemServicePermissionsFilter.class);
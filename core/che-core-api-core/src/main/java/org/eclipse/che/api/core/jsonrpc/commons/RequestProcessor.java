@@ -18,4 +18,17 @@ public interface RequestProcessor {
    * @param runnable runnable to be called for processing of a request
    */
   void process(Runnable runnable);
+
+  /**
+   * Process a runnable interface that handles a request with the specified method that came from
+   * the specified endpoint. Implementations may use the request details to schedule processing,
+   * by default they are ignored.
+   *
+   * @param endpointId identifier of an endpoint the request came from
+   * @param method JSON RPC method of the request
+   * @param runnable runnable to be called for processing of a request
+   */
+  default void process(String endpointId, String method, Runnable runnable) {
+    process(runnable);
+  }
 }
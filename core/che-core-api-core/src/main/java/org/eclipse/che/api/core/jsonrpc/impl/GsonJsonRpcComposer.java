@@ -47,7 +47,7 @@ public class GsonJsonRpcComposer implements JsonRpcComposer {
   private <T> T composeOne(Class<T> type, Object paramObject) {
     if (paramObject instanceof JsonElement) {
       JsonElement jsonElement = (JsonElement) paramObject;
-      return DtoFactory.getInstance().createDtoFromJson(jsonElement.toString(), type);
+      return DtoFactory.getInstance().createDtoFromJson(jsonElement, type);
     }
 
     return cast(paramObject);
@@ -62,9 +62,9 @@ public class GsonJsonRpcComposer implements JsonRpcComposer {
       JsonArray jsonArray = new JsonArray();
       for (int i = 0; i < paramsList.size(); i++) {
         JsonElement jsonElement = (JsonElement) paramsList.get(i);
-        jsonArray.set(i, jsonElement);
+        jsonArray.add(jsonElement);
       }
-      return DtoFactory.getInstance().createListDtoFromJson(jsonArray.toString(), type);
+      return DtoFactory.getInstance().createListDtoFromJson(jsonArray, type);
     }
 
     return cast(paramsList);
@@ -13,13 +13,14 @@ package org.eclipse.che.api.core.jsonrpc.impl;
 import static org.eclipse.che.api.core.jsonrpc.commons.JsonRpcUtils.cast;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonNull;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import com.google.gson.JsonPrimitive;
 import com.google.inject.Inject;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.List;
 import org.eclipse.che.api.core.jsonrpc.commons.JsonRpcError;
 import org.eclipse.che.api.core.jsonrpc.commons.JsonRpcMarshaller;
@@ -27,125 +28,135 @@ import org.eclipse.che.api.core.jsonrpc.commons.JsonRpcParams;
 import org.eclipse.che.api.core.jsonrpc.commons.JsonRpcRequest;
 import org.eclipse.che.api.core.jsonrpc.commons.JsonRpcResponse;
 import org.eclipse.che.api.core.jsonrpc.commons.JsonRpcResult;
-import org.eclipse.che.dto.server.DtoFactory;
+import org.eclipse.che.dto.server.JsonSerializable;
+import org.eclipse.che.dto.shared.JsonArray;
 
+/**
+ * Writes JSON RPC messages straight into the resulting string. DTO params and results serialize
+ * themselves into the same writer, so they are neither serialized to an intermediate string nor
+ * parsed back into a JSON tree.
+ */
 public class GsonJsonRpcMarshaller implements JsonRpcMarshaller {
-  private final JsonParser jsonParser;
   private final Gson gson;
 
   @Inject
-  public GsonJsonRpcMarshaller(JsonParser jsonParser, Gson gson) {
-    this.jsonParser = jsonParser;
+  public GsonJsonRpcMarshaller(Gson gson) {
     this.gson = gson;
   }
 
   @Override
   public String marshall(JsonRpcResponse response) {
-    JsonElement jsonId = getId(response);
-    JsonElement jsonResult = getResult(response);
-    JsonElement jsonError = getError(response);
-
-    return getResponse(jsonId, jsonResult, jsonError).toString();
+    StringWriter out = new StringWriter();
+    try {
+      out.write("{\"jsonrpc\":\"2.0\"");
+      if (response.hasId()) {
+        out.write(",\"id\":");
+        writeString(out, response.getId());
+      }
+
+      if (response.hasResult()) {
+        out.write(",\"result\":");
+        JsonRpcResult result = response.getResult();
+        if (result.isSingle()) {
+          writeOne(out, result.getOne());
+        } else {
+          writeMany(out, result.getMany());
+        }
+      } else {
+        out.write(",\"error\":");
+        writeError(out, response);
+      }
+      out.write('}');
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    }
+    return out.toString();
   }
 
   @Override
   public String marshall(JsonRpcRequest request) {
-    JsonElement method = getMethod(request);
-    JsonElement id = getId(request);
-    JsonElement params = getParams(request);
-
-    return getRequest(method, id, params).toString();
-  }
-
-  private JsonObject getRequest(
-      JsonElement jsonMethod, JsonElement jsonId, JsonElement jsonParams) {
-    JsonObject jsonRequest = new JsonObject();
-    jsonRequest.addProperty("jsonrpc", "2.0");
-    jsonRequest.add("method", jsonMethod);
-
-    if (jsonId != null) {
-      jsonRequest.add("id", jsonId);
-    }
-
-    if (jsonParams != null) {
-      jsonRequest.add("params", jsonParams);
+    StringWriter out = new StringWriter();
+    try {
+      out.write("{\"jsonrpc\":\"2.0\",\"method\":");
+      writeString(out, request.getMethod());
+
+      if (request.hasId()) {
+        out.write(",\"id\":");
+        writeString(out, request.getId());
+      }
+
+      if (request.hasParams()) {
+        out.write(",\"params\":");
+        JsonRpcParams params = request.getParams();
+        if (params.isSingle()) {
+          writeOne(out, params.getOne());
+        } else {
+          writeMany(out, params.getMany());
+        }
+      }
+      out.write('}');
+    } catch (IOException e) {
+      throw new JsonIOException(e);
     }
-    return jsonRequest;
+    return out.toString();
   }
 
-  private JsonElement getParams(JsonRpcRequest request) {
-    if (!request.hasParams()) {
-      return null;
+  private void writeError(Writer out, JsonRpcResponse response) throws IOException {
+    if (!response.hasError()) {
+      out.write("null");
+      return;
     }
 
-    JsonRpcParams params = request.getParams();
-    return params.isSingle() ? getElement(params.getOne()) : getElements(params.getMany());
+    JsonRpcError error = response.getError();
+    out.write("{\"code\":");
+    out.write(new JsonPrimitive(error.getCode()).toString());
+    out.write(",\"message\":");
+    writeString(out, error.getMessage());
+    out.write('}');
   }
 
-  private JsonElement getId(JsonRpcRequest request) {
-    return request.hasId() ? new JsonPrimitive(request.getId()) : null;
+  private void writeString(Writer out, String value) throws IOException {
+    out.write(new JsonPrimitive(value).toString());
   }
 
-  private JsonPrimitive getMethod(JsonRpcRequest request) {
-    return new JsonPrimitive(request.getMethod());
+  private void writeMany(Writer out, List<?> params) throws IOException {
+    out.write('[');
+    for (int i = 0; i < params.size(); i++) {
+      if (i > 0) {
+        out.write(',');
+      }
+      writeElement(out, params.get(i));
+    }
+    out.write(']');
   }
 
-  private JsonObject getResponse(
-      JsonElement jsonId, JsonElement jsonResult, JsonElement jsonError) {
-    JsonObject jsonResponse = new JsonObject();
-    jsonResponse.addProperty("jsonrpc", "2.0");
-    if (jsonId != null) {
-      jsonResponse.add("id", jsonId);
+  /** Writes a single param or result, the ones that are not JSON objects are wrapped in array. */
+  private void writeOne(Writer out, Object param) throws IOException {
+    if (isDtoObject(param)) {
+      ((JsonSerializable) param).toJson(out);
+      return;
     }
 
-    if (jsonResult != null) {
-      jsonResponse.add("result", jsonResult);
+    JsonElement jsonElement = getJsonElement(param);
+    if (jsonElement.isJsonObject()) {
+      out.write(jsonElement.toString());
     } else {
-      jsonResponse.add("error", jsonError);
+      out.write('[');
+      out.write(jsonElement.toString());
+      out.write(']');
     }
-    return jsonResponse;
   }
 
-  private JsonObject getError(JsonRpcResponse response) {
-    if (!response.hasError()) {
-      return null;
-    }
-
-    JsonObject jsonError = new JsonObject();
-    JsonRpcError error = response.getError();
-    jsonError.add("code", new JsonPrimitive(error.getCode()));
-    jsonError.add("message", new JsonPrimitive(error.getMessage()));
-    return jsonError;
-  }
-
-  private JsonElement getResult(JsonRpcResponse response) {
-    if (!response.hasResult()) {
-      return null;
+  private void writeElement(Writer out, Object param) throws IOException {
+    if (param instanceof JsonSerializable) {
+      ((JsonSerializable) param).toJson(out);
+    } else {
+      out.write(getJsonElement(param).toString());
     }
-
-    JsonRpcResult result = response.getResult();
-    return result.isSingle() ? getElement(result.getOne()) : getElements(result.getMany());
-  }
-
-  private JsonElement getId(JsonRpcResponse response) {
-    return response.hasId() ? new JsonPrimitive(response.getId()) : null;
-  }
-
-  private JsonElement getElements(List<?> params) {
-    JsonArray elements = new JsonArray();
-    params.forEach(param -> elements.add(getJsonElement(param)));
-    return elements;
   }
 
-  private JsonElement getElement(Object param) {
-    JsonElement jsonElement = getJsonElement(param);
-    if (jsonElement.isJsonObject()) {
-      return jsonElement;
-    }
-
-    JsonArray array = new JsonArray();
-    array.add(jsonElement);
-    return array;
+  private static boolean isDtoObject(Object param) {
+    return param instanceof JsonSerializable && !(param instanceof JsonArray);
   }
 
   private JsonElement getJsonElement(Object param) {
@@ -164,10 +175,9 @@ public class GsonJsonRpcMarshaller implements JsonRpcMarshaller {
     if (param instanceof Double) {
       return new JsonPrimitive((Double) param);
     }
-    try {
-      return jsonParser.parse(DtoFactory.getInstance().toJson(param));
-    } catch (IllegalArgumentException e) {
-      return gson.toJsonTree(param);
+    if (param instanceof JsonSerializable) {
+      return ((JsonSerializable) param).toJsonElement();
     }
+    return gson.toJsonTree(param);
   }
 }
@@ -14,27 +14,28 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.slf4j.LoggerFactory.getLogger;
 
-import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
-import com.google.gson.JsonParser;
-import com.google.inject.Inject;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.inject.Singleton;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import org.eclipse.che.api.core.jsonrpc.commons.JsonRpcQualifier;
 import org.slf4j.Logger;
 
+/**
+ * Qualifies messages by streaming through them with {@link JsonReader}, so that no JSON tree is
+ * built for a message just to find out its kind. Only the names of top level members are read, the
+ * values are skipped.
+ */
 @Singleton
 public class GsonJsonRpcQualifier implements JsonRpcQualifier {
   private static final Logger LOGGER = getLogger(GsonJsonRpcQualifier.class);
 
-  private final JsonParser jsonParser;
-
-  @Inject
-  public GsonJsonRpcQualifier(JsonParser jsonParser) {
-    this.jsonParser = jsonParser;
-  }
-
   @Override
   public boolean isValidJson(String message) {
     checkNotNull(message, "Message must not be null");
@@ -42,12 +43,15 @@ public class GsonJsonRpcQualifier implements JsonRpcQualifier {
 
     LOGGER.debug("Validating message: {}", message);
 
-    try {
-      jsonParser.parse(message);
+    try (JsonReader reader = newReader(message)) {
+      reader.skipValue();
+      if (reader.peek() != JsonToken.END_DOCUMENT) {
+        throw new JsonSyntaxException("Did not consume the entire document.");
+      }
 
       LOGGER.debug("Validation successful");
       return true;
-    } catch (JsonParseException e) {
+    } catch (JsonParseException | IOException | IllegalStateException e) {
       LOGGER.debug("Validation failed: {}", e.getMessage(), e);
       return false;
     }
@@ -57,14 +61,9 @@ public class GsonJsonRpcQualifier implements JsonRpcQualifier {
   public boolean isJsonRpcRequest(String message) {
     checkNotNull(message, "Message must not be null");
     checkArgument(!message.isEmpty(), "Message must not be empty");
-    LOGGER.debug("Qualifying message: " + message);
-
-    JsonObject jsonObject = jsonParser.parse(message).getAsJsonObject();
-    LOGGER.debug(
-        "Json keys: "
-            + jsonObject.entrySet().stream().map(Map.Entry::getKey).collect(Collectors.toSet()));
+    LOGGER.debug("Qualifying message: {}", message);
 
-    if (jsonObject.has("method")) {
+    if (findMembers(message, "method").contains("method")) {
       LOGGER.debug("Qualified to request");
       return true;
     } else {
@@ -77,17 +76,52 @@ public class GsonJsonRpcQualifier implements JsonRpcQualifier {
   public boolean isJsonRpcResponse(String message) {
     checkNotNull(message, "Message must not be null");
     checkArgument(!message.isEmpty(), "Message must not be empty");
-    LOGGER.debug("Qualifying message: " + message);
-
-    JsonObject jsonObject = jsonParser.parse(message).getAsJsonObject();
-    LOGGER.debug(
-        "Json keys: "
-            + jsonObject.entrySet().stream().map(Map.Entry::getKey).collect(Collectors.toSet()));
+    LOGGER.debug("Qualifying message: {}", message);
 
-    if (jsonObject.has("error") != jsonObject.has("result")) {
+    Set<String> members = findMembers(message, "error", "result");
+    if (members.size() == 1) {
       LOGGER.debug("Qualified to response");
       return true;
     }
     return false;
   }
+
+  /**
+   * Looks through the names of top level members of the JSON object, values are skipped. Stops as
+   * soon as all of the given names are found.
+   *
+   * @return the given member names that are present in the message
+   */
+  private Set<String> findMembers(String message, String... names) {
+    Set<String> keys = LOGGER.isDebugEnabled() ? new LinkedHashSet<>() : null;
+    Set<String> found = new HashSet<>(names.length);
+    try (JsonReader reader = newReader(message)) {
+      reader.beginObject();
+      while (reader.hasNext() && found.size() < names.length) {
+        String name = reader.nextName();
+        if (keys != null) {
+          keys.add(name);
+        }
+        for (String expected : names) {
+          if (expected.equals(name)) {
+            found.add(name);
+          }
+        }
+        reader.skipValue();
+      }
+      return found;
+    } catch (IOException e) {
+      throw new JsonSyntaxException(e);
+    } finally {
+      if (keys != null) {
+        LOGGER.debug("Json keys: {}", keys);
+      }
+    }
+  }
+
+  private static JsonReader newReader(String message) {
+    JsonReader reader = new JsonReader(new StringReader(message));
+    reader.setLenient(true);
+    return reader;
+  }
 }
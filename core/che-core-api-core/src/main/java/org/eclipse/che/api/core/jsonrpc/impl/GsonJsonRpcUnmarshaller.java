@@ -19,8 +19,13 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 import org.eclipse.che.api.core.jsonrpc.commons.JsonRpcError;
@@ -41,7 +46,7 @@ public class GsonJsonRpcUnmarshaller implements JsonRpcUnmarshaller {
 
   @Override
   public List<String> unmarshalArray(String message) {
-    return getArray(message, jsonParser.parse(message).isJsonArray());
+    return getArray(message, isArray(message));
   }
 
   @Override
@@ -147,6 +152,19 @@ public class GsonJsonRpcUnmarshaller implements JsonRpcUnmarshaller {
     return result;
   }
 
+  /**
+   * Checks only the first token of the message, so a message which is not an array is not parsed
+   * here at all, it is parsed once later when it is unmarshalled as a request or a response.
+   */
+  private boolean isArray(String message) {
+    try (JsonReader reader = new JsonReader(new StringReader(message))) {
+      reader.setLenient(true);
+      return reader.peek() == JsonToken.BEGIN_ARRAY;
+    } catch (IOException e) {
+      throw new JsonSyntaxException(e);
+    }
+  }
+
   private Object getInnerItem(JsonElement jsonElement) {
     if (jsonElement.isJsonNull()) {
       return null;
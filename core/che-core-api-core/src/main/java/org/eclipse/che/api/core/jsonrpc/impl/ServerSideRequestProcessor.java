@@ -11,31 +11,114 @@
 package org.eclipse.che.api.core.jsonrpc.impl;
 
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.slf4j.LoggerFactory.getLogger;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.ThreadFactory;
-import javax.annotation.PostConstruct;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import javax.annotation.PreDestroy;
+import org.eclipse.che.api.core.jsonrpc.commons.RequestHandlerManager;
 import org.eclipse.che.api.core.jsonrpc.commons.RequestProcessor;
 import org.eclipse.che.commons.lang.concurrent.LoggingUncaughtExceptionHandler;
+import org.slf4j.Logger;
 
+/**
+ * Processes requests on a bounded number of threads. Requests are split into priority classes by
+ * their methods, each class has its own configurable concurrency limit, so a burst of expensive
+ * requests can not take the threads that latency sensitive requests need, and long running imports
+ * can not take the threads of other expensive requests. Within a class, endpoints are served in
+ * turn, so a single endpoint can not monopolize the class. Queue and execution times are collected
+ * per method, see {@link #getStatistics()}. Requests of methods which have no handler are counted
+ * together, so that clients can not make the statistics grow.
+ */
 @Singleton
 public class ServerSideRequestProcessor implements RequestProcessor {
-  private ExecutorService executorService;
+  private static final Logger LOG = getLogger(ServerSideRequestProcessor.class);
+
+  private static final String UNKNOWN_ENDPOINT = "";
+  private static final String UNKNOWN_METHOD = "";
+  private static final long SLOW_QUEUE_NANOS = SECONDS.toNanos(1);
+
+  /** Priority classes of requests, each class has its own limit of requests run at once. */
+  enum Priority {
+    HIGH,
+    NORMAL,
+    LOW,
+    /** Requests which may run for minutes, e.g. cloning of a repository. */
+    BULK
+  }
 
-  @PostConstruct
-  private void postConstruct() {
-    ThreadFactory factory =
-        new ThreadFactoryBuilder()
-            .setUncaughtExceptionHandler(LoggingUncaughtExceptionHandler.getInstance())
-            .setNameFormat(ServerSideRequestProcessor.class.getSimpleName())
-            .setDaemon(true)
-            .build();
+  /** Methods which have a priority other than {@link Priority#NORMAL}, matched by prefix. */
+  private static final Map<String, Priority> METHOD_PRIORITIES =
+      ImmutableMap.<String, Priority>builder()
+          .put("textDocument/completion", Priority.HIGH)
+          .put("textDocument/hover", Priority.HIGH)
+          .put("textDocument/signatureHelp", Priority.HIGH)
+          .put("textDocument/documentHighlight", Priority.HIGH)
+          .put("websocketIdService/", Priority.HIGH)
+          .put("project/search", Priority.LOW)
+          .put("project/import", Priority.BULK)
+          .put("textDocument/references", Priority.LOW)
+          .put("workspace/symbol", Priority.LOW)
+          .put("javaSearch/", Priority.LOW)
+          .build();
+
+  private final Map<Priority, Lane> lanes = new EnumMap<>(Priority.class);
+  private final Map<String, MethodStatistics> statistics = new ConcurrentHashMap<>();
+  private final RequestHandlerManager requestHandlerManager;
+  private final ExecutorService executorService;
+
+  @Inject
+  public ServerSideRequestProcessor(
+      RequestHandlerManager requestHandlerManager,
+      @Named("che.core.jsonrpc.high_priority_concurrency") int highPriorityConcurrency,
+      @Named("che.core.jsonrpc.normal_priority_concurrency") int normalPriorityConcurrency,
+      @Named("che.core.jsonrpc.low_priority_concurrency") int lowPriorityConcurrency,
+      @Named("che.core.jsonrpc.bulk_priority_concurrency") int bulkPriorityConcurrency) {
+    this(
+        requestHandlerManager,
+        newCachedThreadPool(
+            new ThreadFactoryBuilder()
+                .setUncaughtExceptionHandler(LoggingUncaughtExceptionHandler.getInstance())
+                .setNameFormat(ServerSideRequestProcessor.class.getSimpleName() + "-%d")
+                .setDaemon(true)
+                .build()),
+        ImmutableMap.of(
+            Priority.HIGH,
+            highPriorityConcurrency,
+            Priority.NORMAL,
+            normalPriorityConcurrency,
+            Priority.LOW,
+            lowPriorityConcurrency,
+            Priority.BULK,
+            bulkPriorityConcurrency));
+  }
 
-    executorService = newCachedThreadPool(factory);
+  @VisibleForTesting
+  ServerSideRequestProcessor(
+      RequestHandlerManager requestHandlerManager,
+      ExecutorService executorService,
+      Map<Priority, Integer> concurrency) {
+    this.requestHandlerManager = requestHandlerManager;
+    this.executorService = executorService;
+    for (Priority priority : Priority.values()) {
+      lanes.put(priority, new Lane(concurrency.get(priority)));
+    }
   }
 
   @PreDestroy
@@ -54,6 +137,159 @@ public class ServerSideRequestProcessor implements RequestProcessor {
 
   @Override
   public void process(Runnable runnable) {
-    executorService.execute(runnable);
+    process(UNKNOWN_ENDPOINT, UNKNOWN_METHOD, runnable);
+  }
+
+  @Override
+  public void process(String endpointId, String method, Runnable runnable) {
+    String statisticsKey = requestHandlerManager.isRegistered(method) ? method : UNKNOWN_METHOD;
+    MethodStatistics methodStatistics =
+        statistics.computeIfAbsent(statisticsKey, k -> new MethodStatistics());
+    lanes.get(priorityOf(method)).submit(endpointId, new Task(runnable, methodStatistics, method));
+  }
+
+  /** Returns queue and execution time statistics of requests per method. */
+  public Map<String, MethodStatistics> getStatistics() {
+    return new HashMap<>(statistics);
+  }
+
+  static Priority priorityOf(String method) {
+    for (Map.Entry<String, Priority> entry : METHOD_PRIORITIES.entrySet()) {
+      if (method.startsWith(entry.getKey())) {
+        return entry.getValue();
+      }
+    }
+    return Priority.NORMAL;
+  }
+
+  /** Queue and execution time statistics of requests of a single method. */
+  public static class MethodStatistics {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder queueNanos = new LongAdder();
+    private final LongAdder execNanos = new LongAdder();
+    private final AtomicLong maxQueueNanos = new AtomicLong();
+    private final AtomicLong maxExecNanos = new AtomicLong();
+
+    private void record(long queued, long executed) {
+      count.increment();
+      queueNanos.add(queued);
+      execNanos.add(executed);
+      maxQueueNanos.accumulateAndGet(queued, Math::max);
+      maxExecNanos.accumulateAndGet(executed, Math::max);
+    }
+
+    public long getCount() {
+      return count.sum();
+    }
+
+    public long getTotalQueueTimeNanos() {
+      return queueNanos.sum();
+    }
+
+    public long getTotalExecutionTimeNanos() {
+      return execNanos.sum();
+    }
+
+    public long getMaxQueueTimeNanos() {
+      return maxQueueNanos.get();
+    }
+
+    public long getMaxExecutionTimeNanos() {
+      return maxExecNanos.get();
+    }
+  }
+
+  private static class Task {
+    private final Runnable runnable;
+    private final MethodStatistics statistics;
+    private final String method;
+    private final long submittedNanos = System.nanoTime();
+
+    private Task(Runnable runnable, MethodStatistics statistics, String method) {
+      this.runnable = runnable;
+      this.statistics = statistics;
+      this.method = method;
+    }
+
+    private void run() {
+      long startedNanos = System.nanoTime();
+      long queued = startedNanos - submittedNanos;
+      if (queued > SLOW_QUEUE_NANOS) {
+        LOG.debug("Request '{}' waited {} ms in queue", method, NANOSECONDS.toMillis(queued));
+      }
+      try {
+        runnable.run();
+      } finally {
+        statistics.record(queued, System.nanoTime() - startedNanos);
+      }
+    }
+  }
+
+  /**
+   * Requests of one priority class. Pending requests are queued per endpoint and endpoints that
+   * have pending requests take turns.
+   */
+  private class Lane {
+    private final int concurrency;
+    private final Map<String, Deque<Task>> pending = new HashMap<>();
+    private final Deque<String> turns = new ArrayDeque<>();
+    private int running;
+
+    private Lane(int concurrency) {
+      this.concurrency = concurrency;
+    }
+
+    private void submit(String endpointId, Task task) {
+      synchronized (this) {
+        Deque<Task> tasks = pending.computeIfAbsent(endpointId, k -> new ArrayDeque<>());
+        if (tasks.isEmpty()) {
+          turns.offer(endpointId);
+        }
+        tasks.offer(task);
+      }
+      startPending();
+    }
+
+    private void startPending() {
+      Task task;
+      while ((task = next()) != null) {
+        Task toRun = task;
+        try {
+          executorService.execute(() -> run(toRun));
+        } catch (RejectedExecutionException e) {
+          synchronized (this) {
+            running--;
+          }
+          LOG.debug("Request processor is stopped, request '{}' is not processed", task.method);
+        }
+      }
+    }
+
+    private synchronized Task next() {
+      if (running >= concurrency || turns.isEmpty()) {
+        return null;
+      }
+      String endpointId = turns.poll();
+      Deque<Task> tasks = pending.get(endpointId);
+      Task task = tasks.poll();
+      if (tasks.isEmpty()) {
+        pending.remove(endpointId);
+      } else {
+        turns.offer(endpointId);
+      }
+      running++;
+      return task;
+    }
+
+    private void run(Task task) {
+      try {
+        task.run();
+      } finally {
+        synchronized (this) {
+          running--;
+        }
+        startPending();
+      }
+    }
   }
 }
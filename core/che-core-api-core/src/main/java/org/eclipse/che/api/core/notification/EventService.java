@@ -10,18 +10,22 @@
  */
 package org.eclipse.che.api.core.notification;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 import javax.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,50 +44,28 @@ import org.slf4j.LoggerFactory;
  *     bus.publish(new MyEvent());
  * </pre>
  *
+ * <p>For each published event class the service keeps a dispatch plan, the array of subscribers of
+ * the class and all of its super types along with the statistics of the class. Plans are built on
+ * the first publication of a class and dropped on every subscription change, so publishing does not
+ * walk the type hierarchy. A subscriber may be subscribed with an executor, then events are
+ * delivered to it asynchronously.
+ *
  * @author andrew00x
  */
 @Singleton
 public class EventService {
   private static final Logger LOG = LoggerFactory.getLogger(EventService.class);
 
-  private static final int CACHE_NUM = 1 << 2;
-  private static final int CACHE_MASK = CACHE_NUM - 1;
-  private static final int SEG_SIZE = 32;
+  private static final Delivery[] NO_DELIVERIES = new Delivery[0];
 
-  private final LoadingCache<Class<?>, Set<Class<?>>>[] typeCache;
-  private final ConcurrentMap<Class<?>, Set<EventSubscriber>> subscribersByEventType;
+  private final ConcurrentMap<Class<?>, Set<Delivery>> subscribersByEventType;
+  private final ConcurrentMap<Class<?>, PublishStatistics> statistics;
+  private volatile ConcurrentMap<Class<?>, DispatchPlan> dispatchPlans;
 
-  @SuppressWarnings("unchecked")
   public EventService() {
     subscribersByEventType = new ConcurrentHashMap<>();
-    typeCache = new LoadingCache[CACHE_NUM];
-    for (int i = 0; i < CACHE_NUM; i++) {
-      typeCache[i] =
-          CacheBuilder.newBuilder()
-              .concurrencyLevel(SEG_SIZE)
-              .build(
-                  new CacheLoader<Class<?>, Set<Class<?>>>() {
-                    @Override
-                    public Set<Class<?>> load(Class<?> eventClass) {
-                      LinkedList<Class<?>> parents = new LinkedList<>();
-                      Set<Class<?>> classes = new HashSet<>();
-                      parents.add(eventClass);
-                      while (!parents.isEmpty()) {
-                        Class<?> clazz = parents.pop();
-                        classes.add(clazz);
-                        Class<?> parent = clazz.getSuperclass();
-                        if (parent != null) {
-                          parents.add(parent);
-                        }
-                        Class<?>[] interfaces = clazz.getInterfaces();
-                        if (interfaces.length > 0) {
-                          Collections.addAll(parents, interfaces);
-                        }
-                      }
-                      return classes;
-                    }
-                  });
-    }
+    statistics = new ConcurrentHashMap<>();
+    dispatchPlans = new ConcurrentHashMap<>();
   }
 
   /**
@@ -92,28 +74,36 @@ public class EventService {
    * @param event event
    * @return published event
    */
-  @SuppressWarnings("unchecked")
   public <T> T publish(T event) {
     if (event == null) {
       throw new IllegalArgumentException("Null event.");
     }
+    final long start = System.nanoTime();
     final Class<?> eventClass = event.getClass();
-    for (Class<?> clazz : typeCache[eventClass.hashCode() & CACHE_MASK].getUnchecked(eventClass)) {
-      final Set<EventSubscriber> eventSubscribers = subscribersByEventType.get(clazz);
-      if (eventSubscribers != null && !eventSubscribers.isEmpty()) {
-        for (EventSubscriber eventSubscriber : eventSubscribers) {
-          try {
-            LOG.debug("Publish event {} for {}", event, eventSubscriber);
-            eventSubscriber.onEvent(event);
-          } catch (RuntimeException e) {
-            LOG.error(e.getMessage(), e);
-          }
-        }
+    final ConcurrentMap<Class<?>, DispatchPlan> plans = dispatchPlans;
+    DispatchPlan plan = plans.get(eventClass);
+    if (plan == null) {
+      plan = plans.computeIfAbsent(eventClass, this::createDispatchPlan);
+    }
+    final boolean debug = LOG.isDebugEnabled();
+    for (Delivery delivery : plan.deliveries) {
+      if (debug) {
+        LOG.debug("Publish event {} for {}", event, delivery.subscriber);
       }
+      delivery.deliver(event);
     }
+    plan.statistics.record(System.nanoTime() - start);
     return event;
   }
 
+  /**
+   * Returns publication statistics per event class. For asynchronously delivered events only the
+   * time of handing them over to executors is counted.
+   */
+  public Map<Class<?>, PublishStatistics> getStatistics() {
+    return new HashMap<>(statistics);
+  }
+
   /**
    * Subscribe event listener. The event to subscribe to is inferred by checking the generic type
    * arguments of the given subscriber.
@@ -122,7 +112,7 @@ public class EventService {
    */
   public void subscribe(EventSubscriber<?> subscriber) {
     final Class<?> eventType = getEventType(subscriber);
-    doSubscribe(subscriber, eventType);
+    doSubscribe(subscriber, eventType, null);
   }
 
   /**
@@ -133,19 +123,36 @@ public class EventService {
    * @param eventType The event to subscribe to.
    */
   public <T> void subscribe(EventSubscriber<? extends T> subscriber, Class<T> eventType) {
-    doSubscribe(subscriber, eventType);
+    doSubscribe(subscriber, eventType, null);
   }
 
-  private void doSubscribe(EventSubscriber<?> subscriber, Class<?> eventType) {
-    Set<EventSubscriber> entries = subscribersByEventType.get(eventType);
+  /**
+   * Subscribe to an event. The given subscriber will be called by the given executor whenever an
+   * instance of the specified event is published, {@link #publish(Object)} does not wait for it.
+   *
+   * @param subscriber The subscriber to call when an event is published.
+   * @param eventType The event to subscribe to.
+   * @param executor The executor which calls the subscriber.
+   */
+  public <T> void subscribe(
+      EventSubscriber<? extends T> subscriber, Class<T> eventType, Executor executor) {
+    if (executor == null) {
+      throw new IllegalArgumentException("Null executor.");
+    }
+    doSubscribe(subscriber, eventType, executor);
+  }
+
+  private void doSubscribe(EventSubscriber<?> subscriber, Class<?> eventType, Executor executor) {
+    Set<Delivery> entries = subscribersByEventType.get(eventType);
     if (entries == null) {
-      Set<EventSubscriber> newEntries = new CopyOnWriteArraySet<>();
+      Set<Delivery> newEntries = new CopyOnWriteArraySet<>();
       entries = subscribersByEventType.putIfAbsent(eventType, newEntries);
       if (entries == null) {
         entries = newEntries;
       }
     }
-    entries.add(subscriber);
+    entries.add(new Delivery(subscriber, executor));
+    dispatchPlans = new ConcurrentHashMap<>();
   }
 
   /**
@@ -163,15 +170,48 @@ public class EventService {
   }
 
   private void doUnsubscribe(EventSubscriber<?> subscriber, Class<?> eventType) {
-    final Set<EventSubscriber> entries = subscribersByEventType.get(eventType);
+    final Set<Delivery> entries = subscribersByEventType.get(eventType);
     if (entries != null && !entries.isEmpty()) {
-      boolean changed = entries.remove(subscriber);
+      boolean changed = entries.remove(new Delivery(subscriber, null));
       if (changed) {
         if (entries.isEmpty()) {
           subscribersByEventType.remove(eventType);
         }
+        dispatchPlans = new ConcurrentHashMap<>();
+      }
+    }
+  }
+
+  private DispatchPlan createDispatchPlan(Class<?> eventClass) {
+    List<Delivery> deliveries = new ArrayList<>();
+    for (Class<?> clazz : getTypeHierarchy(eventClass)) {
+      Set<Delivery> entries = subscribersByEventType.get(clazz);
+      if (entries != null) {
+        deliveries.addAll(entries);
       }
     }
+    return new DispatchPlan(
+        deliveries.isEmpty() ? NO_DELIVERIES : deliveries.toArray(new Delivery[0]),
+        statistics.computeIfAbsent(eventClass, k -> new PublishStatistics()));
+  }
+
+  private static Set<Class<?>> getTypeHierarchy(Class<?> eventClass) {
+    LinkedList<Class<?>> parents = new LinkedList<>();
+    Set<Class<?>> classes = new LinkedHashSet<>();
+    parents.add(eventClass);
+    while (!parents.isEmpty()) {
+      Class<?> clazz = parents.pop();
+      classes.add(clazz);
+      Class<?> parent = clazz.getSuperclass();
+      if (parent != null) {
+        parents.add(parent);
+      }
+      Class<?>[] interfaces = clazz.getInterfaces();
+      if (interfaces.length > 0) {
+        Collections.addAll(parents, interfaces);
+      }
+    }
+    return classes;
   }
 
   private Class<?> getEventType(EventSubscriber<?> subscriber) {
@@ -200,4 +240,76 @@ public class EventService {
     }
     return eventType;
   }
+
+  /** Publication statistics of a single event class. */
+  public static class PublishStatistics {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    private void record(long publishNanos) {
+      count.increment();
+      nanos.add(publishNanos);
+    }
+
+    public long getCount() {
+      return count.sum();
+    }
+
+    public long getTotalPublishTimeNanos() {
+      return nanos.sum();
+    }
+  }
+
+  /** Subscribers of an event class and the statistics of the class, kept across plan rebuilds. */
+  private static class DispatchPlan {
+    private final Delivery[] deliveries;
+    private final PublishStatistics statistics;
+
+    private DispatchPlan(Delivery[] deliveries, PublishStatistics statistics) {
+      this.deliveries = deliveries;
+      this.statistics = statistics;
+    }
+  }
+
+  /** Subscriber along with the executor it is called by, equal by subscriber. */
+  private static class Delivery {
+    private final EventSubscriber subscriber;
+    private final Executor executor;
+
+    private Delivery(EventSubscriber subscriber, Executor executor) {
+      this.subscriber = subscriber;
+      this.executor = executor;
+    }
+
+    private void deliver(Object event) {
+      if (executor == null) {
+        notifySubscriber(event);
+        return;
+      }
+      try {
+        executor.execute(() -> notifySubscriber(event));
+      } catch (RejectedExecutionException e) {
+        LOG.error("Event {} is rejected by executor of {}", event, subscriber, e);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void notifySubscriber(Object event) {
+      try {
+        subscriber.onEvent(event);
+      } catch (RuntimeException e) {
+        LOG.error(e.getMessage(), e);
+      }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Delivery && subscriber.equals(((Delivery) obj).subscriber);
+    }
+
+    @Override
+    public int hashCode() {
+      return subscriber.hashCode();
+    }
+  }
 }
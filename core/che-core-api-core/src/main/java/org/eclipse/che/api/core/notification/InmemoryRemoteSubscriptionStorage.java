@@ -11,6 +11,7 @@
 package org.eclipse.che.api.core.notification;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -18,7 +19,9 @@ import java.util.concurrent.ConcurrentHashMap;
 import javax.inject.Singleton;
 
 /**
- * Imnemory implementation of {@link RemoteSubscriptionStorage}
+ * Imnemory implementation of {@link RemoteSubscriptionStorage}. Subscriptions of a method are also
+ * indexed by the entries of their scopes, so looking up subscriptions within a scope does not
+ * depend on the number of other subscriptions.
  *
  * @author Max Shaposhnik (mshaposh@redhat.com)
  */
@@ -28,24 +31,79 @@ public class InmemoryRemoteSubscriptionStorage implements RemoteSubscriptionStor
   private final Map<String, Set<RemoteSubscriptionContext>> subscriptions =
       new ConcurrentHashMap<>();
 
+  /** Method -> scope key -> scope value -> subscriptions. */
+  private final Map<String, Map<String, Map<String, Set<RemoteSubscriptionContext>>>> scopeIndex =
+      new ConcurrentHashMap<>();
+
   @Override
   public Set<RemoteSubscriptionContext> getByMethod(String method) {
     return subscriptions.getOrDefault(method, Collections.emptySet());
   }
 
   @Override
-  public void addSubscription(String method, RemoteSubscriptionContext remoteSubscriptionContext) {
+  public Set<RemoteSubscriptionContext> getByScope(
+      String method, String scopeKey, String scopeValue) {
+    return scopeIndex
+        .getOrDefault(method, Collections.emptyMap())
+        .getOrDefault(scopeKey, Collections.emptyMap())
+        .getOrDefault(scopeValue, Collections.emptySet());
+  }
+
+  @Override
+  public synchronized void addSubscription(
+      String method, RemoteSubscriptionContext remoteSubscriptionContext) {
     subscriptions
         .computeIfAbsent(method, k -> ConcurrentHashMap.newKeySet(1))
         .add(remoteSubscriptionContext);
+
+    Map<String, String> scope = remoteSubscriptionContext.getScope();
+    if (scope == null) {
+      return;
+    }
+    Map<String, Map<String, Set<RemoteSubscriptionContext>>> methodIndex =
+        scopeIndex.computeIfAbsent(method, k -> new ConcurrentHashMap<>());
+    for (Map.Entry<String, String> entry : scope.entrySet()) {
+      if (entry.getKey() != null && entry.getValue() != null) {
+        methodIndex
+            .computeIfAbsent(entry.getKey(), k -> new ConcurrentHashMap<>())
+            .computeIfAbsent(entry.getValue(), k -> ConcurrentHashMap.newKeySet(1))
+            .add(remoteSubscriptionContext);
+      }
+    }
   }
 
   @Override
-  public void removeSubscription(String method, String endpointId) {
+  public synchronized void removeSubscription(String method, String endpointId) {
+    Set<RemoteSubscriptionContext> removed = new HashSet<>();
     subscriptions
         .getOrDefault(method, Collections.emptySet())
         .removeIf(
             remoteSubscriptionContext ->
-                Objects.equals(remoteSubscriptionContext.getEndpointId(), endpointId));
+                Objects.equals(remoteSubscriptionContext.getEndpointId(), endpointId)
+                    && removed.add(remoteSubscriptionContext));
+
+    Map<String, Map<String, Set<RemoteSubscriptionContext>>> methodIndex = scopeIndex.get(method);
+    if (methodIndex == null) {
+      return;
+    }
+    for (RemoteSubscriptionContext context : removed) {
+      if (context.getScope() == null) {
+        continue;
+      }
+      for (Map.Entry<String, String> entry : context.getScope().entrySet()) {
+        if (entry.getKey() == null || entry.getValue() == null) {
+          continue;
+        }
+        Map<String, Set<RemoteSubscriptionContext>> byValue = methodIndex.get(entry.getKey());
+        if (byValue != null) {
+          byValue.computeIfPresent(
+              entry.getValue(),
+              (value, contexts) -> {
+                contexts.remove(context);
+                return contexts.isEmpty() ? null : contexts;
+              });
+        }
+      }
+    }
   }
 }
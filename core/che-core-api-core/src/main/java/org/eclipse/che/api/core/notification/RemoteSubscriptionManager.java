@@ -12,26 +12,39 @@ package org.eclipse.che.api.core.notification;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import java.util.Collection;
 import java.util.Map;
 import java.util.function.BiPredicate;
+import java.util.function.Function;
+import org.eclipse.che.api.core.jsonrpc.commons.JsonRpcMarshaller;
+import org.eclipse.che.api.core.jsonrpc.commons.JsonRpcParams;
+import org.eclipse.che.api.core.jsonrpc.commons.JsonRpcRequest;
 import org.eclipse.che.api.core.jsonrpc.commons.RequestHandlerConfigurator;
-import org.eclipse.che.api.core.jsonrpc.commons.RequestTransmitter;
 import org.eclipse.che.api.core.notification.dto.EventSubscription;
+import org.eclipse.che.api.core.websocket.commons.WebSocketMessageTransmitter;
 
+/**
+ * Sends events published by {@link EventService} as JSON-RPC notifications to the endpoints that
+ * subscribed for them. An event is marshalled once and the same message is transmitted to every
+ * matching subscriber.
+ */
 @Singleton
 public class RemoteSubscriptionManager {
 
   private final EventService eventService;
-  private final RequestTransmitter requestTransmitter;
+  private final JsonRpcMarshaller marshaller;
+  private final WebSocketMessageTransmitter transmitter;
   private final RemoteSubscriptionStorage remoteSubscriptionStorage;
 
   @Inject
   public RemoteSubscriptionManager(
       EventService eventService,
-      RequestTransmitter requestTransmitter,
+      JsonRpcMarshaller marshaller,
+      WebSocketMessageTransmitter transmitter,
       RemoteSubscriptionStorage remoteSubscriptionStorage) {
     this.eventService = eventService;
-    this.requestTransmitter = requestTransmitter;
+    this.marshaller = marshaller;
+    this.transmitter = transmitter;
     this.remoteSubscriptionStorage = remoteSubscriptionStorage;
   }
 
@@ -55,12 +68,41 @@ public class RemoteSubscriptionManager {
   public <T> void register(
       String method, Class<T> eventType, BiPredicate<T, Map<String, String>> biPredicate) {
     eventService.subscribe(
-        event ->
-            remoteSubscriptionStorage
-                .getByMethod(method)
-                .stream()
-                .filter(context -> biPredicate.test(event, context.getScope()))
-                .forEach(context -> transmit(context.getEndpointId(), method, event)),
+        event -> {
+          String message = null;
+          for (RemoteSubscriptionContext context : remoteSubscriptionStorage.getByMethod(method)) {
+            if (biPredicate.test(event, context.getScope())) {
+              if (message == null) {
+                message = marshall(method, event);
+              }
+              transmitter.transmit(context.getEndpointId(), message);
+            }
+          }
+        },
+        eventType);
+  }
+
+  /**
+   * Registers a subscription for events that are delivered to the subscribers whose scope has the
+   * given key mapped to the value taken from the event, e.g. to the subscribers of the workspace of
+   * the event. Subscribers are looked up in the scope index of the storage instead of testing every
+   * subscription of the method.
+   *
+   * @param method JSON-RPC method of the notification
+   * @param eventType type of the event
+   * @param scopeKey key of the subscription scope entry
+   * @param scopeValue function that returns the value of the scope entry for an event
+   */
+  public <T> void register(
+      String method, Class<T> eventType, String scopeKey, Function<T, String> scopeValue) {
+    eventService.subscribe(
+        event -> {
+          String value = scopeValue.apply(event);
+          if (value != null) {
+            transmit(
+                remoteSubscriptionStorage.getByScope(method, scopeKey, value), method, event);
+          }
+        },
         eventType);
   }
 
@@ -75,12 +117,18 @@ public class RemoteSubscriptionManager {
     remoteSubscriptionStorage.removeSubscription(eventSubscription.getMethod(), endpointId);
   }
 
-  private <T> void transmit(String endpointId, String method, T event) {
-    requestTransmitter
-        .newRequest()
-        .endpointId(endpointId)
-        .methodName(method)
-        .paramsAsDto(event)
-        .sendAndSkipResult();
+  private <T> void transmit(
+      Collection<RemoteSubscriptionContext> contexts, String method, T event) {
+    if (contexts.isEmpty()) {
+      return;
+    }
+    String message = marshall(method, event);
+    for (RemoteSubscriptionContext context : contexts) {
+      transmitter.transmit(context.getEndpointId(), message);
+    }
+  }
+
+  private <T> String marshall(String method, T event) {
+    return marshaller.marshall(new JsonRpcRequest(null, method, new JsonRpcParams(event)));
   }
 }
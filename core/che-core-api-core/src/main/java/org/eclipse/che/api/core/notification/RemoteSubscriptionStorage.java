@@ -10,6 +10,9 @@
  */
 package org.eclipse.che.api.core.notification;
 
+import static java.util.stream.Collectors.toSet;
+
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -28,6 +31,27 @@ public interface RemoteSubscriptionStorage {
    */
   Set<RemoteSubscriptionContext> getByMethod(String method);
 
+  /**
+   * Returns active subscriptions for the given method which scope has the given value for the given
+   * key. Implementations are encouraged to index subscriptions, the default implementation filters
+   * the subscriptions of the method.
+   *
+   * @param method Method name
+   * @param scopeKey key of the scope entry, e.g. {@code workspaceId}
+   * @param scopeValue value of the scope entry
+   * @return active subscriptions to this method within the scope
+   */
+  default Set<RemoteSubscriptionContext> getByScope(
+      String method, String scopeKey, String scopeValue) {
+    return getByMethod(method)
+        .stream()
+        .filter(
+            context ->
+                context.getScope() != null
+                    && Objects.equals(context.getScope().get(scopeKey), scopeValue))
+        .collect(toSet());
+  }
+
   /**
    * Adds new subscription to the given method subscriptions list
    *
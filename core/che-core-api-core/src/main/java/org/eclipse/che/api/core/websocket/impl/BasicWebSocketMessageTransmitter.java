@@ -10,14 +10,36 @@
  */
 package org.eclipse.che.api.core.websocket.impl;
 
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.joining;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.stream.JsonReader;
 import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import javax.websocket.CloseReason;
+import javax.websocket.CloseReason.CloseCodes;
 import javax.websocket.Session;
 import org.eclipse.che.api.core.websocket.commons.WebSocketMessageTransmitter;
+import org.eclipse.che.commons.lang.concurrent.LoggingUncaughtExceptionHandler;
+import org.eclipse.che.commons.schedule.ScheduleDelay;
 import org.slf4j.Logger;
 
 /**
@@ -25,24 +47,57 @@ import org.slf4j.Logger;
  * session is not opened adds messages to re-sender to try to send them when session will be opened
  * again.
  *
+ * <p>Messages are not sent on the caller thread. Each session has its own bounded outbound queue
+ * which is drained by a writer thread, so a slow client delays only its own messages. Messages
+ * that are waiting in a queue at the moment it is drained are sent in a single frame as a JSON-RPC
+ * batch (JSON array). When a queue is full a notification replaces the oldest queued notification.
+ * Dropped notifications are recorded in re-sender, which requests the client to resync once the
+ * queue is drained. Messages re-sent by re-sender are never dropped. If there is no notification to
+ * replace, the caller is not blocked: the session is closed and its queued messages are passed to
+ * re-sender, so they are sent when the client reconnects.
+ *
  * @author Dmitry Kuleshov
  */
 @Singleton
 public class BasicWebSocketMessageTransmitter implements WebSocketMessageTransmitter {
   private static final Logger LOG = getLogger(BasicWebSocketMessageTransmitter.class);
 
+  static final int QUEUE_CAPACITY = 1_000;
+  private static final int MAX_BATCH_SIZE = 50;
+
   private final WebSocketSessionRegistry registry;
   private final MessagesReSender reSender;
+  private final Map<Session, OutboundQueue> queues = new ConcurrentHashMap<>();
+  private final ExecutorService writers;
 
   @Inject
   public BasicWebSocketMessageTransmitter(
       WebSocketSessionRegistry registry, MessagesReSender reSender) {
     this.registry = registry;
     this.reSender = reSender;
+    this.writers =
+        newCachedThreadPool(
+            new ThreadFactoryBuilder()
+                .setUncaughtExceptionHandler(LoggingUncaughtExceptionHandler.getInstance())
+                .setNameFormat("WebSocketMessageWriter-%d")
+                .setDaemon(true)
+                .build());
   }
 
   @Override
-  public synchronized void transmit(String endpointId, String message) {
+  public void transmit(String endpointId, String message) {
+    transmit(endpointId, message, isNotification(message));
+  }
+
+  /**
+   * Transmits a message re-sent by {@link MessagesReSender}. Unlike other notifications, it never
+   * gives place to newer messages in a full queue, as it either requests a resync or fills a gap.
+   */
+  void transmitPending(String endpointId, String message) {
+    transmit(endpointId, message, false);
+  }
+
+  private void transmit(String endpointId, String message, boolean droppable) {
     Optional<Session> sessionOptional = registry.get(endpointId);
 
     if (!sessionOptional.isPresent()) {
@@ -54,13 +109,217 @@ public class BasicWebSocketMessageTransmitter implements WebSocketMessageTransmi
 
       reSender.add(endpointId, message);
     } else {
-      LOG.debug("Session registered and open, sending message");
+      LOG.debug("Session registered and open, queueing message");
+
+      Session session = sessionOptional.get();
+      queues
+          .computeIfAbsent(session, s -> new OutboundQueue(endpointId, s))
+          .offer(new OutboundMessage(message, droppable));
+    }
+  }
+
+  /** Returns the number of messages waiting to be sent, per endpoint. */
+  public Map<String, Integer> getQueueDepths() {
+    Map<String, Integer> depths = new HashMap<>();
+    for (OutboundQueue queue : queues.values()) {
+      depths.merge(queue.endpointId, queue.messages.size(), Integer::sum);
+    }
+    return depths;
+  }
+
+  @ScheduleDelay(initialDelay = 60, delay = 60)
+  void cleanClosedSessions() {
+    for (Iterator<OutboundQueue> it = queues.values().iterator(); it.hasNext(); ) {
+      OutboundQueue queue = it.next();
+      if (!queue.session.isOpen()) {
+        it.remove();
+        queue.moveToReSender();
+      } else if (queue.messages.size() > MAX_BATCH_SIZE) {
+        LOG.debug("Outbound queue of endpoint {}: {}", queue.endpointId, queue.messages.size());
+      }
+    }
+  }
+
+  @PreDestroy
+  void stop() {
+    writers.shutdown();
+    try {
+      if (!writers.awaitTermination(5, SECONDS)) {
+        writers.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      writers.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Checks whether a message is a JSON-RPC notification, i.e. a request without identifier. Only
+   * the names of top level members are read.
+   */
+  static boolean isNotification(String message) {
+    boolean method = false;
+    try (JsonReader reader = new JsonReader(new StringReader(message))) {
+      reader.setLenient(true);
+      reader.beginObject();
+      while (reader.hasNext()) {
+        String name = reader.nextName();
+        if ("id".equals(name)) {
+          return false;
+        }
+        method |= "method".equals(name);
+        reader.skipValue();
+      }
+      return method;
+    } catch (IOException | IllegalStateException e) {
+      return false;
+    }
+  }
+
+  private static class OutboundMessage {
+    private final String text;
+    private final boolean droppable;
+
+    private OutboundMessage(String text, boolean droppable) {
+      this.text = text;
+      this.droppable = droppable;
+    }
+  }
+
+  private class OutboundQueue {
+    private final String endpointId;
+    private final Session session;
+    private final BlockingQueue<OutboundMessage> messages =
+        new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean resyncRequired = new AtomicBoolean();
+
+    private OutboundQueue(String endpointId, Session session) {
+      this.endpointId = endpointId;
+      this.session = session;
+    }
 
+    void offer(OutboundMessage message) {
+      while (!messages.offer(message)) {
+        if (removeOldestNotification()) {
+          continue;
+        }
+        if (message.droppable) {
+          LOG.warn("Outbound queue of endpoint {} is full, dropping notification", endpointId);
+          dropped();
+        } else {
+          overflow(message);
+        }
+        return;
+      }
+      scheduleDrain();
+    }
+
+    /** Records a dropped notification, the client is requested to resync after the next drain. */
+    private void dropped() {
+      reSender.dropped(endpointId);
+      resyncRequired.set(true);
+    }
+
+    /**
+     * Closes the session which does not keep up with its messages. The queued messages and the
+     * given one are passed to re-sender in order, and are sent when the client reconnects.
+     */
+    private void overflow(OutboundMessage message) {
+      LOG.warn("Outbound queue of endpoint {} is full, closing session", endpointId);
+      queues.remove(session, this);
       try {
-        sessionOptional.get().getBasicRemote().sendText(message);
+        session.close(new CloseReason(CloseCodes.TRY_AGAIN_LATER, "Outbound queue is full"));
+      } catch (IOException e) {
+        LOG.error("Error while trying to close session of endpoint " + endpointId, e);
+      }
+      moveToReSender();
+      reSender.add(endpointId, message.text);
+    }
+
+    private boolean removeOldestNotification() {
+      for (Iterator<OutboundMessage> it = messages.iterator(); it.hasNext(); ) {
+        if (it.next().droppable) {
+          it.remove();
+          dropped();
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private void scheduleDrain() {
+      if (draining.compareAndSet(false, true)) {
+        try {
+          writers.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+          draining.set(false);
+          LOG.debug("Transmitter is stopped, message is not sent");
+        }
+      }
+    }
+
+    private void drain() {
+      try {
+        List<OutboundMessage> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (messages.drainTo(batch, MAX_BATCH_SIZE) > 0) {
+          if (!session.isOpen()) {
+            batch.forEach(m -> reSender.add(endpointId, m.text));
+            queues.remove(session, this);
+            moveToReSender();
+            return;
+          }
+          send(batch);
+          batch.clear();
+        }
+      } finally {
+        draining.set(false);
+      }
+      if (resyncRequired.compareAndSet(true, false)) {
+        reSender.resend(endpointId);
+      }
+      // a message could have been queued after the last drain but before the flag was reset
+      if (!messages.isEmpty()) {
+        scheduleDrain();
+      }
+    }
+
+    private void send(List<OutboundMessage> batch) {
+      List<String> frame = new ArrayList<>(batch.size());
+      for (OutboundMessage message : batch) {
+        if (message.text.startsWith("{")) {
+          frame.add(message.text);
+        } else {
+          // already a batch or not a JSON-RPC object, is sent in its own frame
+          sendFrame(frame);
+          frame.clear();
+          sendText(message.text);
+        }
+      }
+      sendFrame(frame);
+    }
+
+    private void sendFrame(List<String> frame) {
+      if (frame.size() == 1) {
+        sendText(frame.get(0));
+      } else if (frame.size() > 1) {
+        sendText(frame.stream().collect(joining(",", "[", "]")));
+      }
+    }
+
+    private void sendText(String text) {
+      try {
+        session.getBasicRemote().sendText(text);
       } catch (IOException e) {
         LOG.error("Error while trying to send a message to a basic websocket remote endpoint", e);
       }
     }
+
+    private void moveToReSender() {
+      OutboundMessage message;
+      while ((message = messages.poll()) != null) {
+        reSender.add(endpointId, message.text);
+      }
+    }
   }
 }
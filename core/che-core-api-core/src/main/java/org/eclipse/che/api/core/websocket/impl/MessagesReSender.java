@@ -10,60 +10,105 @@
  */
 package org.eclipse.che.api.core.websocket.impl;
 
-import com.google.common.collect.EvictingQueue;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import javax.inject.Inject;
+import javax.inject.Provider;
 import javax.inject.Singleton;
 import javax.websocket.Session;
 import org.eclipse.che.commons.schedule.ScheduleDelay;
+import org.slf4j.Logger;
 
 /**
  * Instance is responsible for re-sending messages that were not sent during the period when WEB
  * SOCKET session was closed. If session is closed during re-send process it stops and left messages
  * will be re-sent as WEB SOCKET session becomes open again.
  *
+ * <p>Messages of an endpoint are numbered in the order they are added and kept within a size
+ * budget. If some of them had to be discarded, because of the budget or because they got stale,
+ * the endpoint receives a {@value #RESYNC_REQUIRED_METHOD} notification before the rest are
+ * re-sent, so a client knows when its state has to be refreshed and when the re-sent messages are
+ * enough. Notifications which transmitter dropped from a full queue of an open session are
+ * recorded the same way. Messages are re-sent through the {@link BasicWebSocketMessageTransmitter},
+ * so they are queued along with the other messages of the session, but are never dropped.
+ *
  * @author Dmitry Kuleshov
  */
 @Singleton
 public class MessagesReSender {
+  private static final Logger LOG = getLogger(MessagesReSender.class);
+
+  /** JSON-RPC notification sent to an endpoint that has lost some of its pending messages. */
+  public static final String RESYNC_REQUIRED_METHOD = "websocketMessages/resyncRequired";
 
-  private static final int MAX_MESSAGES = 100;
+  private static final long MAX_BYTES = 1024 * 1024;
+  private static final long MAX_AGE_MILLIS = 5 * 60_000;
+  // re-sent messages are never dropped by transmitter, so they must fit into its queue
+  private static final int MAX_MESSAGES = BasicWebSocketMessageTransmitter.QUEUE_CAPACITY / 2;
 
   private final WebSocketSessionRegistry registry;
+  // transmitter adds messages of closed sessions here, so it is looked up lazily
+  private final Provider<BasicWebSocketMessageTransmitter> transmitterProvider;
 
-  private final Map<String, Queue<DelayedMessage>> delayedMessageRegistry =
-      new ConcurrentHashMap<>();
+  private final Map<String, ReplayLog> delayedMessageRegistry = new ConcurrentHashMap<>();
 
   @Inject
-  public MessagesReSender(WebSocketSessionRegistry registry) {
+  public MessagesReSender(
+      WebSocketSessionRegistry registry,
+      Provider<BasicWebSocketMessageTransmitter> transmitterProvider) {
     this.registry = registry;
+    this.transmitterProvider = transmitterProvider;
   }
 
   @ScheduleDelay(initialDelay = 60, delay = 60)
   void cleanStaleMessages() {
     long currentTimeMillis = System.currentTimeMillis();
 
-    delayedMessageRegistry
-        .values()
-        .forEach(it -> it.removeIf(m -> currentTimeMillis - m.timeMillis > 60_000));
+    delayedMessageRegistry.values().forEach(it -> it.removeOlderThan(currentTimeMillis));
 
-    delayedMessageRegistry.values().removeIf(Queue::isEmpty);
+    delayedMessageRegistry
+        .keySet()
+        .forEach(
+            id ->
+                delayedMessageRegistry.computeIfPresent(
+                    id, (k, it) -> it.isStale(currentTimeMillis) ? null : it));
   }
 
   public void add(String endpointId, String message) {
+    delayedMessageRegistry.compute(
+        endpointId,
+        (id, log) -> {
+          ReplayLog replayLog = log == null ? new ReplayLog() : log;
+          replayLog.add(message);
+          return replayLog;
+        });
+  }
 
-    delayedMessageRegistry
-        .computeIfAbsent(endpointId, k -> EvictingQueue.create(MAX_MESSAGES))
-        .offer(new DelayedMessage(message));
+  /**
+   * Records that a message to the endpoint was dropped, so the endpoint receives a {@value
+   * #RESYNC_REQUIRED_METHOD} notification when its messages are re-sent.
+   */
+  public void dropped(String endpointId) {
+    delayedMessageRegistry.compute(
+        endpointId,
+        (id, log) -> {
+          ReplayLog replayLog = log == null ? new ReplayLog() : log;
+          replayLog.drop();
+          return replayLog;
+        });
   }
 
   public void resend(String endpointId) {
-    Queue<DelayedMessage> delayedMessages = delayedMessageRegistry.remove(endpointId);
+    ReplayLog log = delayedMessageRegistry.get(endpointId);
 
-    if (delayedMessages == null || delayedMessages.isEmpty()) {
+    if (log == null) {
       return;
     }
 
@@ -73,32 +118,112 @@ public class MessagesReSender {
       return;
     }
 
-    Queue<DelayedMessage> backingQueue = EvictingQueue.create(delayedMessages.size());
-    while (!delayedMessages.isEmpty()) {
-      backingQueue.offer(delayedMessages.poll());
+    Session session = sessionOptional.get();
+    if (!session.isOpen()) {
+      return;
     }
 
-    Session session = sessionOptional.get();
-    for (DelayedMessage delayedMessage : backingQueue) {
-      if (session.isOpen()) {
-        session.getAsyncRemote().sendText(delayedMessage.message);
-      } else {
-        delayedMessages.add(delayedMessage);
+    List<String> messages = new ArrayList<>();
+    synchronized (log) {
+      if (log.lost > 0) {
+        LOG.debug("{} messages to endpoint {} are lost, requesting resync", log.lost, endpointId);
+
+        messages.add(resyncNotification(log));
+        log.lost = 0;
+      }
+
+      DelayedMessage delayedMessage;
+      while ((delayedMessage = log.messages.poll()) != null) {
+        log.bytes -= delayedMessage.bytes;
+        messages.add(delayedMessage.message);
       }
     }
 
-    if (!delayedMessages.isEmpty()) {
-      delayedMessageRegistry.put(endpointId, delayedMessages);
+    delayedMessageRegistry.computeIfPresent(endpointId, (id, it) -> it.isDone() ? null : it);
+
+    // if the session gets closed meanwhile, the transmitter adds the messages back
+    BasicWebSocketMessageTransmitter transmitter = transmitterProvider.get();
+    messages.forEach(message -> transmitter.transmitPending(endpointId, message));
+  }
+
+  private static String resyncNotification(ReplayLog log) {
+    return "{\"jsonrpc\":\"2.0\",\"method\":\""
+        + RESYNC_REQUIRED_METHOD
+        + "\",\"params\":{\"lost\":"
+        + log.lost
+        + ",\"firstLostSequence\":"
+        + log.firstLostSequence
+        + ",\"lastLostSequence\":"
+        + log.lastLostSequence
+        + "}}";
+  }
+
+  /** Pending messages of a single endpoint. */
+  private static class ReplayLog {
+    private final Deque<DelayedMessage> messages = new ArrayDeque<>();
+    private long nextSequence;
+    private long bytes;
+    private long lost;
+    private long firstLostSequence;
+    private long lastLostSequence;
+    private long lastAddedMillis;
+
+    private synchronized void add(String message) {
+      DelayedMessage delayedMessage = new DelayedMessage(nextSequence++, message);
+      messages.offer(delayedMessage);
+      bytes += delayedMessage.bytes;
+      lastAddedMillis = delayedMessage.timeMillis;
+
+      while ((bytes > MAX_BYTES || messages.size() > MAX_MESSAGES) && messages.size() > 1) {
+        discard(messages.poll());
+      }
+    }
+
+    private synchronized void drop() {
+      lost(nextSequence++);
+      lastAddedMillis = System.currentTimeMillis();
+    }
+
+    private synchronized void removeOlderThan(long currentTimeMillis) {
+      while (!messages.isEmpty()
+          && currentTimeMillis - messages.peek().timeMillis > MAX_AGE_MILLIS) {
+        discard(messages.poll());
+      }
+    }
+
+    private void discard(DelayedMessage message) {
+      bytes -= message.bytes;
+      lost(message.sequence);
+    }
+
+    private void lost(long sequence) {
+      if (lost++ == 0) {
+        firstLostSequence = sequence;
+      }
+      lastLostSequence = sequence;
+    }
+
+    private synchronized boolean isDone() {
+      return messages.isEmpty() && lost == 0;
+    }
+
+    /** The log is dropped when it has been silent for long enough, even if it still has losses. */
+    private synchronized boolean isStale(long currentTimeMillis) {
+      return messages.isEmpty() && currentTimeMillis - lastAddedMillis > MAX_AGE_MILLIS;
     }
   }
 
   private static class DelayedMessage {
 
+    private final long sequence;
     private final long timeMillis;
+    private final long bytes;
     private final String message;
 
-    private DelayedMessage(String message) {
+    private DelayedMessage(long sequence, String message) {
+      this.sequence = sequence;
       this.message = message;
+      this.bytes = 2L * message.length();
       this.timeMillis = System.currentTimeMillis();
     }
   }
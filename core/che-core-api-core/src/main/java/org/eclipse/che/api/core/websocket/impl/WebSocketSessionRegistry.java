@@ -10,11 +10,14 @@
  */
 package org.eclipse.che.api.core.websocket.impl;
 
+import static java.util.Collections.singleton;
 import static java.util.stream.Collectors.toSet;
+import static org.eclipse.che.api.core.websocket.impl.WebsocketIdService.SEPARATOR;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -25,6 +28,11 @@ import org.slf4j.Logger;
 /**
  * Binds WEB SOCKET session to a specific endpoint form which it was opened.
  *
+ * <p>Besides the endpoint to session mapping the registry keeps the reverse session to endpoint
+ * mapping and indexes endpoint identifiers by their client and endpoint components (see {@link
+ * WebsocketIdService}), so that lookups made for every incoming or outgoing message do not depend on
+ * the number of registered sessions. Modifications are serialized, lookups are not blocked.
+ *
  * @author Dmitry Kuleshov
  */
 @Singleton
@@ -32,28 +40,68 @@ public class WebSocketSessionRegistry {
   private static final Logger LOG = getLogger(WebSocketSessionRegistry.class);
 
   private final Map<String, Session> sessionsMap = new ConcurrentHashMap<>();
+  private final Map<Session, String> endpointIds = new ConcurrentHashMap<>();
+  private final Map<String, Set<String>> componentIndex = new ConcurrentHashMap<>();
 
-  public void add(String endpointId, Session session) {
+  public synchronized void add(String endpointId, Session session) {
     LOG.debug("Registering session with endpoint {}", session.getId(), endpointId);
 
-    sessionsMap.put(endpointId, session);
+    String previousId = endpointIds.put(session, endpointId);
+    if (previousId != null
+        && !previousId.equals(endpointId)
+        && sessionsMap.remove(previousId, session)) {
+      unindex(previousId);
+    }
+
+    Session previous = sessionsMap.put(endpointId, session);
+    if (previous != null && previous != session) {
+      endpointIds.remove(previous, endpointId);
+    } else if (previous == null) {
+      index(endpointId);
+    }
   }
 
-  public Optional<Session> remove(String endpointId) {
+  public synchronized Optional<Session> remove(String endpointId) {
     LOG.debug("Cancelling registration for session with endpoint {}", endpointId);
 
-    return Optional.ofNullable(sessionsMap.remove(endpointId));
+    Session session = sessionsMap.remove(endpointId);
+    if (session != null) {
+      endpointIds.remove(session, endpointId);
+      unindex(endpointId);
+    }
+    return Optional.ofNullable(session);
   }
 
   public Optional<Session> remove(Session session) {
-    return get(session).flatMap(id -> Optional.ofNullable(sessionsMap.remove(id)));
+    return get(session).flatMap(this::remove);
   }
 
   public Optional<Session> get(String endpointId) {
     return Optional.ofNullable(sessionsMap.get(endpointId));
   }
 
+  /**
+   * Returns sessions whose endpoint identifier contains the given string. A string that is a whole
+   * client or endpoint component of registered combined identifiers is resolved by the index to
+   * the identifiers having exactly that component, other strings are matched against every
+   * registered identifier.
+   */
   public Set<Session> getByPartialMatch(String partialEndpointId) {
+    Session session = sessionsMap.get(partialEndpointId);
+    if (session != null) {
+      return singleton(session);
+    }
+
+    if (!partialEndpointId.contains(SEPARATOR)) {
+      Set<String> ids = componentIndex.get(partialEndpointId);
+      if (ids != null) {
+        return ids.stream()
+            .map(sessionsMap::get)
+            .filter(Objects::nonNull)
+            .collect(toSet());
+      }
+    }
+
     return sessionsMap
         .entrySet()
         .stream()
@@ -63,15 +111,37 @@ public class WebSocketSessionRegistry {
   }
 
   public Optional<String> get(Session session) {
-    return sessionsMap
-        .entrySet()
-        .stream()
-        .filter(entry -> entry.getValue().equals(session))
-        .map(Map.Entry::getKey)
-        .findAny();
+    return Optional.ofNullable(endpointIds.get(session));
   }
 
   public Set<Session> getSessions() {
     return new HashSet<>(sessionsMap.values());
   }
+
+  private void index(String endpointId) {
+    for (String component : components(endpointId)) {
+      componentIndex.computeIfAbsent(component, k -> ConcurrentHashMap.newKeySet()).add(endpointId);
+    }
+  }
+
+  private void unindex(String endpointId) {
+    for (String component : components(endpointId)) {
+      componentIndex.computeIfPresent(
+          component,
+          (k, ids) -> {
+            ids.remove(endpointId);
+            return ids.isEmpty() ? null : ids;
+          });
+    }
+  }
+
+  private static String[] components(String endpointId) {
+    int separator = endpointId.indexOf(SEPARATOR);
+    if (separator < 0) {
+      return new String[0];
+    }
+    return new String[] {
+      endpointId.substring(0, separator), endpointId.substring(separator + SEPARATOR.length())
+    };
+  }
 }
@@ -89,9 +89,11 @@ public class JsonRpcMessageReceiverTest {
     when(jsonRpcQualifier.isJsonRpcRequest(MESSAGE)).thenReturn(true);
     when(jsonRpcQualifier.isJsonRpcResponse(MESSAGE)).thenReturn(false);
     when(jsonRpcUnmarshaller.unmarshalArray(any())).thenReturn(singletonList(MESSAGE));
+    when(jsonRpcUnmarshaller.unmarshalRequest(any()))
+        .thenReturn(new JsonRpcRequest("id", "method", null));
 
     jsonRpcMessageReceiver.receive(ENDPOINT_ID, MESSAGE);
 
-    verify(requestProcessor).process(any());
+    verify(requestProcessor).process(eq(ENDPOINT_ID), eq("method"), any());
   }
 }
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.api.core.jsonrpc.impl;
+
+import static java.util.Arrays.asList;
+import static org.testng.Assert.assertEquals;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.eclipse.che.api.core.jsonrpc.commons.JsonRpcError;
+import org.eclipse.che.api.core.jsonrpc.commons.JsonRpcParams;
+import org.eclipse.che.api.core.jsonrpc.commons.JsonRpcRequest;
+import org.eclipse.che.api.core.jsonrpc.commons.JsonRpcResponse;
+import org.eclipse.che.api.core.jsonrpc.commons.JsonRpcResult;
+import org.testng.annotations.Test;
+
+/** Tests for {@link GsonJsonRpcMarshaller} */
+public class GsonJsonRpcMarshallerTest {
+
+  private GsonJsonRpcMarshaller marshaller = new GsonJsonRpcMarshaller(new Gson());
+
+  @Test
+  public void shouldMarshallNotificationWithoutParams() throws Exception {
+    assertEquals(
+        marshaller.marshall(new JsonRpcRequest(null, "method", null)),
+        "{\"jsonrpc\":\"2.0\",\"method\":\"method\"}");
+  }
+
+  @Test
+  public void shouldMarshallRequestWithObjectParams() throws Exception {
+    JsonObject params = new JsonObject();
+    params.addProperty("name", "value");
+
+    assertEquals(
+        marshaller.marshall(new JsonRpcRequest("1", "method", new JsonRpcParams(params))),
+        "{\"jsonrpc\":\"2.0\",\"method\":\"method\",\"id\":\"1\",\"params\":{\"name\":\"value\"}}");
+  }
+
+  @Test
+  public void shouldWrapSingleNonObjectParamIntoArray() throws Exception {
+    assertEquals(
+        marshaller.marshall(new JsonRpcRequest(null, "method", new JsonRpcParams("a\"b"))),
+        "{\"jsonrpc\":\"2.0\",\"method\":\"method\",\"params\":[\"a\\\"b\"]}");
+  }
+
+  @Test
+  public void shouldMarshallResponseWithListResult() throws Exception {
+    assertEquals(
+        marshaller.marshall(
+            new JsonRpcResponse("1", new JsonRpcResult(asList("a", true, 1.5, null)), null)),
+        "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":[\"a\",true,1.5,null]}");
+  }
+
+  @Test
+  public void shouldMarshallErrorResponse() throws Exception {
+    assertEquals(
+        marshaller.marshall(new JsonRpcResponse("1", null, new JsonRpcError(-32601, "error"))),
+        "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"error\":{\"code\":-32601,\"message\":\"error\"}}");
+  }
+}
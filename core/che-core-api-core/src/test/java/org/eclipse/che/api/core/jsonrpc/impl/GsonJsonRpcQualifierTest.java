@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.api.core.jsonrpc.impl;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import com.google.gson.JsonParser;
+import org.testng.annotations.Test;
+
+/** Tests for {@link GsonJsonRpcQualifier} and array handling of {@link GsonJsonRpcUnmarshaller} */
+public class GsonJsonRpcQualifierTest {
+
+  static final String REQUEST =
+      "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"params\":{\"result\":[1,2]},\"method\":\"m\"}";
+  static final String RESPONSE = "{\"jsonrpc\":\"2.0\",\"id\":\"1\",\"result\":{\"method\":\"m\"}}";
+
+  GsonJsonRpcQualifier qualifier = new GsonJsonRpcQualifier();
+  GsonJsonRpcUnmarshaller unmarshaller = new GsonJsonRpcUnmarshaller(new JsonParser());
+
+  @Test
+  public void shouldValidateJson() throws Exception {
+    assertTrue(qualifier.isValidJson(REQUEST));
+    assertTrue(qualifier.isValidJson("[" + REQUEST + "," + RESPONSE + "]"));
+  }
+
+  @Test
+  public void shouldNotValidateMalformedJson() throws Exception {
+    assertFalse(qualifier.isValidJson("{\"id\":"));
+    assertFalse(qualifier.isValidJson("{\"id\":1}}"));
+  }
+
+  @Test
+  public void shouldQualifyRequestByTopLevelMembersOnly() throws Exception {
+    assertTrue(qualifier.isJsonRpcRequest(REQUEST));
+    assertFalse(qualifier.isJsonRpcResponse(REQUEST));
+  }
+
+  @Test
+  public void shouldQualifyResponseByTopLevelMembersOnly() throws Exception {
+    assertTrue(qualifier.isJsonRpcResponse(RESPONSE));
+    assertFalse(qualifier.isJsonRpcRequest(RESPONSE));
+  }
+
+  @Test
+  public void shouldNotQualifyResponseWithBothResultAndError() throws Exception {
+    assertFalse(
+        qualifier.isJsonRpcResponse(
+            "{\"id\":\"1\",\"result\":1,\"error\":{\"code\":1,\"message\":\"m\"}}"));
+  }
+
+  @Test
+  public void shouldReturnSingleMessageWhenNotArray() throws Exception {
+    assertEquals(unmarshaller.unmarshalArray(REQUEST), singletonList(REQUEST));
+  }
+
+  @Test
+  public void shouldSplitArray() throws Exception {
+    assertEquals(
+        unmarshaller.unmarshalArray(" [" + REQUEST + "," + RESPONSE + "]"),
+        asList(REQUEST, RESPONSE));
+  }
+}
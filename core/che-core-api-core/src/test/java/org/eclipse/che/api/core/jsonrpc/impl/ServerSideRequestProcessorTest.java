@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.api.core.jsonrpc.impl;
+
+import static java.util.Arrays.asList;
+import static org.eclipse.che.api.core.jsonrpc.impl.ServerSideRequestProcessor.priorityOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.che.api.core.jsonrpc.commons.RequestHandlerManager;
+import org.eclipse.che.api.core.jsonrpc.impl.ServerSideRequestProcessor.Priority;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** Tests for {@link ServerSideRequestProcessor} */
+public class ServerSideRequestProcessorTest {
+  private static final int LOW_PRIORITY_CONCURRENCY = 4;
+
+  private RequestHandlerManager requestHandlerManager;
+  private ManualExecutor executor;
+  private ServerSideRequestProcessor processor;
+
+  @BeforeMethod
+  public void setUp() {
+    requestHandlerManager = mock(RequestHandlerManager.class);
+    executor = new ManualExecutor();
+    processor =
+        new ServerSideRequestProcessor(
+            requestHandlerManager,
+            executor,
+            ImmutableMap.of(
+                Priority.HIGH,
+                16,
+                Priority.NORMAL,
+                32,
+                Priority.LOW,
+                LOW_PRIORITY_CONCURRENCY,
+                Priority.BULK,
+                2));
+  }
+
+  @Test
+  public void shouldGiveHighPriorityToLatencySensitiveMethods() throws Exception {
+    assertEquals(priorityOf("textDocument/completion"), Priority.HIGH);
+    assertEquals(priorityOf("textDocument/completionItem/resolve"), Priority.HIGH);
+    assertEquals(priorityOf("textDocument/hover"), Priority.HIGH);
+  }
+
+  @Test
+  public void shouldGiveLowPriorityToExpensiveMethods() throws Exception {
+    assertEquals(priorityOf("project/search"), Priority.LOW);
+    assertEquals(priorityOf("javaSearch/findUsages"), Priority.LOW);
+  }
+
+  @Test
+  public void shouldNotLimitExpensiveRequestsByImports() throws Exception {
+    assertEquals(priorityOf("project/import"), Priority.BULK);
+
+    for (int i = 0; i < LOW_PRIORITY_CONCURRENCY; i++) {
+      processor.process("endpoint", "project/import", () -> {});
+    }
+    processor.process("endpoint", "textDocument/references", () -> {});
+
+    assertEquals(executor.tasks.size(), 3);
+  }
+
+  @Test
+  public void shouldGiveNormalPriorityToOtherMethods() throws Exception {
+    assertEquals(priorityOf("project/get"), Priority.NORMAL);
+    assertEquals(priorityOf(""), Priority.NORMAL);
+  }
+
+  @Test
+  public void shouldLimitNumberOfRunningRequestsOfPriorityClass() throws Exception {
+    List<String> started = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      String name = "search" + i;
+      processor.process("endpoint", "project/search", () -> started.add(name));
+    }
+
+    assertEquals(executor.tasks.size(), LOW_PRIORITY_CONCURRENCY);
+
+    executor.runAll();
+
+    assertEquals(started.size(), 10);
+  }
+
+  @Test
+  public void shouldNotLimitRequestsOfPriorityClassByOtherClasses() throws Exception {
+    for (int i = 0; i < LOW_PRIORITY_CONCURRENCY + 1; i++) {
+      processor.process("endpoint", "project/search", () -> {});
+    }
+
+    processor.process("endpoint", "textDocument/hover", () -> {});
+
+    assertEquals(executor.tasks.size(), LOW_PRIORITY_CONCURRENCY + 1);
+  }
+
+  @Test
+  public void shouldServeEndpointsInTurns() throws Exception {
+    List<String> started = new ArrayList<>();
+    for (int i = 0; i < LOW_PRIORITY_CONCURRENCY; i++) {
+      processor.process("busy", "project/search", () -> {});
+    }
+    for (int i = 0; i < 3; i++) {
+      String name = "a" + i;
+      processor.process("a", "project/search", () -> started.add(name));
+    }
+    for (int i = 0; i < 3; i++) {
+      String name = "b" + i;
+      processor.process("b", "project/search", () -> started.add(name));
+    }
+
+    executor.runAll();
+
+    assertEquals(started, asList("a0", "b0", "a1", "b1", "a2", "b2"));
+  }
+
+  @Test
+  public void shouldCountRequestsOfUnknownMethodsTogether() throws Exception {
+    when(requestHandlerManager.isRegistered("project/get")).thenReturn(true);
+
+    processor.process("endpoint", "project/get", () -> {});
+    processor.process("endpoint", "unknown/method1", () -> {});
+    processor.process("endpoint", "unknown/method2", () -> {});
+    executor.runAll();
+
+    assertEquals(processor.getStatistics().size(), 2);
+    assertEquals(processor.getStatistics().get("project/get").getCount(), 1);
+    assertEquals(processor.getStatistics().get("").getCount(), 2);
+  }
+
+  /** Executor which runs tasks one by one in the order of submission when asked to. */
+  private static class ManualExecutor extends AbstractExecutorService {
+    private final Deque<Runnable> tasks = new ArrayDeque<>();
+
+    private void runAll() {
+      Runnable task;
+      while ((task = tasks.poll()) != null) {
+        task.run();
+      }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      tasks.offer(command);
+    }
+
+    @Override
+    public void shutdown() {}
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      return new ArrayList<>(tasks);
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return false;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return false;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+      return true;
+    }
+  }
+}
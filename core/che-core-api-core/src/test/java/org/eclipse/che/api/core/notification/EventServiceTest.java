@@ -11,8 +11,10 @@
 package org.eclipse.che.api.core.notification;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -192,6 +194,54 @@ public class EventServiceTest {
     bus.unsubscribe(sb, CustomEventImpl.class);
   }
 
+  @Test
+  public void shouldDeliverToSubscriberAddedAfterPublication() {
+    final List<String> events = new ArrayList<>();
+    bus.publish(new ExtEvent());
+    bus.subscribe(event -> events.add(event.data), Event.class);
+
+    bus.publish(new ExtEvent());
+
+    Assert.assertEquals(events, Collections.singletonList("ext_event"));
+  }
+
+  @Test
+  public void shouldDeliverEventsThroughSubscriberExecutor() {
+    final List<Runnable> tasks = new ArrayList<>();
+    final List<String> events = new ArrayList<>();
+    bus.subscribe(event -> events.add(event.data), Event.class, tasks::add);
+
+    bus.publish(new Event());
+
+    Assert.assertTrue(events.isEmpty());
+    Assert.assertEquals(tasks.size(), 1);
+    tasks.get(0).run();
+    Assert.assertEquals(events, Collections.singletonList("event"));
+  }
+
+  @Test
+  public void shouldUnsubscribeSubscriberWithExecutor() {
+    final List<Runnable> tasks = new ArrayList<>();
+    final EventSubscriber<Event> subscriber = event -> {};
+    bus.subscribe(subscriber, Event.class, tasks::add);
+    bus.unsubscribe(subscriber, Event.class);
+
+    bus.publish(new Event());
+
+    Assert.assertTrue(tasks.isEmpty());
+  }
+
+  @Test
+  public void shouldCountPublishedEvents() {
+    bus.publish(new Event());
+    bus.publish(new Event());
+    bus.publish("hello");
+
+    Map<Class<?>, EventService.PublishStatistics> statistics = bus.getStatistics();
+    Assert.assertEquals(statistics.get(Event.class).getCount(), 2);
+    Assert.assertEquals(statistics.get(String.class).getCount(), 1);
+  }
+
   static class CustomEventSubscriber<T extends CustomEvent> implements EventSubscriber<T> {
     final List<String> events = new ArrayList<>();
 
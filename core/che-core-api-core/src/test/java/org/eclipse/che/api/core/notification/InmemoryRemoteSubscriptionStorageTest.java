@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.api.core.notification;
+
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonMap;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** Tests for {@link InmemoryRemoteSubscriptionStorage} */
+public class InmemoryRemoteSubscriptionStorageTest {
+
+  private static final String METHOD = "method";
+
+  private InmemoryRemoteSubscriptionStorage storage;
+
+  @BeforeMethod
+  public void setUp() {
+    storage = new InmemoryRemoteSubscriptionStorage();
+  }
+
+  @Test
+  public void shouldGetSubscriptionsByScope() {
+    RemoteSubscriptionContext first = context("endpoint-1", "ws-1");
+    RemoteSubscriptionContext second = context("endpoint-2", "ws-1");
+    RemoteSubscriptionContext third = context("endpoint-3", "ws-2");
+    storage.addSubscription(METHOD, first);
+    storage.addSubscription(METHOD, second);
+    storage.addSubscription(METHOD, third);
+
+    assertEquals(storage.getByScope(METHOD, "workspaceId", "ws-1"), ImmutableSet.of(first, second));
+    assertEquals(storage.getByScope(METHOD, "workspaceId", "ws-2"), singleton(third));
+    assertTrue(storage.getByScope(METHOD, "workspaceId", "ws-3").isEmpty());
+    assertTrue(storage.getByScope("other", "workspaceId", "ws-1").isEmpty());
+  }
+
+  @Test
+  public void shouldRemoveSubscriptionsFromScopeIndex() {
+    RemoteSubscriptionContext first = context("endpoint-1", "ws-1");
+    RemoteSubscriptionContext second = context("endpoint-2", "ws-1");
+    storage.addSubscription(METHOD, first);
+    storage.addSubscription(METHOD, second);
+
+    storage.removeSubscription(METHOD, "endpoint-1");
+
+    assertEquals(storage.getByMethod(METHOD), singleton(second));
+    assertEquals(storage.getByScope(METHOD, "workspaceId", "ws-1"), singleton(second));
+  }
+
+  private static RemoteSubscriptionContext context(String endpointId, String workspaceId) {
+    return new RemoteSubscriptionContext(endpointId, singletonMap("workspaceId", workspaceId));
+  }
+}
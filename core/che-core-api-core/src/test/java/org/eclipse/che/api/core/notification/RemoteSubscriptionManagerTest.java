@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.api.core.notification;
+
+import static java.util.Collections.singletonMap;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.eclipse.che.api.core.jsonrpc.commons.JsonRpcMarshaller;
+import org.eclipse.che.api.core.jsonrpc.commons.JsonRpcRequest;
+import org.eclipse.che.api.core.websocket.commons.WebSocketMessageTransmitter;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+/** Tests for {@link RemoteSubscriptionManager} */
+@Listeners(MockitoTestNGListener.class)
+public class RemoteSubscriptionManagerTest {
+
+  private static final String METHOD = "event/changed";
+  private static final String MESSAGE = "message";
+
+  @Mock private JsonRpcMarshaller marshaller;
+  @Mock private WebSocketMessageTransmitter transmitter;
+
+  private EventService eventService;
+  private InmemoryRemoteSubscriptionStorage storage;
+  private RemoteSubscriptionManager manager;
+
+  @BeforeMethod
+  public void setUp() {
+    eventService = new EventService();
+    storage = new InmemoryRemoteSubscriptionStorage();
+    manager = new RemoteSubscriptionManager(eventService, marshaller, transmitter, storage);
+
+    storage.addSubscription(METHOD, context("endpoint-1", "ws-1"));
+    storage.addSubscription(METHOD, context("endpoint-2", "ws-1"));
+    storage.addSubscription(METHOD, context("endpoint-3", "ws-2"));
+  }
+
+  @Test
+  public void shouldMarshallEventOnceForAllSubscribersOfScope() {
+    when(marshaller.marshall(any(JsonRpcRequest.class))).thenReturn(MESSAGE);
+    manager.register(METHOD, String.class, "workspaceId", event -> event);
+
+    eventService.publish("ws-1");
+
+    verify(marshaller).marshall(any(JsonRpcRequest.class));
+    verify(transmitter).transmit("endpoint-1", MESSAGE);
+    verify(transmitter).transmit("endpoint-2", MESSAGE);
+    verify(transmitter, never()).transmit("endpoint-3", MESSAGE);
+  }
+
+  @Test
+  public void shouldMarshallEventOnceForAllSubscribersMatchingPredicate() {
+    when(marshaller.marshall(any(JsonRpcRequest.class))).thenReturn(MESSAGE);
+    manager.register(
+        METHOD, String.class, (event, scope) -> event.equals(scope.get("workspaceId")));
+
+    eventService.publish("ws-1");
+
+    verify(marshaller).marshall(any(JsonRpcRequest.class));
+    verify(transmitter, times(2)).transmit(anyString(), anyString());
+  }
+
+  @Test
+  public void shouldNotMarshallEventWithoutSubscribers() {
+    manager.register(METHOD, String.class, "workspaceId", event -> event);
+
+    eventService.publish("ws-3");
+
+    verify(marshaller, never()).marshall(any(JsonRpcRequest.class));
+  }
+
+  private static RemoteSubscriptionContext context(String endpointId, String workspaceId) {
+    return new RemoteSubscriptionContext(endpointId, singletonMap("workspaceId", workspaceId));
+  }
+}
@@ -11,14 +11,24 @@
 package org.eclipse.che.api.core.websocket.impl;
 
 import static java.util.Collections.emptySet;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import javax.websocket.CloseReason;
 import javax.websocket.RemoteEndpoint;
 import javax.websocket.Session;
 import org.mockito.InjectMocks;
@@ -37,6 +47,8 @@ import org.testng.annotations.Test;
 public class BasicWebSocketMessageTransmitterTest {
   private static final String MESSAGE = "message";
   private static final String ENDPOINT_ID = "id";
+  private static final String REQUEST = "{\"jsonrpc\":\"2.0\",\"method\":\"m\",\"id\":\"1\"}";
+  private static final String NOTIFICATION = "{\"jsonrpc\":\"2.0\",\"method\":\"m\"}";
 
   @Mock private WebSocketSessionRegistry registry;
   @Mock private MessagesReSender reSender;
@@ -58,8 +70,8 @@ public class BasicWebSocketMessageTransmitterTest {
   public void shouldSendDirectMessageIfSessionIsOpenAndEndpointIsSet() throws IOException {
     transmitter.transmit(ENDPOINT_ID, MESSAGE);
 
-    verify(session).getBasicRemote();
-    verify(remote).sendText(MESSAGE);
+    verify(session, timeout(1000)).getBasicRemote();
+    verify(remote, timeout(1000)).sendText(MESSAGE);
     verify(reSender, never()).add(eq(ENDPOINT_ID), anyString());
   }
 
@@ -73,4 +85,115 @@ public class BasicWebSocketMessageTransmitterTest {
     verify(remote, never()).sendText(MESSAGE);
     verify(reSender).add(ENDPOINT_ID, MESSAGE);
   }
+
+  @Test
+  public void shouldNotWaitForSlowSession() throws Exception {
+    CountDownLatch sending = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(
+            invocation -> {
+              sending.countDown();
+              release.await();
+              return null;
+            })
+        .when(remote)
+        .sendText(anyString());
+
+    transmitter.transmit(ENDPOINT_ID, REQUEST);
+    assertTrue(sending.await(1, SECONDS));
+    transmitter.transmit(ENDPOINT_ID, REQUEST);
+    transmitter.transmit(ENDPOINT_ID, REQUEST);
+
+    assertEquals(transmitter.getQueueDepths().get(ENDPOINT_ID), Integer.valueOf(2));
+
+    release.countDown();
+    verify(remote, timeout(1000)).sendText("[" + REQUEST + "," + REQUEST + "]");
+  }
+
+  @Test
+  public void shouldCloseSessionInsteadOfWaitingWhenQueueIsFull() throws Exception {
+    CountDownLatch sending = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(
+            invocation -> {
+              sending.countDown();
+              release.await();
+              return null;
+            })
+        .when(remote)
+        .sendText(anyString());
+
+    transmitter.transmit(ENDPOINT_ID, REQUEST);
+    assertTrue(sending.await(1, SECONDS));
+    for (int i = 0; i < BasicWebSocketMessageTransmitter.QUEUE_CAPACITY + 1; i++) {
+      transmitter.transmit(ENDPOINT_ID, REQUEST);
+    }
+    release.countDown();
+
+    verify(session).close(any(CloseReason.class));
+    verify(reSender, times(BasicWebSocketMessageTransmitter.QUEUE_CAPACITY + 1))
+        .add(ENDPOINT_ID, REQUEST);
+  }
+
+  @Test
+  public void shouldRequestResyncWhenNotificationIsDropped() throws Exception {
+    CountDownLatch sending = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(
+            invocation -> {
+              sending.countDown();
+              release.await();
+              return null;
+            })
+        .when(remote)
+        .sendText(anyString());
+
+    transmitter.transmit(ENDPOINT_ID, REQUEST);
+    assertTrue(sending.await(1, SECONDS));
+    for (int i = 0; i < BasicWebSocketMessageTransmitter.QUEUE_CAPACITY + 1; i++) {
+      transmitter.transmit(ENDPOINT_ID, NOTIFICATION);
+    }
+
+    verify(reSender).dropped(ENDPOINT_ID);
+    verify(reSender, never()).resend(ENDPOINT_ID);
+
+    release.countDown();
+    verify(reSender, timeout(1000)).resend(ENDPOINT_ID);
+    verify(session, never()).close(any(CloseReason.class));
+  }
+
+  @Test
+  public void shouldNotDropPendingMessages() throws Exception {
+    CountDownLatch sending = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(
+            invocation -> {
+              sending.countDown();
+              release.await();
+              return null;
+            })
+        .when(remote)
+        .sendText(anyString());
+
+    transmitter.transmit(ENDPOINT_ID, REQUEST);
+    assertTrue(sending.await(1, SECONDS));
+    for (int i = 0; i < BasicWebSocketMessageTransmitter.QUEUE_CAPACITY; i++) {
+      transmitter.transmitPending(ENDPOINT_ID, NOTIFICATION);
+    }
+    transmitter.transmit(ENDPOINT_ID, NOTIFICATION);
+
+    assertEquals(
+        transmitter.getQueueDepths().get(ENDPOINT_ID),
+        Integer.valueOf(BasicWebSocketMessageTransmitter.QUEUE_CAPACITY));
+    verify(reSender).dropped(ENDPOINT_ID);
+    release.countDown();
+  }
+
+  @Test
+  public void shouldQualifyNotifications() throws Exception {
+    assertTrue(BasicWebSocketMessageTransmitter.isNotification(NOTIFICATION));
+    assertFalse(BasicWebSocketMessageTransmitter.isNotification(REQUEST));
+    assertFalse(BasicWebSocketMessageTransmitter.isNotification("{\"id\":\"1\",\"result\":1}"));
+    assertFalse(BasicWebSocketMessageTransmitter.isNotification(MESSAGE));
+  }
 }
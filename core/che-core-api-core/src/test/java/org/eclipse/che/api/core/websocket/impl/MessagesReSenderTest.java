@@ -11,15 +11,16 @@
 package org.eclipse.che.api.core.websocket.impl;
 
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.google.common.base.Strings;
 import java.util.Optional;
-import javax.websocket.RemoteEndpoint;
 import javax.websocket.Session;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.testng.MockitoTestNGListener;
 import org.testng.annotations.BeforeMethod;
@@ -37,21 +38,20 @@ public class MessagesReSenderTest {
   private static final String ENDPOINT_ID = "id";
 
   @Mock private WebSocketSessionRegistry sessionRegistry;
-  @InjectMocks private MessagesReSender reSender;
+  @Mock private BasicWebSocketMessageTransmitter transmitter;
+  private MessagesReSender reSender;
 
   @Mock private Session session;
-  @Mock private RemoteEndpoint.Async endpoint;
 
   @BeforeMethod
   public void beforeMethod() {
     when(sessionRegistry.get(anyString())).thenReturn(Optional.of(session));
-    when(session.getAsyncRemote()).thenReturn(endpoint);
     when(session.isOpen()).thenReturn(true);
   }
 
   @BeforeMethod
   public void before() {
-    reSender = new MessagesReSender(sessionRegistry);
+    reSender = new MessagesReSender(sessionRegistry, () -> transmitter);
   }
 
   @Test
@@ -63,8 +63,7 @@ public class MessagesReSenderTest {
     reSender.resend(ENDPOINT_ID);
 
     verify(sessionRegistry).get(ENDPOINT_ID);
-    verify(session, never()).getAsyncRemote();
-    verify(endpoint, never()).sendText(MESSAGE);
+    verify(transmitter, never()).transmitPending(anyString(), anyString());
   }
 
   @Test
@@ -74,14 +73,12 @@ public class MessagesReSenderTest {
     when(session.isOpen()).thenReturn(false);
     reSender.resend(ENDPOINT_ID);
 
-    verify(session, never()).getAsyncRemote();
-    verify(endpoint, never()).sendText(MESSAGE);
+    verify(transmitter, never()).transmitPending(ENDPOINT_ID, MESSAGE);
 
     when(session.isOpen()).thenReturn(true);
     reSender.resend(ENDPOINT_ID);
 
-    verify(session).getAsyncRemote();
-    verify(endpoint).sendText(MESSAGE);
+    verify(transmitter).transmitPending(ENDPOINT_ID, MESSAGE);
   }
 
   @Test
@@ -91,8 +88,7 @@ public class MessagesReSenderTest {
     reSender.resend(ENDPOINT_ID);
 
     verify(sessionRegistry).get(ENDPOINT_ID);
-    verify(session).getAsyncRemote();
-    verify(endpoint).sendText(MESSAGE);
+    verify(transmitter).transmitPending(ENDPOINT_ID, MESSAGE);
   }
 
   @Test
@@ -105,8 +101,8 @@ public class MessagesReSenderTest {
 
     verify(sessionRegistry).get(ENDPOINT_ID);
     verify(sessionRegistry).get("1");
-    verify(session, times(2)).getAsyncRemote();
-    verify(endpoint, times(2)).sendText(MESSAGE);
+    verify(transmitter).transmitPending(ENDPOINT_ID, MESSAGE);
+    verify(transmitter).transmitPending("1", MESSAGE);
   }
 
   @Test
@@ -115,13 +111,11 @@ public class MessagesReSenderTest {
 
     reSender.resend(ENDPOINT_ID);
     verify(sessionRegistry).get(ENDPOINT_ID);
-    verify(session).getAsyncRemote();
-    verify(endpoint).sendText(MESSAGE);
+    verify(transmitter).transmitPending(ENDPOINT_ID, MESSAGE);
 
     reSender.resend(ENDPOINT_ID);
     verify(sessionRegistry).get(ENDPOINT_ID);
-    verify(session).getAsyncRemote();
-    verify(endpoint).sendText(MESSAGE);
+    verify(transmitter).transmitPending(ENDPOINT_ID, MESSAGE);
   }
 
   @Test
@@ -134,15 +128,64 @@ public class MessagesReSenderTest {
 
     verify(sessionRegistry).get(ENDPOINT_ID);
     verify(sessionRegistry).get("1");
-    verify(session, times(2)).getAsyncRemote();
-    verify(endpoint, times(2)).sendText(MESSAGE);
+    verify(transmitter, times(2)).transmitPending(anyString(), anyString());
 
     reSender.resend(ENDPOINT_ID);
     reSender.resend("1");
 
     verify(sessionRegistry).get(ENDPOINT_ID);
     verify(sessionRegistry).get("1");
-    verify(session, times(2)).getAsyncRemote();
-    verify(endpoint, times(2)).sendText(MESSAGE);
+    verify(transmitter, times(2)).transmitPending(anyString(), anyString());
+  }
+
+  @Test
+  public void shouldRequestResyncBeforeResendingWhenMessagesAreLost() {
+    String large = Strings.repeat("x", 300 * 1024);
+    for (int i = 0; i < 3; i++) {
+      reSender.add(ENDPOINT_ID, large + i);
+    }
+
+    reSender.resend(ENDPOINT_ID);
+
+    InOrder inOrder = inOrder(transmitter);
+    inOrder
+        .verify(transmitter)
+        .transmitPending(
+            ENDPOINT_ID,
+            "{\"jsonrpc\":\"2.0\",\"method\":\""
+                + MessagesReSender.RESYNC_REQUIRED_METHOD
+                + "\",\"params\":{\"lost\":2,\"firstLostSequence\":0,\"lastLostSequence\":1}}");
+    inOrder.verify(transmitter).transmitPending(ENDPOINT_ID, large + 2);
+    verify(transmitter, times(2)).transmitPending(anyString(), anyString());
+  }
+
+  @Test
+  public void shouldRequestResyncWhenMessageIsDropped() {
+    reSender.dropped(ENDPOINT_ID);
+    reSender.add(ENDPOINT_ID, MESSAGE);
+
+    reSender.resend(ENDPOINT_ID);
+
+    InOrder inOrder = inOrder(transmitter);
+    inOrder
+        .verify(transmitter)
+        .transmitPending(
+            ENDPOINT_ID,
+            "{\"jsonrpc\":\"2.0\",\"method\":\""
+                + MessagesReSender.RESYNC_REQUIRED_METHOD
+                + "\",\"params\":{\"lost\":1,\"firstLostSequence\":0,\"lastLostSequence\":0}}");
+    inOrder.verify(transmitter).transmitPending(ENDPOINT_ID, MESSAGE);
+  }
+
+  @Test
+  public void shouldResendMessagesInOrder() {
+    reSender.add(ENDPOINT_ID, "0");
+    reSender.add(ENDPOINT_ID, "1");
+
+    reSender.resend(ENDPOINT_ID);
+
+    InOrder inOrder = inOrder(transmitter);
+    inOrder.verify(transmitter).transmitPending(ENDPOINT_ID, "0");
+    inOrder.verify(transmitter).transmitPending(ENDPOINT_ID, "1");
   }
 }
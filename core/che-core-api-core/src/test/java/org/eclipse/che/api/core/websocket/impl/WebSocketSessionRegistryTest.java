@@ -10,9 +10,11 @@
  */
 package org.eclipse.che.api.core.websocket.impl;
 
+import static java.util.Collections.singleton;
 import static org.mockito.Mockito.mock;
 import static org.testng.Assert.*;
 
+import com.google.common.collect.ImmutableSet;
 import java.util.Optional;
 import javax.websocket.Session;
 import org.mockito.Mock;
@@ -82,4 +84,69 @@ public class WebSocketSessionRegistryTest {
     assertFalse(registry.getSessions().isEmpty());
     assertEquals(2, registry.getSessions().size());
   }
+
+  @Test
+  public void shouldGetEndpointIdBySession() {
+    registry.add("0", session);
+
+    assertEquals(registry.get(session), Optional.of("0"));
+
+    registry.remove("0");
+
+    assertFalse(registry.get(session).isPresent());
+  }
+
+  @Test
+  public void shouldRemoveBySession() {
+    registry.add("0", session);
+
+    assertEquals(registry.remove(session), Optional.of(session));
+    assertTrue(registry.getSessions().isEmpty());
+  }
+
+  @Test
+  public void shouldReplaceSessionRegisteredWithSameEndpoint() {
+    Session other = mock(Session.class);
+    registry.add("0", session);
+    registry.add("0", other);
+
+    assertEquals(registry.get("0"), Optional.of(other));
+    assertFalse(registry.get(session).isPresent());
+  }
+
+  @Test
+  public void shouldGetByClientAndEndpointComponentsOfCombinedId() {
+    Session other = mock(Session.class);
+    registry.add(combinedId("client-1", "endpoint"), session);
+    registry.add(combinedId("client-2", "endpoint"), other);
+
+    assertEquals(registry.getByPartialMatch("client-1"), singleton(session));
+    assertEquals(registry.getByPartialMatch("endpoint"), ImmutableSet.of(session, other));
+    assertEquals(registry.getByPartialMatch("ent-2"), singleton(other));
+
+    registry.remove(combinedId("client-1", "endpoint"));
+
+    assertTrue(registry.getByPartialMatch("client-1").isEmpty());
+    assertEquals(registry.getByPartialMatch("endpoint"), singleton(other));
+  }
+
+  @Test
+  public void shouldLookUpAmongManySessions() {
+    Session[] sessions = new Session[10_000];
+    for (int i = 0; i < sessions.length; i++) {
+      sessions[i] = mock(Session.class);
+      registry.add(combinedId(String.valueOf(i), "endpoint"), sessions[i]);
+    }
+
+    for (int i = 0; i < sessions.length; i += 1_000) {
+      String clientId = String.valueOf(i);
+      assertEquals(registry.get(sessions[i]), Optional.of(combinedId(clientId, "endpoint")));
+      assertEquals(registry.getByPartialMatch(clientId), singleton(sessions[i]));
+    }
+    assertEquals(registry.getByPartialMatch("endpoint").size(), sessions.length);
+  }
+
+  private static String combinedId(String clientId, String endpointId) {
+    return new WebsocketIdService().getCombinedId(endpointId, clientId);
+  }
 }
@@ -275,6 +275,20 @@ public final class DtoFactory {
     return new JsonArrayImpl<>(list);
   }
 
+  /**
+   * Reads the list of objects of the specified type from the specified JSON tree.
+   *
+   * @param json JSON data
+   * @param dtoInterface DTO interface
+   * @return list of DTO
+   * @throws IllegalArgumentException if can't provide any implementation for specified interface
+   */
+  public <T> JsonArray<T> createListDtoFromJson(JsonElement json, Class<T> dtoInterface) {
+    getDtoProvider(dtoInterface);
+    final List<T> list = dtoGson.fromJson(json, listTypeCache.getUnchecked(dtoInterface));
+    return new JsonArrayImpl<>(list);
+  }
+
   /**
    * Parses the JSON data from the specified stream into list of objects of the specified type.
    *
@@ -66,7 +66,11 @@ export class WebsocketClient implements ICommunicationClient {
         return;
       }
 
-      this.handlers[event].forEach((handler: Function) => handler(data) );
+      // several messages may be sent in one frame as a JSON-RPC batch
+      const messages = Array.isArray(data) ? data : [data];
+      messages.forEach((item: any) => {
+        this.handlers[event].forEach((handler: Function) => handler(item) );
+      });
     });
     this.websocketStream.onClose(() => {
       const event: communicationClientEvent = 'close';
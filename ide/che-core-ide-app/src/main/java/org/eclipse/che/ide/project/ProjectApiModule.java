@@ -75,5 +75,6 @@ public class ProjectApiModule extends AbstractGinModule {
             .build(ImportProjectNotificationSubscriberFactory.class));
 
     bind(WorkspaceProjectsSyncer.class).asEagerSingleton();
+    bind(ResyncRequiredHandler.class).asEagerSingleton();
   }
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.ide.project;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import org.eclipse.che.api.core.jsonrpc.commons.RequestHandlerConfigurator;
+import org.eclipse.che.ide.api.app.AppContext;
+import org.eclipse.che.ide.api.resources.Container;
+import org.eclipse.che.ide.util.loging.Log;
+
+/**
+ * Synchronizes workspace resources when the server reports that some of the messages it had to
+ * re-send after reconnection were lost, so changes announced by the lost messages are not missed.
+ */
+@Singleton
+public class ResyncRequiredHandler {
+  private static final String RESYNC_REQUIRED_METHOD_NAME = "websocketMessages/resyncRequired";
+
+  private final AppContext appContext;
+
+  @Inject
+  public ResyncRequiredHandler(AppContext appContext) {
+    this.appContext = appContext;
+  }
+
+  @Inject
+  private void configureHandlers(RequestHandlerConfigurator configurator) {
+    configurator
+        .newConfiguration()
+        .methodName(RESYNC_REQUIRED_METHOD_NAME)
+        .noParams()
+        .noResult()
+        .withConsumer(this::resync);
+  }
+
+  private void resync(String endpointId) {
+    Log.info(getClass(), "Messages from " + endpointId + " were lost, synchronizing workspace");
+
+    Container workspaceRoot = appContext.getWorkspaceRoot();
+    if (workspaceRoot != null) {
+      workspaceRoot.synchronize();
+    }
+  }
+}
@@ -15,6 +15,7 @@ import org.eclipse.che.api.workspace.activity.JpaWorkspaceActivityDao;
 import org.eclipse.che.api.workspace.activity.WorkspaceActivityDao;
 import org.eclipse.che.api.workspace.activity.WorkspaceActivityManager;
 import org.eclipse.che.api.workspace.activity.WorkspaceActivityService;
+import org.eclipse.che.api.workspace.activity.WriteBehindWorkspaceActivityDao;
 
 /**
  * Implementation of
@@ -23,10 +24,29 @@ import org.eclipse.che.api.workspace.activity.WorkspaceActivityService;
  */
 public class MultiUserWorkspaceActivityModule extends AbstractModule {
 
+  private final boolean replicated;
+
+  public MultiUserWorkspaceActivityModule() {
+    this(false);
+  }
+
+  /**
+   * @param replicated whether several instances of the server share the database, in which case
+   *     expiration times are not kept in memory, as each instance sees only the activity of the
+   *     workspaces it serves
+   */
+  public MultiUserWorkspaceActivityModule(boolean replicated) {
+    this.replicated = replicated;
+  }
+
   @Override
   protected void configure() {
     bind(WorkspaceActivityService.class);
-    bind(WorkspaceActivityDao.class).to(JpaWorkspaceActivityDao.class);
+    if (replicated) {
+      bind(WorkspaceActivityDao.class).to(JpaWorkspaceActivityDao.class);
+    } else {
+      bind(WorkspaceActivityDao.class).to(WriteBehindWorkspaceActivityDao.class);
+    }
     bind(WorkspaceActivityManager.class).to(MultiUserWorkspaceActivityManager.class);
   }
 }
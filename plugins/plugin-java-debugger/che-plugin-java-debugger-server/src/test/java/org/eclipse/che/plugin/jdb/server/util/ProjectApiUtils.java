@@ -83,7 +83,22 @@ public class ProjectApiUtils {
                 bind(File.class)
                     .annotatedWith(Names.named("vfs.local.fs_index_root_dir"))
                     .toInstance(indexDir);
+                bind(Long.class)
+                    .annotatedWith(Names.named("vfs.local.fs_index_max_file_size_bytes"))
+                    .toInstance(1024L * 1024L);
                 bind(String.class).annotatedWith(Names.named("che.api")).toInstance("api-endpoint");
+                bind(Integer.class)
+                    .annotatedWith(Names.named("che.core.jsonrpc.high_priority_concurrency"))
+                    .toInstance(16);
+                bind(Integer.class)
+                    .annotatedWith(Names.named("che.core.jsonrpc.normal_priority_concurrency"))
+                    .toInstance(32);
+                bind(Integer.class)
+                    .annotatedWith(Names.named("che.core.jsonrpc.low_priority_concurrency"))
+                    .toInstance(4);
+                bind(Integer.class)
+                    .annotatedWith(Names.named("che.core.jsonrpc.bulk_priority_concurrency"))
+                    .toInstance(2);
                 bind(String.class)
                     .annotatedWith(Names.named("project.importer.default_importer_id"))
                     .toInstance("git");
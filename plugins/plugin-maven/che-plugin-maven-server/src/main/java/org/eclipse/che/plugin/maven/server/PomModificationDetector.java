@@ -11,6 +11,7 @@
 package org.eclipse.che.plugin.maven.server;
 
 import static java.nio.file.Files.isDirectory;
+import static org.eclipse.che.api.watcher.server.FileNamePathMatcher.fileName;
 import static org.eclipse.che.dto.server.DtoFactory.newDto;
 
 import com.google.inject.Inject;
@@ -39,7 +40,7 @@ public class PomModificationDetector {
   public void startWatcher() {
     id =
         manager.registerByMatcher(
-            it -> !isDirectory(it) && POM_XML.equals(it.getFileName().toString()),
+            fileName(POM_XML, it -> !isDirectory(it)),
             it -> {},
             it -> eventService.publish(newDto(PomModifiedEventDto.class).withPath(it)),
             it -> {});
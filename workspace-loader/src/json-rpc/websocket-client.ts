@@ -41,7 +41,12 @@ export class WebsocketClient implements ICommunicationClient {
             });
             this.websocketStream.addEventListener("message", (message) => {
                 let data = JSON.parse(message.data);
-                this.onResponse(data);
+                // several messages may be sent in one frame as a JSON-RPC batch
+                if (Array.isArray(data)) {
+                    data.forEach((item: any) => this.onResponse(item));
+                } else {
+                    this.onResponse(data);
+                }
             });
         });
 
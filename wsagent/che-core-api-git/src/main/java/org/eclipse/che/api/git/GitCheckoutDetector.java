@@ -18,6 +18,7 @@ import static org.eclipse.che.api.fs.server.WsPathUtils.SEPARATOR;
 import static org.eclipse.che.api.fs.server.WsPathUtils.absolutize;
 import static org.eclipse.che.api.project.shared.dto.event.GitCheckoutEventDto.Type.BRANCH;
 import static org.eclipse.che.api.project.shared.dto.event.GitCheckoutEventDto.Type.REVISION;
+import static org.eclipse.che.api.watcher.server.FileNamePathMatcher.fileName;
 import static org.eclipse.che.dto.server.DtoFactory.newDto;
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -102,17 +103,17 @@ public class GitCheckoutDetector {
   }
 
   private PathMatcher matcher() {
-    return path -> {
-      if (isDirectory(path)
-          || !HEAD_FILE.equals(path.getFileName().toString())
-          || !GIT_DIR.equals(path.getParent().getFileName().toString())) {
-        return false;
-      }
-
-      String wsPath = pathTransformer.transform(path);
-      String projectPath = wsPath.split(SEPARATOR)[1];
-      return !hiddenItemPathMatcher.matches(get(projectPath));
-    };
+    return fileName(
+        HEAD_FILE,
+        path -> {
+          if (isDirectory(path) || !GIT_DIR.equals(path.getParent().getFileName().toString())) {
+            return false;
+          }
+
+          String wsPath = pathTransformer.transform(path);
+          String projectPath = wsPath.split(SEPARATOR)[1];
+          return !hiddenItemPathMatcher.matches(get(projectPath));
+        });
   }
 
   private Consumer<String> createConsumer() {
@@ -13,6 +13,7 @@ package org.eclipse.che.api.git;
 import static com.google.common.collect.Sets.newConcurrentHashSet;
 import static java.nio.file.Files.isDirectory;
 import static java.util.Collections.emptyList;
+import static org.eclipse.che.api.watcher.server.FileNamePathMatcher.fileName;
 import static org.eclipse.che.dto.server.DtoFactory.newDto;
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -117,17 +118,15 @@ public class GitStatusChangedDetector implements EventSubscriber<StatusChangedEv
   }
 
   private PathMatcher origHeadMatcher() {
-    return it ->
-        !isDirectory(it)
-            && ORIG_HEAD_FILE.equals(it.getFileName().toString())
-            && GIT_DIR.equals(it.getParent().getFileName().toString());
+    return fileName(
+        ORIG_HEAD_FILE,
+        it -> !isDirectory(it) && GIT_DIR.equals(it.getParent().getFileName().toString()));
   }
 
   private PathMatcher indexMatcher() {
-    return it ->
-        !isDirectory(it)
-            && INDEX_FILE.equals(it.getFileName().toString())
-            && GIT_DIR.equals(it.getParent().getFileName().toString());
+    return fileName(
+        INDEX_FILE,
+        it -> !isDirectory(it) && GIT_DIR.equals(it.getParent().getFileName().toString()));
   }
 
   private Consumer<String> createConsumer() {
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.api.languageserver;
+
+import static java.util.Comparator.comparingInt;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.inject.Singleton;
+import org.eclipse.che.api.languageserver.server.dto.DtoServerImpls.ExtendedCompletionItemDto;
+import org.eclipse.che.api.languageserver.shared.model.ExtendedCompletionItem;
+import org.eclipse.lsp4j.CompletionItem;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import org.eclipse.lsp4j.TextEdit;
+
+/**
+ * Keeps the last complete completion result of each document, so that completion requested again
+ * while the user keeps typing the same identifier is answered without asking language servers.
+ *
+ * <p>A cached result stays valid while the only changes of the document are identifier characters
+ * typed at the position of completion, or removed by backspace. Any other change drops it. A
+ * result is reused when completion is requested right after the typed characters; its items are
+ * then filtered by the typed characters and ranked the way a client would do it: items which
+ * continue with the typed characters first, then items which contain them, then items which
+ * contain them as a subsequence. Edits of the returned items are moved to cover the typed
+ * characters, as the client adjusts them only by the characters typed since the last request.
+ */
+@Singleton
+class CompletionCache {
+  private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Stores a complete completion result.
+   *
+   * @param wsPath workspace path of the document
+   * @param position position completion was requested at
+   * @param items completion items
+   */
+  void put(String wsPath, Position position, List<ExtendedCompletionItem> items) {
+    sessions.put(wsPath, new Session(position.getLine(), position.getCharacter(), items));
+  }
+
+  /**
+   * Returns cached completion items refiltered for the given position, or {@code null} if there is
+   * no cached result valid for it.
+   */
+  List<ExtendedCompletionItem> get(String wsPath, Position position) {
+    Session session = sessions.get(wsPath);
+    List<ExtendedCompletionItem> items = session == null ? null : session.filter(position);
+    if (items == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return items;
+  }
+
+  /** Updates or drops the cached result of a document according to its changes. */
+  void onChange(String wsPath, List<TextDocumentContentChangeEvent> changes) {
+    Session session = sessions.get(wsPath);
+    if (session != null && !session.apply(changes)) {
+      sessions.remove(wsPath, session);
+    }
+  }
+
+  /** Drops the cached result of a document. */
+  void invalidate(String wsPath) {
+    sessions.remove(wsPath);
+  }
+
+  long getHitCount() {
+    return hits.sum();
+  }
+
+  long getMissCount() {
+    return misses.sum();
+  }
+
+  private static class Session {
+    private final int line;
+    private final int character;
+    private final List<ExtendedCompletionItem> items;
+    private final StringBuilder typed = new StringBuilder();
+    private boolean valid = true;
+
+    private Session(int line, int character, List<ExtendedCompletionItem> items) {
+      this.line = line;
+      this.character = character;
+      this.items = items;
+    }
+
+    private synchronized boolean apply(List<TextDocumentContentChangeEvent> changes) {
+      for (TextDocumentContentChangeEvent change : changes) {
+        valid = valid && applyChange(change);
+      }
+      return valid;
+    }
+
+    private boolean applyChange(TextDocumentContentChangeEvent change) {
+      Range range = change.getRange();
+      if (range == null
+          || range.getStart().getLine() != line
+          || range.getEnd().getLine() != line
+          || range.getEnd().getCharacter() != character + typed.length()) {
+        return false;
+      }
+      String text = change.getText();
+      int start = range.getStart().getCharacter();
+      if (start == range.getEnd().getCharacter() && !text.isEmpty() && isIdentifier(text)) {
+        typed.append(text);
+        return true;
+      }
+      if (start == range.getEnd().getCharacter() - 1 && text.isEmpty() && typed.length() > 0) {
+        typed.setLength(typed.length() - 1);
+        return true;
+      }
+      return false;
+    }
+
+    private synchronized List<ExtendedCompletionItem> filter(Position position) {
+      if (!valid
+          || position.getLine() != line
+          || position.getCharacter() != character + typed.length()) {
+        return null;
+      }
+      if (typed.length() == 0) {
+        return new ArrayList<>(items);
+      }
+
+      String query = typed.toString().toLowerCase();
+      List<ExtendedCompletionItem> filtered = new ArrayList<>();
+      List<Integer> ranks = new ArrayList<>();
+      for (ExtendedCompletionItem item : items) {
+        int rank = rank(remainder(item.getItem()).toLowerCase(), query);
+        if (rank >= 0) {
+          filtered.add(item);
+          ranks.add(rank);
+        }
+      }
+
+      List<Integer> order = new ArrayList<>();
+      for (int i = 0; i < filtered.size(); i++) {
+        order.add(i);
+      }
+      order.sort(comparingInt(ranks::get));
+      List<ExtendedCompletionItem> result = new ArrayList<>(filtered.size());
+      order.forEach(i -> result.add(adjust(filtered.get(i))));
+      return result;
+    }
+
+    /**
+     * Returns a copy of the item which edits are moved over the characters typed after completion
+     * was requested, so that they replace the typed characters as well.
+     */
+    private ExtendedCompletionItem adjust(ExtendedCompletionItem item) {
+      ExtendedCompletionItem copy = new ExtendedCompletionItemDto(item);
+      CompletionItem completionItem = copy.getItem();
+      if (completionItem.getTextEdit() != null) {
+        adjust(completionItem.getTextEdit().getRange());
+      }
+      if (completionItem.getAdditionalTextEdits() != null) {
+        for (TextEdit edit : completionItem.getAdditionalTextEdits()) {
+          adjust(edit.getRange());
+        }
+      }
+      return copy;
+    }
+
+    private void adjust(Range range) {
+      if (range == null) {
+        return;
+      }
+      Position start = range.getStart();
+      if (start.getLine() == line && start.getCharacter() > character) {
+        start.setCharacter(start.getCharacter() + typed.length());
+      }
+      Position end = range.getEnd();
+      if (end.getLine() == line && end.getCharacter() >= character) {
+        end.setCharacter(end.getCharacter() + typed.length());
+      }
+    }
+
+    /**
+     * Returns the part of the item's filter text which is matched against the typed characters.
+     * When the item replaces a range of the line, the characters of the range that had been typed
+     * before completion was requested are skipped.
+     */
+    private String remainder(CompletionItem item) {
+      String filterText = item.getFilterText() != null ? item.getFilterText() : item.getLabel();
+      if (filterText == null) {
+        return "";
+      }
+      if (item.getTextEdit() != null && item.getTextEdit().getRange() != null) {
+        Position start = item.getTextEdit().getRange().getStart();
+        if (start.getLine() == line && start.getCharacter() <= character) {
+          int typedBefore = character - start.getCharacter();
+          return filterText.substring(Math.min(filterText.length(), typedBefore));
+        }
+      }
+      return filterText;
+    }
+
+    /** Returns the rank of a match, lower is better, or -1 if the text does not match. */
+    private static int rank(String text, String query) {
+      if (text.startsWith(query)) {
+        return 0;
+      }
+      if (text.contains(query)) {
+        return 1;
+      }
+      int found = 0;
+      for (int i = 0; i < text.length() && found < query.length(); i++) {
+        if (text.charAt(i) == query.charAt(found)) {
+          found++;
+        }
+      }
+      return found == query.length() ? 2 : -1;
+    }
+
+    private static boolean isIdentifier(String text) {
+      for (int i = 0; i < text.length(); i++) {
+        if (!Character.isJavaIdentifierPart(text.charAt(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
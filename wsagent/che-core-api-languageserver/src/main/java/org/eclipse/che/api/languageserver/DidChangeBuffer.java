@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.api.languageserver;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.eclipse.che.commons.lang.concurrent.LoggingUncaughtExceptionHandler;
+import org.eclipse.lsp4j.DidChangeTextDocumentParams;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Buffers document changes before they are forwarded to language servers. Changes of a document
+ * that arrive within {@link #WINDOW_MILLIS} from the first buffered one are sent to language
+ * servers as a single notification which contains all of the content changes in order, so a
+ * language server analyses the document once per window rather than once per keystroke.
+ *
+ * <p>Requests which depend on the content of a document must call {@link #flush(String)} before
+ * they are sent, so that language servers see the latest content.
+ */
+@Singleton
+class DidChangeBuffer {
+  private static final Logger LOG = LoggerFactory.getLogger(DidChangeBuffer.class);
+
+  static final long WINDOW_MILLIS = 100;
+
+  private final FindServer findServer;
+  private final Map<String, PendingChanges> pending = new ConcurrentHashMap<>();
+  private final LongAdder received = new LongAdder();
+  private final LongAdder forwarded = new LongAdder();
+  private final ScheduledExecutorService scheduler;
+
+  @Inject
+  DidChangeBuffer(FindServer findServer) {
+    this.findServer = findServer;
+    this.scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                .setUncaughtExceptionHandler(LoggingUncaughtExceptionHandler.getInstance())
+                .setNameFormat("DidChangeBuffer-%d")
+                .setDaemon(true)
+                .build());
+  }
+
+  /**
+   * Adds changes of a document to the buffer.
+   *
+   * @param wsPath workspace path of the document
+   * @param params changes with the URI of the document already prefixed
+   */
+  void add(String wsPath, DidChangeTextDocumentParams params) {
+    received.increment();
+    while (true) {
+      PendingChanges changes = pending.computeIfAbsent(wsPath, PendingChanges::new);
+      if (changes.add(params)) {
+        return;
+      }
+      // flushed by another thread right before the changes were added
+      pending.remove(wsPath, changes);
+    }
+  }
+
+  /** Sends buffered changes of a document to language servers, if there are any. */
+  void flush(String wsPath) {
+    PendingChanges changes = pending.get(wsPath);
+    if (changes != null) {
+      changes.flush();
+    }
+  }
+
+  /** Returns the number of received change notifications. */
+  long getReceivedCount() {
+    return received.sum();
+  }
+
+  /** Returns the number of change notifications sent to language servers after merging. */
+  long getForwardedCount() {
+    return forwarded.sum();
+  }
+
+  @PreDestroy
+  void stop() {
+    scheduler.shutdownNow();
+    pending.values().forEach(PendingChanges::flush);
+  }
+
+  private class PendingChanges {
+    private final String wsPath;
+    private final List<TextDocumentContentChangeEvent> contentChanges = new ArrayList<>();
+    private DidChangeTextDocumentParams last;
+    private int merged;
+    private boolean flushed;
+
+    private PendingChanges(String wsPath) {
+      this.wsPath = wsPath;
+    }
+
+    private synchronized boolean add(DidChangeTextDocumentParams params) {
+      if (flushed) {
+        return false;
+      }
+      for (TextDocumentContentChangeEvent change : params.getContentChanges()) {
+        if (change.getRange() == null) {
+          // the whole content is replaced, earlier changes do not matter
+          contentChanges.clear();
+        }
+        contentChanges.add(change);
+      }
+      last = params;
+      if (merged++ == 0) {
+        try {
+          scheduler.schedule(this::flush, WINDOW_MILLIS, MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+          flush();
+        }
+      }
+      return true;
+    }
+
+    private synchronized void flush() {
+      if (flushed) {
+        return;
+      }
+      flushed = true;
+
+      last.setContentChanges(new ArrayList<>(contentChanges));
+      forwarded.increment();
+      LOG.debug("Forwarding {} merged changes of {}", merged, wsPath);
+      findServer.byPath(wsPath).forEach(server -> server.getTextDocumentService().didChange(last));
+
+      // removed only after the changes are sent, so that the changes which come later and are
+      // buffered anew can not be sent before these ones
+      pending.remove(wsPath, this);
+    }
+  }
+}
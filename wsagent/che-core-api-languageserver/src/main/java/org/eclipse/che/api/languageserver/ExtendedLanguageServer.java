@@ -50,4 +50,14 @@ class ExtendedLanguageServer {
   WorkspaceService getWorkspaceService() {
     return languageServer.getWorkspaceService();
   }
+
+  /** Checks whether this instance wraps the given language server and capabilities. */
+  boolean wraps(ServerCapabilities serverCapabilities, LanguageServer languageServer) {
+    return this.serverCapabilities == serverCapabilities && this.languageServer == languageServer;
+  }
+
+  @Override
+  public String toString() {
+    return id;
+  }
 }
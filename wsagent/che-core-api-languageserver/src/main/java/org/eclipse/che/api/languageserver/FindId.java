@@ -10,10 +10,16 @@
  */
 package org.eclipse.che.api.languageserver;
 
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableSet;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -22,11 +28,20 @@ import org.eclipse.che.api.languageserver.RegistryContainer.Registry;
 /**
  * Utility class that simplifies finding language server id.
  *
+ * <p>Patterns of the form {@code .*\.ext} or {@code .*\.(ext1|ext2)}, which is what most language
+ * servers register, are turned into a table of file extensions, so a path that is matched by such
+ * patterns only is resolved by a single lookup of its extension. Other patterns are matched as
+ * regular expressions. The table is rebuilt when the pattern registry changes.
+ *
  * @author Dmytro Kulieshov
  */
 @Singleton
 class FindId {
+  private static final Pattern EXTENSION_PATTERN =
+      Pattern.compile("\\.\\*\\\\\\.(?:\\(([\\w-]+(?:\\|[\\w-]+)*)\\)|([\\w-]+))");
+
   private final Registry<Set<Pattern>> patterns;
+  private volatile RoutingTable routingTable;
 
   @Inject
   FindId(RegistryContainer registryContainer) {
@@ -40,19 +55,77 @@ class FindId {
    * @return set of language server ids
    */
   Set<String> byPath(String wsPath) {
-    Set<String> ids = new HashSet<>();
+    RoutingTable table = routingTable;
+    long version = patterns.getVersion();
+    if (table == null || table.version != version) {
+      table = new RoutingTable(version, patterns.getAll());
+      routingTable = table;
+    }
+    return table.byPath(wsPath);
+  }
 
-    for (Entry<String, Set<Pattern>> entry : patterns.getAll().entrySet()) {
-      String id = entry.getKey();
-      Set<Pattern> patterns = entry.getValue();
+  /**
+   * Returns the file extensions matched by the given pattern or {@code null} if the pattern is not
+   * a plain file extension pattern.
+   */
+  static List<String> toExtensions(Pattern pattern) {
+    if (pattern.flags() != 0) {
+      return null;
+    }
+    Matcher matcher = EXTENSION_PATTERN.matcher(pattern.pattern());
+    if (!matcher.matches()) {
+      return null;
+    }
+    String group = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+    return Splitter.on('|').splitToList(group);
+  }
 
-      for (Pattern pattern : patterns) {
-        if (pattern.matcher(wsPath).matches()) {
-          ids.add(id);
+  private static class RoutingTable {
+    private final long version;
+    private final Map<String, Set<String>> idsByExtension;
+    private final Map<Pattern, String> otherPatterns;
+
+    private RoutingTable(long version, Map<String, Set<Pattern>> patternsById) {
+      Map<String, ImmutableSet.Builder<String>> builders = new HashMap<>();
+      Map<Pattern, String> others = new LinkedHashMap<>();
+      for (Entry<String, Set<Pattern>> entry : patternsById.entrySet()) {
+        String id = entry.getKey();
+        for (Pattern pattern : entry.getValue()) {
+          List<String> extensions = toExtensions(pattern);
+          if (extensions == null) {
+            others.put(pattern, id);
+          } else {
+            for (String extension : extensions) {
+              builders.computeIfAbsent(extension, k -> ImmutableSet.<String>builder()).add(id);
+            }
+          }
         }
       }
+
+      Map<String, Set<String>> ids = new HashMap<>();
+      builders.forEach((extension, builder) -> ids.put(extension, builder.build()));
+      this.version = version;
+      this.idsByExtension = ids;
+      this.otherPatterns = others;
     }
 
-    return ImmutableSet.copyOf(ids);
+    private Set<String> byPath(String wsPath) {
+      int dot = wsPath.lastIndexOf('.');
+      Set<String> byExtension = dot < 0 ? null : idsByExtension.get(wsPath.substring(dot + 1));
+      if (otherPatterns.isEmpty()) {
+        return byExtension == null ? ImmutableSet.of() : byExtension;
+      }
+
+      Set<String> ids = new HashSet<>();
+      if (byExtension != null) {
+        ids.addAll(byExtension);
+      }
+      for (Entry<Pattern, String> entry : otherPatterns.entrySet()) {
+        if (!ids.contains(entry.getValue()) && entry.getKey().matcher(wsPath).matches()) {
+          ids.add(entry.getValue());
+        }
+      }
+      return ImmutableSet.copyOf(ids);
+    }
   }
 }
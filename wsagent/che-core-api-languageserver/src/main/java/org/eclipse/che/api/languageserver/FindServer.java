@@ -12,8 +12,10 @@ package org.eclipse.che.api.languageserver;
 
 import static java.util.stream.Collectors.toSet;
 
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import org.eclipse.che.api.languageserver.RegistryContainer.Registry;
@@ -21,7 +23,9 @@ import org.eclipse.lsp4j.ServerCapabilities;
 import org.eclipse.lsp4j.services.LanguageServer;
 
 /**
- * Utility class that simplifies finding of language server instances
+ * Utility class that simplifies finding of language server instances. Wrappers of language
+ * servers are created once and reused while the registered server and its capabilities stay the
+ * same.
  *
  * @author Dmytro Kulieshov
  */
@@ -30,6 +34,7 @@ class FindServer {
   private final FindId findId;
   private final Registry<ServerCapabilities> serverCapabilities;
   private final Registry<LanguageServer> languageServers;
+  private final Map<String, ExtendedLanguageServer> wrappers = new ConcurrentHashMap<>();
 
   @Inject
   FindServer(RegistryContainer registryContainer, FindId findId) {
@@ -64,6 +69,12 @@ class FindServer {
     if (languageServer == null) {
       return null;
     }
-    return new ExtendedLanguageServer(id, serverCapabilities, languageServer);
+
+    ExtendedLanguageServer wrapper = wrappers.get(id);
+    if (wrapper == null || !wrapper.wraps(serverCapabilities, languageServer)) {
+      wrapper = new ExtendedLanguageServer(id, serverCapabilities, languageServer);
+      wrappers.put(id, wrapper);
+    }
+    return wrapper;
   }
 }
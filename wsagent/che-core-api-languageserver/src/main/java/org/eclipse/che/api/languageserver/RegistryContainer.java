@@ -18,6 +18,7 @@ import java.io.OutputStream;
 import java.nio.file.PathMatcher;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 import javax.inject.Singleton;
 import org.eclipse.che.api.languageserver.LanguageServerConfig.CommunicationProvider;
@@ -52,6 +53,7 @@ class RegistryContainer {
    */
   class Registry<T> {
     private final Map<String, T> innerRegistry = newConcurrentMap();
+    private final AtomicLong version = new AtomicLong();
 
     /**
      * Add an element to the registry
@@ -62,9 +64,18 @@ class RegistryContainer {
      */
     String add(String id, T t) {
       innerRegistry.put(id, t);
+      version.incrementAndGet();
       return id;
     }
 
+    /**
+     * Returns the number of changes made to the registry, which allows to find out whether the
+     * values derived from the registry are still valid.
+     */
+    long getVersion() {
+      return version.get();
+    }
+
     /**
      * Checks if the registry already contain the value for the specified language server.
      *
@@ -17,6 +17,8 @@ import static org.eclipse.che.api.languageserver.LanguageServiceUtils.prefixProj
 import static org.eclipse.che.api.languageserver.LanguageServiceUtils.prefixURI;
 import static org.eclipse.che.api.languageserver.LanguageServiceUtils.removePrefixUri;
 import static org.eclipse.che.api.languageserver.LanguageServiceUtils.removeUriScheme;
+import static org.eclipse.che.api.languageserver.util.OperationUtil.Strategy.ALL;
+import static org.eclipse.che.api.languageserver.util.OperationUtil.Strategy.FIRST_RESULT;
 
 import com.google.inject.Singleton;
 import java.io.File;
@@ -73,6 +75,7 @@ import org.eclipse.lsp4j.DocumentRangeFormattingParams;
 import org.eclipse.lsp4j.DocumentSymbolParams;
 import org.eclipse.lsp4j.Hover;
 import org.eclipse.lsp4j.Location;
+import org.eclipse.lsp4j.Position;
 import org.eclipse.lsp4j.ReferenceParams;
 import org.eclipse.lsp4j.RenameParams;
 import org.eclipse.lsp4j.SignatureHelp;
@@ -100,11 +103,19 @@ public class TextDocumentService {
 
   private final FindServer findServer;
   private final RequestHandlerConfigurator requestHandler;
+  private final DidChangeBuffer didChangeBuffer;
+  private final CompletionCache completionCache;
 
   @Inject
-  public TextDocumentService(FindServer findServer, RequestHandlerConfigurator requestHandler) {
+  public TextDocumentService(
+      FindServer findServer,
+      RequestHandlerConfigurator requestHandler,
+      DidChangeBuffer didChangeBuffer,
+      CompletionCache completionCache) {
     this.findServer = findServer;
     this.requestHandler = requestHandler;
+    this.didChangeBuffer = didChangeBuffer;
+    this.completionCache = completionCache;
   }
 
   @PostConstruct
@@ -163,6 +174,7 @@ public class TextDocumentService {
   private List<CommandDto> codeAction(CodeActionParams params) {
     TextDocumentIdentifier textDocument = params.getTextDocument();
     String wsPath = textDocument.getUri();
+    didChangeBuffer.flush(wsPath);
     String uri = prefixURI(wsPath);
     textDocument.setUri(uri);
     List<CommandDto> result = new ArrayList<>();
@@ -196,6 +208,16 @@ public class TextDocumentService {
       TextDocumentPositionParams textDocumentPositionParams) {
     TextDocumentIdentifier textDocument = textDocumentPositionParams.getTextDocument();
     String wsPath = textDocument.getUri();
+    Position position = textDocumentPositionParams.getPosition();
+    List<ExtendedCompletionItem> cached = completionCache.get(wsPath, position);
+    if (cached != null) {
+      ExtendedCompletionListDto result = new ExtendedCompletionListDto();
+      result.setInComplete(false);
+      result.setItems(cached);
+      return result;
+    }
+
+    didChangeBuffer.flush(wsPath);
     String uri = prefixURI(wsPath);
     textDocument.setUri(uri);
     textDocumentPositionParams.setUri(prefixURI(textDocumentPositionParams.getUri()));
@@ -204,6 +226,8 @@ public class TextDocumentService {
     result[0] = new ExtendedCompletionListDto();
     result[0].setInComplete(true);
     result[0].setItems(newLinkedList());
+    // the result may be reused only if every server answered with a complete list
+    int[] completeResults = new int[1];
 
     LSOperation<ExtendedLanguageServer, Either<List<CompletionItem>, CompletionList>> lsOperation =
         new LSOperation<ExtendedLanguageServer, Either<List<CompletionItem>, CompletionList>>() {
@@ -227,8 +251,12 @@ public class TextDocumentService {
             if (r.isRight()) {
               result[0].setInComplete(result[0].isInComplete() && r.getRight().isIncomplete());
               itemList = r.getRight().getItems();
+              if (!r.getRight().isIncomplete()) {
+                completeResults[0]++;
+              }
             } else {
               itemList = r.getLeft();
+              completeResults[0]++;
             }
 
             for (CompletionItem item : itemList) {
@@ -244,13 +272,20 @@ public class TextDocumentService {
         };
 
     Set<ExtendedLanguageServer> languageServers = findServer.byPath(wsPath);
-    OperationUtil.doInSequence(languageServers, lsOperation, 10000);
+    OperationUtil.await(OperationUtil.fanOut(languageServers, lsOperation, ALL, 10000));
 
+    long providers = languageServers.stream().filter(lsOperation::canDo).count();
+    if (providers > 0 && completeResults[0] == providers) {
+      completionCache.put(wsPath, position, new ArrayList<>(result[0].getItems()));
+    } else {
+      completionCache.invalidate(wsPath);
+    }
     return result[0];
   }
 
   private List<SymbolInformationDto> documentSymbol(DocumentSymbolParams documentSymbolParams) {
     String wsPath = documentSymbolParams.getTextDocument().getUri();
+    didChangeBuffer.flush(wsPath);
     String uri = prefixURI(wsPath);
     documentSymbolParams.getTextDocument().setUri(uri);
     List<SymbolInformationDto> result = new ArrayList<>();
@@ -288,6 +323,7 @@ public class TextDocumentService {
 
   private List<LocationDto> references(ReferenceParams referenceParams) {
     String wsPath = referenceParams.getTextDocument().getUri();
+    didChangeBuffer.flush(wsPath);
     String uri = prefixURI(wsPath);
     referenceParams.getTextDocument().setUri(uri);
     List<LocationDto> result = new ArrayList<>();
@@ -323,6 +359,7 @@ public class TextDocumentService {
 
   private List<LocationDto> definition(TextDocumentPositionParams textDocumentPositionParams) {
     String wsPath = textDocumentPositionParams.getTextDocument().getUri();
+    didChangeBuffer.flush(wsPath);
     String uri = prefixURI(wsPath);
     textDocumentPositionParams.getTextDocument().setUri(uri);
     Set<ExtendedLanguageServer> servers = findServer.byPath(wsPath);
@@ -379,6 +416,7 @@ public class TextDocumentService {
 
   private HoverDto hover(TextDocumentPositionParams positionParams) {
     String wsPath = positionParams.getTextDocument().getUri();
+    didChangeBuffer.flush(wsPath);
     String uri = prefixURI(wsPath);
     positionParams.getTextDocument().setUri(uri);
     positionParams.setUri(prefixURI(positionParams.getUri()));
@@ -415,6 +453,7 @@ public class TextDocumentService {
 
   private SignatureHelpDto signatureHelp(TextDocumentPositionParams positionParams) {
     String wsPath = positionParams.getTextDocument().getUri();
+    didChangeBuffer.flush(wsPath);
     String uri = prefixURI(wsPath);
     positionParams.getTextDocument().setUri(uri);
     positionParams.setUri(prefixURI(positionParams.getUri()));
@@ -442,13 +481,14 @@ public class TextDocumentService {
             return false;
           }
         };
-    OperationUtil.doInSequence(servers, op, 10000);
+    OperationUtil.await(OperationUtil.fanOut(servers, op, FIRST_RESULT, 10000));
     return result[0];
   }
 
   private List<TextEditDto> formatting(DocumentFormattingParams documentFormattingParams) {
     try {
       String wsPath = documentFormattingParams.getTextDocument().getUri();
+      didChangeBuffer.flush(wsPath);
       String uri = prefixURI(wsPath);
       documentFormattingParams.getTextDocument().setUri(uri);
       Optional<ExtendedLanguageServer> serverOptional =
@@ -478,6 +518,7 @@ public class TextDocumentService {
       DocumentRangeFormattingParams documentRangeFormattingParams) {
     try {
       String wsPath = documentRangeFormattingParams.getTextDocument().getUri();
+      didChangeBuffer.flush(wsPath);
       String uri = prefixURI(wsPath);
       documentRangeFormattingParams.getTextDocument().setUri(uri);
       Optional<ExtendedLanguageServer> serverOptional =
@@ -508,6 +549,7 @@ public class TextDocumentService {
       DocumentOnTypeFormattingParams documentOnTypeFormattingParams) {
     try {
       String wsPath = documentOnTypeFormattingParams.getTextDocument().getUri();
+      didChangeBuffer.flush(wsPath);
       String uri = prefixURI(wsPath);
       documentOnTypeFormattingParams.getTextDocument().setUri(uri);
       Optional<ExtendedLanguageServer> serverOptional =
@@ -538,13 +580,13 @@ public class TextDocumentService {
     String uri = prefixURI(wsPath);
     didChangeTextDocumentParams.getTextDocument().setUri(uri);
     didChangeTextDocumentParams.setUri(prefixURI(didChangeTextDocumentParams.getUri()));
-    findServer
-        .byPath(wsPath)
-        .forEach(server -> server.getTextDocumentService().didChange(didChangeTextDocumentParams));
+    completionCache.onChange(wsPath, didChangeTextDocumentParams.getContentChanges());
+    didChangeBuffer.add(wsPath, didChangeTextDocumentParams);
   }
 
   private void didOpen(DidOpenTextDocumentParams openTextDocumentParams) {
     String wsPath = openTextDocumentParams.getTextDocument().getUri();
+    completionCache.invalidate(wsPath);
     String uri = prefixURI(wsPath);
     openTextDocumentParams.getTextDocument().setUri(uri);
     findServer
@@ -554,6 +596,8 @@ public class TextDocumentService {
 
   private void didClose(DidCloseTextDocumentParams didCloseTextDocumentParams) {
     String wsPath = didCloseTextDocumentParams.getTextDocument().getUri();
+    didChangeBuffer.flush(wsPath);
+    completionCache.invalidate(wsPath);
     String uri = prefixURI(wsPath);
     didCloseTextDocumentParams.getTextDocument().setUri(uri);
     findServer
@@ -563,6 +607,7 @@ public class TextDocumentService {
 
   private void didSave(DidSaveTextDocumentParams didSaveTextDocumentParams) {
     String wsPath = didSaveTextDocumentParams.getTextDocument().getUri();
+    didChangeBuffer.flush(wsPath);
     String uri = prefixURI(wsPath);
     didSaveTextDocumentParams.getTextDocument().setUri(uri);
     findServer
@@ -573,6 +618,7 @@ public class TextDocumentService {
   private DocumentHighlightDto documentHighlight(
       TextDocumentPositionParams textDocumentPositionParams) {
     String wsPath = textDocumentPositionParams.getTextDocument().getUri();
+    didChangeBuffer.flush(wsPath);
     String uri = prefixURI(wsPath);
     textDocumentPositionParams.getTextDocument().setUri(uri);
     @SuppressWarnings("unchecked")
@@ -638,6 +684,7 @@ public class TextDocumentService {
 
   private RenameResultDto rename(RenameParams renameParams) {
     String wsPath = renameParams.getTextDocument().getUri();
+    didChangeBuffer.flush(wsPath);
     String uri = prefixURI(wsPath);
     renameParams.getTextDocument().setUri(uri);
     Map<String, ExtendedWorkspaceEdit> edits = new ConcurrentHashMap<>();
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.api.languageserver.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of operation latencies with buckets of exponentially growing width. The upper bound of
+ * the bucket {@code i} is {@code 2^i} milliseconds, the last bucket takes everything above.
+ */
+public class LatencyHistogram {
+  private static final int BUCKETS = 16;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  /** Records the latency of a single operation. */
+  public void record(long latencyMillis) {
+    int bucket = 0;
+    while (bucket < BUCKETS - 1 && latencyMillis > 1L << bucket) {
+      bucket++;
+    }
+    counts.incrementAndGet(bucket);
+  }
+
+  /** Returns the number of recorded operations. */
+  public long getCount() {
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      count += counts.get(i);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the upper bound of the bucket which contains the given percentile of recorded
+   * latencies, or {@link Long#MAX_VALUE} if it is in the last bucket.
+   *
+   * @param percentile percentile, from 0 to 100
+   */
+  public long getPercentileMillis(double percentile) {
+    long threshold = (long) Math.ceil(getCount() * percentile / 100);
+    long count = 0;
+    for (int i = 0; i < BUCKETS - 1; i++) {
+      count += counts.get(i);
+      if (count >= threshold) {
+        return 1L << i;
+      }
+    }
+    return Long.MAX_VALUE;
+  }
+}
@@ -10,19 +10,79 @@
  */
 package org.eclipse.che.api.languageserver.util;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import org.eclipse.che.commons.lang.concurrent.LoggingUncaughtExceptionHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class OperationUtil {
   private static final Logger LOG = LoggerFactory.getLogger(OperationUtil.class);
 
+  private static final ScheduledExecutorService DEADLINES =
+      Executors.newSingleThreadScheduledExecutor(
+          new ThreadFactoryBuilder()
+              .setUncaughtExceptionHandler(LoggingUncaughtExceptionHandler.getInstance())
+              .setNameFormat("LanguageServerOperationDeadline-%d")
+              .setDaemon(true)
+              .build());
+
+  private static final Map<String, LatencyHistogram> LATENCIES = new ConcurrentHashMap<>();
+
+  /** Defines when an operation started on several elements is considered to be done. */
+  public enum Strategy {
+    /**
+     * Done as soon as {@link LSOperation#handleResult(Object, Object)} returns true for any of the
+     * elements, operations which are still running are cancelled.
+     */
+    FIRST_RESULT,
+    /** Done when the operation is finished for all of the elements. */
+    ALL
+  }
+
+  /**
+   * Starts the given operation on each element of the collection at once. Results are passed to
+   * {@link LSOperation#handleResult(Object, Object)} one at a time, in the order they arrive. When
+   * the timeout expires, operations which are still running are cancelled and the returned future
+   * completes with the results handled so far. Failures in any of the operations are ignored.
+   *
+   * <p>Latencies of operations are recorded per element, see {@link #getLatencies()}.
+   *
+   * @param collection elements to start the operation on
+   * @param op operation
+   * @param strategy defines when the operation is done
+   * @param timeoutMillis time after which the operation is done anyway
+   * @return future which completes when the operation is done
+   */
+  public static <C, R> CompletableFuture<Void> fanOut(
+      Collection<C> collection, LSOperation<C, R> op, Strategy strategy, long timeoutMillis) {
+    return new FanOut<>(op, strategy).start(collection, timeoutMillis);
+  }
+
+  /**
+   * Returns histograms of operation latencies keyed by the string representation of elements the
+   * operations were started on.
+   */
+  public static Map<String, LatencyHistogram> getLatencies() {
+    return new HashMap<>(LATENCIES);
+  }
+
   /**
    * Execute the given operation on each element of the collection in sequence. Stops as soon as
    * {@link LSOperation#canDo(Object)} returns true.
@@ -38,7 +98,9 @@ public class OperationUtil {
       if (op.canDo(element)) {
         CompletableFuture<R> future = op.start(element);
         try {
-          R result = future.get(Math.max(endTime - timeoutMillis, 1), TimeUnit.MILLISECONDS);
+          R result =
+              future.get(
+                  Math.max(endTime - System.currentTimeMillis(), 1), TimeUnit.MILLISECONDS);
           if (op.handleResult(element, result)) {
             return;
           }
@@ -55,8 +117,8 @@ public class OperationUtil {
   }
 
   /**
-   * Executes the given operation in parallel for each element in the collection. Failures in any of
-   * the operations are ignored.
+   * Executes the given operation in parallel for each element in the collection and waits until it
+   * is done for all of them or the timeout expires. Failures in any of the operations are ignored.
    *
    * @param collection
    * @param op
@@ -64,56 +126,109 @@ public class OperationUtil {
    */
   public static <C, R> void doInParallel(
       Collection<C> collection, LSOperation<C, R> op, long timeoutMillis) {
-    Object lock = new Object();
-    List<CompletableFuture<?>> pendingResponses = new ArrayList<>();
+    await(fanOut(collection, op, Strategy.ALL, timeoutMillis));
+  }
 
-    for (C element : collection) {
-      if (op.canDo(element)) {
-        CompletableFuture<R> future = op.start(element);
-        synchronized (lock) {
-          pendingResponses.add(future);
-          lock.notifyAll();
+  /**
+   * Waits for the future returned by {@link #fanOut(Collection, LSOperation, Strategy, long)}, for
+   * the callers which have to return the result synchronously.
+   */
+  public static void await(CompletableFuture<Void> future) {
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      LOG.info("Thread interrupted", e);
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      LOG.info("Exception occurred in op", e);
+    }
+  }
+
+  private static class FanOut<C, R> {
+    private final LSOperation<C, R> op;
+    private final Strategy strategy;
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    private final List<CompletableFuture<R>> pending = new ArrayList<>();
+    private int remaining;
+
+    private FanOut(LSOperation<C, R> op, Strategy strategy) {
+      this.op = op;
+      this.strategy = strategy;
+    }
+
+    private CompletableFuture<Void> start(Collection<C> collection, long timeoutMillis) {
+      List<C> elements = new ArrayList<>();
+      long startNanos = System.nanoTime();
+      synchronized (this) {
+        for (C element : collection) {
+          if (!op.canDo(element)) {
+            continue;
+          }
+          try {
+            pending.add(op.start(element));
+            elements.add(element);
+          } catch (RuntimeException e) {
+            LOG.info("Exception occurred in op", e);
+          }
         }
-        future
-            .thenAccept(
-                result -> {
-                  synchronized (lock) {
-                    if (!future.isCancelled()) {
-                      op.handleResult(element, result);
-                      pendingResponses.remove(future);
-                      lock.notifyAll();
-                    }
-                  }
-                })
-            .exceptionally(
-                (t) -> {
-                  LOG.info("Exception occurred in request", t);
-                  synchronized (lock) {
-                    pendingResponses.remove(future);
-                    lock.notifyAll();
-                  }
-                  return null;
-                });
+        remaining = pending.size();
+        if (remaining == 0) {
+          done.complete(null);
+          return done;
+        }
+      }
+
+      ScheduledFuture<?> deadline = DEADLINES.schedule(this::finish, timeoutMillis, MILLISECONDS);
+      done.whenComplete((r, t) -> deadline.cancel(false));
+      done.whenComplete((r, t) -> cancelPending());
+
+      for (int i = 0; i < elements.size(); i++) {
+        C element = elements.get(i);
+        pending
+            .get(i)
+            .whenComplete((result, error) -> onComplete(element, startNanos, result, error));
       }
+      return done;
     }
 
-    long endTime = System.currentTimeMillis() + 5000;
+    private void onComplete(C element, long startNanos, R result, Throwable error) {
+      if (!(error instanceof CancellationException)) {
+        LATENCIES
+            .computeIfAbsent(String.valueOf(element), k -> new LatencyHistogram())
+            .record(NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+      }
 
-    try {
-      synchronized (lock) {
-        while (System.currentTimeMillis() < endTime && pendingResponses.size() > 0) {
-          lock.wait(endTime - System.currentTimeMillis());
+      synchronized (this) {
+        if (done.isDone()) {
+          return;
+        }
+        if (error != null) {
+          LOG.info("Exception occurred in request", error);
+        } else {
+          try {
+            if (op.handleResult(element, result) && strategy == Strategy.FIRST_RESULT) {
+              finish();
+              return;
+            }
+          } catch (RuntimeException e) {
+            LOG.info("Exception occurred in op", e);
+          }
+        }
+        if (--remaining == 0) {
+          finish();
         }
       }
-    } catch (InterruptedException e) {
-      LOG.info("Thread interrupted", e);
-      Thread.currentThread().interrupt();
     }
-    synchronized (lock) {
-      for (CompletableFuture<?> pending : new ArrayList<>(pendingResponses)) {
-        pending.cancel(true);
+
+    private synchronized void finish() {
+      done.complete(null);
+    }
+
+    private synchronized void cancelPending() {
+      for (CompletableFuture<R> future : pending) {
+        future.cancel(true);
       }
-      lock.notifyAll();
     }
   }
 }
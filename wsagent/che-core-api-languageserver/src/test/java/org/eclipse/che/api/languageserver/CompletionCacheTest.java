@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.api.languageserver;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.List;
+import org.eclipse.che.api.languageserver.shared.model.ExtendedCompletionItem;
+import org.eclipse.lsp4j.CompletionItem;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import org.eclipse.lsp4j.TextEdit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class CompletionCacheTest {
+
+  private static final String WS_PATH = "/project/file.txt";
+
+  private CompletionCache cache;
+
+  @BeforeMethod
+  public void setUp() {
+    cache = new CompletionCache();
+    cache.put(
+        WS_PATH,
+        new Position(0, 4),
+        asList(item("getValue"), item("setValue"), item("hashCode"), item("toString")));
+  }
+
+  @Test
+  public void shouldReturnAllItemsAtSamePosition() {
+    assertEquals(
+        labels(cache.get(WS_PATH, new Position(0, 4))),
+        asList("getValue", "setValue", "hashCode", "toString"));
+    assertEquals(cache.getHitCount(), 1);
+  }
+
+  @Test
+  public void shouldFilterAndRankItemsByTypedCharacters() {
+    cache.onChange(WS_PATH, singletonList(insert(4, "s")));
+    cache.onChange(WS_PATH, singletonList(insert(5, "t")));
+
+    assertEquals(labels(cache.get(WS_PATH, new Position(0, 6))), asList("toString", "setValue"));
+  }
+
+  @Test
+  public void shouldSkipCharactersTypedBeforeCompletion() {
+    cache.put(
+        WS_PATH,
+        new Position(0, 6),
+        asList(item("getValue", 4), item("getName", 4), item("hashCode", 4)));
+
+    cache.onChange(WS_PATH, singletonList(insert(6, "n")));
+
+    assertEquals(labels(cache.get(WS_PATH, new Position(0, 7))), singletonList("getName"));
+  }
+
+  @Test
+  public void shouldMoveEditsOverTypedCharacters() {
+    ExtendedCompletionItem item = item("getValue", 4);
+    TextEdit sameLine = new TextEdit();
+    sameLine.setRange(new Range(new Position(0, 10), new Position(0, 12)));
+    sameLine.setNewText(")");
+    TextEdit otherLine = new TextEdit();
+    otherLine.setRange(new Range(new Position(5, 6), new Position(5, 8)));
+    otherLine.setNewText("");
+    item.getItem().setAdditionalTextEdits(asList(sameLine, otherLine));
+    cache.put(WS_PATH, new Position(0, 6), singletonList(item));
+
+    cache.onChange(WS_PATH, singletonList(insert(6, "t")));
+    cache.onChange(WS_PATH, singletonList(insert(7, "V")));
+    // every request gets its own copy, so edits are not moved twice
+    cache.get(WS_PATH, new Position(0, 8));
+    CompletionItem adjusted = cache.get(WS_PATH, new Position(0, 8)).get(0).getItem();
+
+    assertRange(adjusted.getTextEdit().getRange(), 0, 4, 0, 8);
+    assertRange(adjusted.getAdditionalTextEdits().get(0).getRange(), 0, 12, 0, 14);
+    assertRange(adjusted.getAdditionalTextEdits().get(1).getRange(), 5, 6, 5, 8);
+    assertRange(item.getItem().getTextEdit().getRange(), 0, 4, 0, 6);
+  }
+
+  @Test
+  public void shouldFollowBackspace() {
+    cache.onChange(WS_PATH, singletonList(insert(4, "h")));
+    cache.onChange(WS_PATH, singletonList(remove(4, 5)));
+
+    assertEquals(labels(cache.get(WS_PATH, new Position(0, 4))).size(), 4);
+  }
+
+  @Test
+  public void shouldMissAtOtherPosition() {
+    assertNull(cache.get(WS_PATH, new Position(0, 5)));
+    assertNull(cache.get(WS_PATH, new Position(1, 4)));
+    assertEquals(cache.getMissCount(), 2);
+  }
+
+  @Test
+  public void shouldDropResultOnNonIdentifierCharacter() {
+    cache.onChange(WS_PATH, singletonList(insert(4, "(")));
+
+    assertNull(cache.get(WS_PATH, new Position(0, 5)));
+    assertNull(cache.get(WS_PATH, new Position(0, 4)));
+  }
+
+  @Test
+  public void shouldDropResultOnChangeElsewhere() {
+    cache.onChange(WS_PATH, singletonList(insert(0, "a")));
+
+    assertNull(cache.get(WS_PATH, new Position(0, 5)));
+  }
+
+  @Test
+  public void shouldDropResultOnFullContentChange() {
+    TextDocumentContentChangeEvent full = new TextDocumentContentChangeEvent();
+    full.setText("content");
+
+    cache.onChange(WS_PATH, singletonList(full));
+
+    assertNull(cache.get(WS_PATH, new Position(0, 4)));
+  }
+
+  @Test
+  public void shouldDropResultOnInvalidate() {
+    cache.invalidate(WS_PATH);
+
+    assertNull(cache.get(WS_PATH, new Position(0, 4)));
+  }
+
+  private static ExtendedCompletionItem item(String label) {
+    CompletionItem completionItem = new CompletionItem();
+    completionItem.setLabel(label);
+    ExtendedCompletionItem item = new ExtendedCompletionItem();
+    item.setItem(completionItem);
+    item.setLanguageServerId("id");
+    return item;
+  }
+
+  private static ExtendedCompletionItem item(String label, int wordStart) {
+    ExtendedCompletionItem item = item(label);
+    TextEdit textEdit = new TextEdit();
+    textEdit.setRange(new Range(new Position(0, wordStart), new Position(0, 6)));
+    textEdit.setNewText(label);
+    item.getItem().setTextEdit(textEdit);
+    return item;
+  }
+
+  private static void assertRange(
+      Range range, int startLine, int startCharacter, int endLine, int endCharacter) {
+    assertEquals(range.getStart().getLine(), startLine);
+    assertEquals(range.getStart().getCharacter(), startCharacter);
+    assertEquals(range.getEnd().getLine(), endLine);
+    assertEquals(range.getEnd().getCharacter(), endCharacter);
+  }
+
+  private static List<String> labels(List<ExtendedCompletionItem> items) {
+    return items.stream().map(item -> item.getItem().getLabel()).collect(toList());
+  }
+
+  private static TextDocumentContentChangeEvent insert(int offset, String text) {
+    return change(offset, offset, text);
+  }
+
+  private static TextDocumentContentChangeEvent remove(int start, int end) {
+    return change(start, end, "");
+  }
+
+  private static TextDocumentContentChangeEvent change(int start, int end, String text) {
+    TextDocumentContentChangeEvent change = new TextDocumentContentChangeEvent();
+    change.setRange(new Range(new Position(0, start), new Position(0, end)));
+    change.setRangeLength(end - start);
+    change.setText(text);
+    return change;
+  }
+}
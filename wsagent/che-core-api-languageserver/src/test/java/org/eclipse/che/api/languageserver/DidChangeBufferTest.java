@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.api.languageserver;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableSet;
+import org.eclipse.lsp4j.DidChangeTextDocumentParams;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.eclipse.lsp4j.ServerCapabilities;
+import org.eclipse.lsp4j.TextDocumentContentChangeEvent;
+import org.eclipse.lsp4j.VersionedTextDocumentIdentifier;
+import org.eclipse.lsp4j.services.LanguageServer;
+import org.eclipse.lsp4j.services.TextDocumentService;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+@Listeners(MockitoTestNGListener.class)
+public class DidChangeBufferTest {
+
+  private static final String WS_PATH = "/project/file.txt";
+
+  @Mock private FindServer findServer;
+  @Mock private LanguageServer languageServer;
+  @Mock private TextDocumentService textDocumentService;
+
+  private DidChangeBuffer buffer;
+
+  @BeforeMethod
+  public void setUp() {
+    ExtendedLanguageServer server =
+        new ExtendedLanguageServer("id", new ServerCapabilities(), languageServer);
+    when(findServer.byPath(WS_PATH)).thenReturn(ImmutableSet.of(server));
+    when(languageServer.getTextDocumentService()).thenReturn(textDocumentService);
+
+    buffer = new DidChangeBuffer(findServer);
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    buffer.stop();
+  }
+
+  @Test
+  public void shouldForwardMergedChangesOnFlush() {
+    TextDocumentContentChangeEvent first = change(0, "a");
+    TextDocumentContentChangeEvent second = change(1, "b");
+
+    buffer.add(WS_PATH, params(1, first));
+    buffer.add(WS_PATH, params(2, second));
+    verify(textDocumentService, never()).didChange(any());
+    buffer.flush(WS_PATH);
+
+    ArgumentCaptor<DidChangeTextDocumentParams> captor =
+        ArgumentCaptor.forClass(DidChangeTextDocumentParams.class);
+    verify(textDocumentService).didChange(captor.capture());
+    assertEquals(captor.getValue().getContentChanges(), asList(first, second));
+    assertEquals(captor.getValue().getTextDocument().getVersion(), Integer.valueOf(2));
+    assertEquals(buffer.getReceivedCount(), 2);
+    assertEquals(buffer.getForwardedCount(), 1);
+  }
+
+  @Test
+  public void shouldDropChangesPrecedingFullContentChange() {
+    TextDocumentContentChangeEvent full = new TextDocumentContentChangeEvent();
+    full.setText("content");
+
+    buffer.add(WS_PATH, params(1, change(0, "a")));
+    buffer.add(WS_PATH, params(2, full));
+    buffer.flush(WS_PATH);
+
+    ArgumentCaptor<DidChangeTextDocumentParams> captor =
+        ArgumentCaptor.forClass(DidChangeTextDocumentParams.class);
+    verify(textDocumentService).didChange(captor.capture());
+    assertEquals(captor.getValue().getContentChanges(), singletonList(full));
+  }
+
+  @Test
+  public void shouldForwardChangesWhenWindowExpires() {
+    buffer.add(WS_PATH, params(1, change(0, "a")));
+
+    verify(textDocumentService, timeout(DidChangeBuffer.WINDOW_MILLIS * 10)).didChange(any());
+  }
+
+  @Test
+  public void shouldBufferChangesAfterFlushSeparately() {
+    buffer.add(WS_PATH, params(1, change(0, "a")));
+    buffer.flush(WS_PATH);
+    buffer.add(WS_PATH, params(2, change(1, "b")));
+    buffer.flush(WS_PATH);
+
+    assertEquals(buffer.getForwardedCount(), 2);
+  }
+
+  private static DidChangeTextDocumentParams params(
+      int version, TextDocumentContentChangeEvent change) {
+    VersionedTextDocumentIdentifier identifier = new VersionedTextDocumentIdentifier(version);
+    identifier.setUri(WS_PATH);
+    DidChangeTextDocumentParams params = new DidChangeTextDocumentParams();
+    params.setTextDocument(identifier);
+    params.setContentChanges(singletonList(change));
+    return params;
+  }
+
+  private static TextDocumentContentChangeEvent change(int offset, String text) {
+    Position position = new Position(0, offset);
+    TextDocumentContentChangeEvent change = new TextDocumentContentChangeEvent();
+    change.setRange(new Range(position, position));
+    change.setRangeLength(0);
+    change.setText(text);
+    return change;
+  }
+}
@@ -10,7 +10,9 @@
  */
 package org.eclipse.che.api.languageserver;
 
+import static java.util.Arrays.asList;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 import com.google.common.collect.ImmutableSet;
@@ -71,4 +73,55 @@ public class FindIdTest {
 
     assertTrue(ids.isEmpty());
   }
+
+  @Test
+  public void shouldMatchPathByExtensionPatterns() {
+    registryContainer.patternRegistry.add(ID_1, ImmutableSet.of(Pattern.compile(".*\\.py")));
+    registryContainer.patternRegistry.add(
+        ID_2, ImmutableSet.of(Pattern.compile(".*\\.(js|ts|tsx)")));
+
+    assertEquals(findId.byPath("/a/b/c/name.py"), ImmutableSet.of(ID_1));
+    assertEquals(findId.byPath("/a/b/c/name.tsx"), ImmutableSet.of(ID_2));
+    assertTrue(findId.byPath("/a/b/c/name.pyc").isEmpty());
+    assertTrue(findId.byPath("/a/b.py/name").isEmpty());
+  }
+
+  @Test
+  public void shouldMatchPathByExtensionAndOtherPatterns() {
+    registryContainer.patternRegistry.add(ID_1, ImmutableSet.of(Pattern.compile(".*\\.xml")));
+    registryContainer.patternRegistry.add(
+        ID_2, ImmutableSet.of(Pattern.compile(".*[/\\\\]+pom\\.xml")));
+
+    assertEquals(findId.byPath("/a/pom.xml"), ImmutableSet.of(ID_1, ID_2));
+    assertEquals(findId.byPath("/a/web.xml"), ImmutableSet.of(ID_1));
+  }
+
+  @Test
+  public void shouldMatchPathWithPatternsRegisteredAfterFirstLookup() {
+    registryContainer.patternRegistry.add(ID_1, ImmutableSet.of(Pattern.compile(".*\\.go")));
+    assertTrue(findId.byPath("/a/name.yaml").isEmpty());
+
+    registryContainer.patternRegistry.add(
+        ID_2, ImmutableSet.of(Pattern.compile(".*\\.(yaml|yml)")));
+
+    assertEquals(findId.byPath("/a/name.yaml"), ImmutableSet.of(ID_2));
+  }
+
+  @Test
+  public void shouldMatchSameIdsAsRegularExpressionsWithManyServers() {
+    for (int i = 0; i < 25; i++) {
+      registryContainer.patternRegistry.add(
+          "id-" + i, ImmutableSet.of(Pattern.compile(".*\\.(ext" + i + "|common)")));
+    }
+
+    assertEquals(findId.byPath("/a/name.ext7"), ImmutableSet.of("id-7"));
+    assertEquals(findId.byPath("/a/name.common").size(), 25);
+  }
+
+  @Test
+  public void shouldNotTreatQuantifiedPatternAsExtension() {
+    assertEquals(FindId.toExtensions(Pattern.compile(".*\\.(c|h)")), asList("c", "h"));
+    assertNull(FindId.toExtensions(Pattern.compile(".*\\.c++")));
+    assertNull(FindId.toExtensions(Pattern.compile(".*\\.py", Pattern.CASE_INSENSITIVE)));
+  }
 }
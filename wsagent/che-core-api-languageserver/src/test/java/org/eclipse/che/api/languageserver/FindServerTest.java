@@ -12,7 +12,9 @@ package org.eclipse.che.api.languageserver;
 
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 
 import com.google.common.collect.ImmutableSet;
 import java.util.Set;
@@ -118,4 +120,26 @@ public class FindServerTest {
 
     assertEquals(0, extendedLanguageServers.size());
   }
+
+  @Test
+  public void shouldReuseExtendedLanguageServer() {
+    registryContainer.serverCapabilitiesRegistry.add(ID_1, serverCapabilities);
+    registryContainer.languageServerRegistry.add(ID_1, languageServer);
+
+    assertSame(findServer.byId(ID_1), findServer.byId(ID_1));
+  }
+
+  @Test
+  public void shouldWrapReplacedLanguageServer() {
+    registryContainer.serverCapabilitiesRegistry.add(ID_1, serverCapabilities);
+    registryContainer.languageServerRegistry.add(ID_1, languageServer);
+    ExtendedLanguageServer first = findServer.byId(ID_1);
+
+    ServerCapabilities newCapabilities = new ServerCapabilities();
+    registryContainer.serverCapabilitiesRegistry.add(ID_1, newCapabilities);
+
+    ExtendedLanguageServer second = findServer.byId(ID_1);
+    assertNotSame(second, first);
+    assertSame(second.getCapabilities(), newCapabilities);
+  }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.api.languageserver.util;
+
+import static java.util.Arrays.asList;
+import static org.eclipse.che.api.languageserver.util.OperationUtil.Strategy.ALL;
+import static org.eclipse.che.api.languageserver.util.OperationUtil.Strategy.FIRST_RESULT;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.testng.annotations.Test;
+
+public class OperationUtilTest {
+
+  @Test
+  public void shouldMergeResultsOfAllElements() throws Exception {
+    Operation op = new Operation(false);
+
+    CompletableFuture<Void> done = OperationUtil.fanOut(asList("a", "b"), op, ALL, 10_000);
+    op.complete("b");
+    op.complete("a");
+
+    done.get();
+    assertEquals(op.handled, asList("b", "a"));
+  }
+
+  @Test
+  public void shouldCompleteWithFirstAcceptedResult() throws Exception {
+    Operation op = new Operation(true);
+
+    CompletableFuture<Void> done = OperationUtil.fanOut(asList("a", "b"), op, FIRST_RESULT, 10_000);
+    op.complete("b");
+
+    done.get();
+    assertEquals(op.handled, asList("b"));
+    assertTrue(op.futures.get("a").isCancelled());
+  }
+
+  @Test
+  public void shouldCompleteWithHandledResultsWhenTimeoutExpires() throws Exception {
+    Operation op = new Operation(false);
+
+    CompletableFuture<Void> done = OperationUtil.fanOut(asList("a", "b"), op, ALL, 100);
+    op.complete("a");
+
+    done.get();
+    assertEquals(op.handled, asList("a"));
+    assertTrue(op.futures.get("b").isCancelled());
+  }
+
+  @Test
+  public void shouldIgnoreFailedOperations() throws Exception {
+    Operation op = new Operation(false);
+
+    CompletableFuture<Void> done = OperationUtil.fanOut(asList("a", "b"), op, ALL, 10_000);
+    op.futures.get("a").completeExceptionally(new RuntimeException("failed"));
+    op.complete("b");
+
+    done.get();
+    assertEquals(op.handled, asList("b"));
+  }
+
+  @Test
+  public void shouldRecordLatencyPerElement() throws Exception {
+    Operation op = new Operation(false);
+
+    CompletableFuture<Void> done = OperationUtil.fanOut(asList("latency"), op, ALL, 10_000);
+    op.complete("latency");
+
+    done.get();
+    assertTrue(OperationUtil.getLatencies().get("latency").getCount() > 0);
+  }
+
+  private static class Operation implements LSOperation<String, String> {
+    private final boolean accept;
+    private final Map<String, CompletableFuture<String>> futures = new HashMap<>();
+    private final List<String> handled = new ArrayList<>();
+
+    private Operation(boolean accept) {
+      this.accept = accept;
+    }
+
+    @Override
+    public boolean canDo(String element) {
+      return true;
+    }
+
+    @Override
+    public CompletableFuture<String> start(String element) {
+      CompletableFuture<String> future = new CompletableFuture<>();
+      futures.put(element, future);
+      return future;
+    }
+
+    @Override
+    public boolean handleResult(String element, String result) {
+      handled.add(result);
+      return accept;
+    }
+
+    private void complete(String element) {
+      futures.get(element).complete(element);
+    }
+  }
+}
@@ -28,4 +28,14 @@ public interface SearchResultDto {
   void setSearchOccurrences(List<SearchOccurrenceDto> searchOccurrences);
 
   SearchResultDto withSearchOccurrences(List<SearchOccurrenceDto> searchOccurrences);
+
+  /**
+   * Whether only the beginning of the file content is indexed, so the text searched for may occur
+   * in the file even if it is not found.
+   */
+  boolean isContentTruncated();
+
+  void setContentTruncated(boolean contentTruncated);
+
+  SearchResultDto withContentTruncated(boolean contentTruncated);
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.api.editor.server.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Editable text kept as a sequence of bounded chunks. The chunk which contains an offset is found
+ * by binary search over chunk start offsets and an edit changes only the chunks it touches, so the
+ * cost of an edit depends on the chunk size and the number of chunks rather than on copying the
+ * whole text. The text as a single string is built on demand and cached until the next edit.
+ *
+ * <p>The class is not thread safe.
+ */
+class EditorDocument {
+
+  static final int CHUNK_SIZE = 4096;
+
+  private final List<StringBuilder> chunks = new ArrayList<>();
+  private int[] starts = new int[0];
+  private int length;
+  private String text;
+
+  EditorDocument(String text) {
+    for (int i = 0; i < text.length(); i += CHUNK_SIZE) {
+      chunks.add(new StringBuilder(text.substring(i, Math.min(text.length(), i + CHUNK_SIZE))));
+    }
+    this.length = text.length();
+    this.text = text;
+    updateStarts(0);
+  }
+
+  /** Returns the length of the text in characters. */
+  int length() {
+    return length;
+  }
+
+  /**
+   * Inserts the text at the given offset.
+   *
+   * @throws IndexOutOfBoundsException if the offset is outside of the text
+   */
+  void insert(int offset, String inserted) {
+    checkRange(offset, offset);
+    if (inserted.isEmpty()) {
+      return;
+    }
+    if (chunks.isEmpty()) {
+      chunks.add(new StringBuilder());
+      updateStarts(0);
+    }
+    // an offset between two chunks is appended to the preceding one
+    int index = offset == 0 ? 0 : chunkIndex(offset - 1);
+    StringBuilder chunk = chunks.get(index);
+    chunk.insert(offset - startOf(index), inserted);
+    length += inserted.length();
+    text = null;
+
+    if (chunk.length() > 2 * CHUNK_SIZE) {
+      split(index);
+    }
+    updateStarts(index);
+  }
+
+  /**
+   * Removes the given number of characters starting from the given offset, or the characters up to
+   * the end of the text if there are less of them.
+   *
+   * @throws IndexOutOfBoundsException if the offset is outside of the text or the count is
+   *     negative
+   */
+  void remove(int offset, int count) {
+    count = Math.min(count, length - offset);
+    checkRange(offset, offset + count);
+    if (count == 0) {
+      return;
+    }
+    int first = chunkIndex(offset);
+    int index = first;
+    int remaining = count;
+    int position = offset - startOf(first);
+    while (remaining > 0) {
+      StringBuilder chunk = chunks.get(index);
+      int end = Math.min(chunk.length(), position + remaining);
+      chunk.delete(position, end);
+      remaining -= end - position;
+      position = 0;
+      if (chunk.length() == 0) {
+        chunks.remove(index);
+      } else {
+        index++;
+      }
+    }
+    length -= count;
+    text = null;
+
+    if (first > 0 && first < chunks.size() && isSmall(first - 1) && isSmall(first)) {
+      chunks.get(first - 1).append(chunks.remove(first));
+      first--;
+    }
+    updateStarts(first);
+  }
+
+  @Override
+  public String toString() {
+    if (text == null) {
+      StringBuilder sb = new StringBuilder(length);
+      for (StringBuilder chunk : chunks) {
+        sb.append(chunk);
+      }
+      text = sb.toString();
+    }
+    return text;
+  }
+
+  private void checkRange(int start, int end) {
+    if (start < 0 || start > end || end > length) {
+      throw new IndexOutOfBoundsException(
+          "Range [" + start + ", " + end + ") is out of text of length " + length);
+    }
+  }
+
+  private boolean isSmall(int index) {
+    return chunks.get(index).length() < CHUNK_SIZE / 2;
+  }
+
+  private void split(int index) {
+    StringBuilder chunk = chunks.get(index);
+    List<StringBuilder> parts = new ArrayList<>();
+    for (int i = CHUNK_SIZE; i < chunk.length(); i += CHUNK_SIZE) {
+      parts.add(new StringBuilder(chunk.substring(i, Math.min(chunk.length(), i + CHUNK_SIZE))));
+    }
+    chunk.setLength(CHUNK_SIZE);
+    chunks.addAll(index + 1, parts);
+  }
+
+  /** Returns the index of the chunk that contains the character at the given offset. */
+  private int chunkIndex(int offset) {
+    int index = Arrays.binarySearch(starts, 0, chunks.size(), offset);
+    return index >= 0 ? index : -index - 2;
+  }
+
+  private int startOf(int index) {
+    return starts[index];
+  }
+
+  /** Recomputes start offsets of chunks beginning from the given one. */
+  private void updateStarts(int from) {
+    if (starts.length < chunks.size()) {
+      starts = Arrays.copyOf(starts, Math.max(16, chunks.size() * 2));
+    }
+    int start = from == 0 ? 0 : starts[from - 1] + chunks.get(from - 1).length();
+    for (int i = from; i < chunks.size(); i++) {
+      starts[i] = start;
+      start += chunks.get(i).length();
+    }
+  }
+}
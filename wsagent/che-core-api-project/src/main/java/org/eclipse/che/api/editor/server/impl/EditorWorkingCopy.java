@@ -11,6 +11,7 @@
 package org.eclipse.che.api.editor.server.impl;
 
 import static java.lang.String.format;
+import static java.nio.charset.CodingErrorAction.REPLACE;
 import static org.eclipse.che.api.project.shared.dto.EditorChangesDto.Type.INSERT;
 import static org.eclipse.che.api.project.shared.dto.EditorChangesDto.Type.REMOVE;
 
@@ -18,19 +19,39 @@ import com.google.common.io.ByteStreams;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.file.Path;
 import java.util.Arrays;
 import org.eclipse.che.api.core.ServerException;
 import org.eclipse.che.api.project.shared.dto.EditorChangesDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * In-memory implementation of working copy for opened editor on client.
  *
+ * <p>Editor changes are applied to an {@link EditorDocument}, which is created from the content on
+ * the first change. The content as a string and as bytes is computed when it is requested and
+ * kept until the next change, so reading an unchanged working copy does not copy it.
+ *
+ * <p>A working copy can be moved out of memory to a {@link WorkingCopyJournal}. Changes made to it
+ * then are appended to the journal, and the content is loaded back on the next read.
+ *
  * @author Roman Nikitenko
  */
 public class EditorWorkingCopy {
+  private static final Logger LOG = LoggerFactory.getLogger(EditorWorkingCopy.class);
+
   private String path;
   private String projectPath;
   private byte[] content;
+  private EditorDocument document;
+  private WorkingCopyJournal journal;
+  private volatile long lastAccessTime = System.currentTimeMillis();
 
   /**
    * Creates a working copy for opened editor on client.
@@ -51,10 +72,9 @@ public class EditorWorkingCopy {
    * @return content ot the working copy
    */
   public byte[] getContentAsBytes() {
-    if (content == null) {
-      content = new byte[0];
-    }
-    return Arrays.copyOf(content, content.length);
+    lastAccessTime = System.currentTimeMillis();
+    byte[] bytes = contentBytes();
+    return Arrays.copyOf(bytes, bytes.length);
   }
 
   /**
@@ -62,8 +82,9 @@ public class EditorWorkingCopy {
    *
    * @return content ot the working copy
    */
-  public String getContentAsString() {
-    return new String(getContentAsBytes());
+  public synchronized String getContentAsString() {
+    lastAccessTime = System.currentTimeMillis();
+    return document().toString();
   }
 
   /**
@@ -72,7 +93,8 @@ public class EditorWorkingCopy {
    * @return content ot the working copy
    */
   public InputStream getContent() {
-    return new ByteArrayInputStream(getContentAsBytes());
+    lastAccessTime = System.currentTimeMillis();
+    return new ByteArrayInputStream(contentBytes());
   }
 
   /**
@@ -81,8 +103,10 @@ public class EditorWorkingCopy {
    * @param content content
    * @return current working copy after updating content
    */
-  EditorWorkingCopy updateContent(byte[] content) {
+  synchronized EditorWorkingCopy updateContent(byte[] content) {
+    discardJournal();
     this.content = content;
+    this.document = null;
     return this;
   }
 
@@ -92,8 +116,10 @@ public class EditorWorkingCopy {
    * @param content content
    * @return current working copy after updating content
    */
-  EditorWorkingCopy updateContent(String content) {
-    updateContent(content.getBytes());
+  synchronized EditorWorkingCopy updateContent(String content) {
+    discardJournal();
+    this.content = null;
+    this.document = new EditorDocument(content);
     return this;
   }
 
@@ -120,27 +146,148 @@ public class EditorWorkingCopy {
    *
    * @param changes contains editor content changes
    */
-  void applyChanges(EditorChangesDto changes) {
-    synchronized (this) {
-      String text = changes.getText();
-      int offset = changes.getOffset();
-      int removedCharCount = changes.getRemovedCharCount();
-
-      String newContent = null;
-      String oldContent = getContentAsString();
-      EditorChangesDto.Type type = changes.getType();
-      if (type == INSERT) {
-        newContent = new StringBuilder(oldContent).insert(offset, text).toString();
-      }
+  synchronized void applyChanges(EditorChangesDto changes) throws IOException {
+    lastAccessTime = System.currentTimeMillis();
+    applyChange(changes);
+  }
+
+  /**
+   * Moves the content of the working copy out of memory. Does nothing if the working copy is
+   * already moved.
+   *
+   * @param file file to keep the content in
+   */
+  synchronized void spill(Path file) throws IOException {
+    if (journal == null) {
+      byte[] bytes = contentBytes();
+      int length = document == null ? charCount(bytes) : document.length();
+      journal = WorkingCopyJournal.write(file, bytes, length);
+      content = null;
+      document = null;
+    }
+  }
 
+  /** Returns the approximate number of bytes the content of the working copy takes in memory. */
+  synchronized long getMemorySize() {
+    long size = content == null ? 0 : content.length;
+    return document == null ? size : size + 2L * document.length();
+  }
+
+  /** Returns the time of the last read or change of the working copy. */
+  long getLastAccessTime() {
+    return lastAccessTime;
+  }
+
+  /** Releases the resources kept for the working copy outside of memory. */
+  synchronized void dispose() {
+    discardJournal();
+  }
+
+  private void applyChange(EditorChangesDto changes) throws IOException {
+    String text = changes.getText();
+    int offset = changes.getOffset();
+    int removedCharCount = changes.getRemovedCharCount();
+
+    EditorChangesDto.Type type = changes.getType();
+    if (journal != null) {
+      if (type == INSERT && text != null) {
+        journal.insert(offset, text);
+      }
       if (type == REMOVE && removedCharCount > 0) {
-        newContent =
-            new StringBuilder(oldContent).delete(offset, offset + removedCharCount).toString();
+        journal.remove(offset, removedCharCount);
+      }
+      if (journal.needsCompaction()) {
+        Path file = journal.getSnapshot();
+        load();
+        spill(file);
       }
+      return;
+    }
+
+    if (type == INSERT && text != null) {
+      document().insert(offset, text);
+      content = null;
+    }
+
+    if (type == REMOVE && removedCharCount > 0) {
+      document().remove(offset, removedCharCount);
+      content = null;
+    }
+  }
+
+  private EditorDocument document() {
+    loadUnchecked();
+    if (document == null) {
+      document = new EditorDocument(new String(content == null ? new byte[0] : content));
+    }
+    return document;
+  }
+
+  /**
+   * Counts the characters the content is decoded to, the same way as {@link String#String(byte[])}
+   * does, without keeping the decoded content in memory.
+   */
+  private static int charCount(byte[] content) {
+    CharsetDecoder decoder =
+        Charset.defaultCharset()
+            .newDecoder()
+            .onMalformedInput(REPLACE)
+            .onUnmappableCharacter(REPLACE);
+    ByteBuffer in = ByteBuffer.wrap(content);
+    CharBuffer out = CharBuffer.allocate(8 * 1024);
+    int count = 0;
+    while (decoder.decode(in, out, true).isOverflow()) {
+      count += out.position();
+      out.clear();
+    }
+    while (decoder.flush(out).isOverflow()) {
+      count += out.position();
+      out.clear();
+    }
+    return count + out.position();
+  }
+
+  private synchronized byte[] contentBytes() {
+    loadUnchecked();
+    if (content == null) {
+      content = document == null ? new byte[0] : document.toString().getBytes();
+    }
+    return content;
+  }
+
+  private void loadUnchecked() {
+    try {
+      load();
+    } catch (IOException e) {
+      throw new UncheckedIOException(
+          format("Can not load the content of working copy '%s'", getPath()), e);
+    }
+  }
+
+  private void load() throws IOException {
+    if (journal == null) {
+      return;
+    }
+    byte[] snapshot = journal.readSnapshot();
+    if (journal.hasChanges()) {
+      document = new EditorDocument(new String(snapshot));
+      journal.replay(document);
+      content = null;
+    } else {
+      content = snapshot;
+      document = null;
+    }
+    discardJournal();
+  }
 
-      if (newContent != null) {
-        updateContent(newContent);
+  private void discardJournal() {
+    if (journal != null) {
+      try {
+        journal.delete();
+      } catch (IOException e) {
+        LOG.warn("Can not delete files of working copy '{}': {}", getPath(), e.getMessage());
       }
+      journal = null;
     }
   }
 
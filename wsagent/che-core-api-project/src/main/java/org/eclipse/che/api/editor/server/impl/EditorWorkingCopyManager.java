@@ -12,18 +12,26 @@ package org.eclipse.che.api.editor.server.impl;
 
 import static java.io.File.separator;
 import static java.nio.charset.Charset.defaultCharset;
+import static java.util.Comparator.comparingLong;
 import static org.eclipse.che.api.project.shared.Constants.CHE_DIR;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.hash.Hashing;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.eclipse.che.api.core.ConflictException;
 import org.eclipse.che.api.core.ForbiddenException;
@@ -39,6 +47,7 @@ import org.eclipse.che.api.project.shared.dto.ServerError;
 import org.eclipse.che.api.project.shared.dto.event.FileTrackingOperationDto;
 import org.eclipse.che.api.watcher.server.detectors.FileTrackingOperationEvent;
 import org.eclipse.che.commons.annotation.Nullable;
+import org.eclipse.che.commons.schedule.ScheduleDelay;
 import org.eclipse.che.dto.server.DtoFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,6 +55,10 @@ import org.slf4j.LoggerFactory;
 /**
  * The class contains methods to simplify the work with editor working copies.
  *
+ * <p>Working copies are kept in memory within {@link #MEMORY_BUDGET_BYTES}. When they take more,
+ * the least recently used ones are moved to journals in a temporary directory and are loaded back
+ * when they are read again.
+ *
  * @author Roman Nikitenko
  */
 @Singleton
@@ -54,10 +67,14 @@ public class EditorWorkingCopyManager {
   private static final Logger LOG = LoggerFactory.getLogger(EditorWorkingCopyManager.class);
   private static final String WORKING_COPIES_DIR = "/" + CHE_DIR + "/workingCopies";
   private static final String WORKING_COPY_ERROR_METHOD = "track:editor-working-copy-error";
+  private static final long MEMORY_BUDGET_BYTES = 64 * 1024 * 1024;
 
   private final FsManager fsManager;
   private final ProjectManager projectManager;
-  private final Map<String, EditorWorkingCopy> workingCopiesStorage = new HashMap<>();
+  private final Map<String, EditorWorkingCopy> workingCopiesStorage = new ConcurrentHashMap<>();
+  private final AtomicLong spillCounter = new AtomicLong();
+  private final long memoryBudget;
+  private Path spillDir;
 
   private EventService eventService;
   private RequestTransmitter transmitter;
@@ -69,10 +86,21 @@ public class EditorWorkingCopyManager {
       RequestTransmitter transmitter,
       FsManager fsManager,
       ProjectManager projectManager) {
+    this(eventService, transmitter, fsManager, projectManager, MEMORY_BUDGET_BYTES);
+  }
+
+  @VisibleForTesting
+  EditorWorkingCopyManager(
+      EventService eventService,
+      RequestTransmitter transmitter,
+      FsManager fsManager,
+      ProjectManager projectManager,
+      long memoryBudget) {
     this.eventService = eventService;
     this.transmitter = transmitter;
     this.fsManager = fsManager;
     this.projectManager = projectManager;
+    this.memoryBudget = memoryBudget;
 
     fileOperationEventSubscriber =
         new EventSubscriber<FileTrackingOperationEvent>() {
@@ -161,7 +189,8 @@ public class EditorWorkingCopyManager {
                 fsManager.delete(workingCopyPath);
               }
             }
-            workingCopiesStorage.remove(path);
+            workingCopiesStorage.remove(path, workingCopy);
+            workingCopy.dispose();
             break;
           }
 
@@ -269,8 +298,12 @@ public class EditorWorkingCopyManager {
 
     EditorWorkingCopy workingCopy =
         new EditorWorkingCopy(workingCopyPath, projectPath, fileContentAsBytes);
-    workingCopiesStorage.put(filePath, workingCopy);
+    EditorWorkingCopy existing = workingCopiesStorage.putIfAbsent(filePath, workingCopy);
+    if (existing != null) {
+      return existing;
+    }
 
+    spillColdWorkingCopies();
     return workingCopy;
   }
 
@@ -315,8 +348,54 @@ public class EditorWorkingCopyManager {
     return path.replace('/', '.');
   }
 
+  /**
+   * Moves the least recently used working copies out of memory until the rest fit into three
+   * quarters of the memory budget. Does nothing while the budget is not exceeded.
+   */
+  @ScheduleDelay(initialDelay = 30, delay = 30)
+  synchronized void spillColdWorkingCopies() {
+    List<EditorWorkingCopy> workingCopies = new ArrayList<>(workingCopiesStorage.values());
+    long memorySize = 0;
+    for (EditorWorkingCopy workingCopy : workingCopies) {
+      memorySize += workingCopy.getMemorySize();
+    }
+    if (memorySize <= memoryBudget) {
+      return;
+    }
+
+    workingCopies.sort(comparingLong(EditorWorkingCopy::getLastAccessTime));
+    for (EditorWorkingCopy workingCopy : workingCopies) {
+      if (memorySize <= memoryBudget / 4 * 3) {
+        break;
+      }
+      long size = workingCopy.getMemorySize();
+      if (size == 0) {
+        continue;
+      }
+      try {
+        workingCopy.spill(spillDir().resolve("workingCopy-" + spillCounter.incrementAndGet()));
+        memorySize -= size;
+      } catch (IOException e) {
+        LOG.error("Can not move working copy '{}' out of memory", workingCopy.getPath(), e);
+        return;
+      }
+    }
+  }
+
+  private Path spillDir() throws IOException {
+    if (spillDir == null) {
+      spillDir = Files.createTempDirectory("che-working-copies");
+    }
+    return spillDir;
+  }
+
   @PreDestroy
   private void unsubscribe() {
     eventService.unsubscribe(fileOperationEventSubscriber);
+    synchronized (this) {
+      if (spillDir != null) {
+        FileUtils.deleteQuietly(spillDir.toFile());
+      }
+    }
   }
 }
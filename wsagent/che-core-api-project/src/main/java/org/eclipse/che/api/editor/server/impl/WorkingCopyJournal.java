@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.api.editor.server.impl;
+
+import static com.google.common.io.ByteStreams.limit;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * On-disk form of a working copy which was moved out of memory: a snapshot of the content and an
+ * append-only log of the editor changes made after the snapshot was written. The log is replayed
+ * over the snapshot when the working copy is loaded back.
+ *
+ * <p>The log is written through a single channel kept open until the journal is deleted. A record
+ * is either written completely or the log is truncated back to its previous end, and a record cut
+ * short is treated as the end of the log.
+ *
+ * <p>The class is not thread safe.
+ */
+class WorkingCopyJournal {
+
+  private static final byte INSERT = 0;
+  private static final byte REMOVE = 1;
+
+  /** Size of the log at which it is worth to write a new snapshot instead of appending to it. */
+  static final long MAX_LOG_BYTES = 1024 * 1024;
+
+  private final Path snapshot;
+  private final Path log;
+  private FileChannel logChannel;
+  private int length;
+  private long logBytes;
+
+  private WorkingCopyJournal(Path snapshot, int length) {
+    this.snapshot = snapshot;
+    this.log = snapshot.resolveSibling(snapshot.getFileName() + ".log");
+    this.length = length;
+  }
+
+  /**
+   * Writes the snapshot of a working copy.
+   *
+   * @param snapshot file to write the snapshot to
+   * @param content content of the working copy
+   * @param length length of the content in characters
+   */
+  static WorkingCopyJournal write(Path snapshot, byte[] content, int length) throws IOException {
+    Files.write(snapshot, content);
+    WorkingCopyJournal journal = new WorkingCopyJournal(snapshot, length);
+    Files.deleteIfExists(journal.log);
+    return journal;
+  }
+
+  Path getSnapshot() {
+    return snapshot;
+  }
+
+  boolean hasChanges() {
+    return logBytes > 0;
+  }
+
+  boolean needsCompaction() {
+    return logBytes > MAX_LOG_BYTES;
+  }
+
+  void insert(int offset, String text) throws IOException {
+    checkRange(offset, offset);
+    ByteBuffer record = ByteBuffer.allocate(9 + 2 * text.length());
+    record.put(INSERT).putInt(offset).putInt(text.length());
+    for (int i = 0; i < text.length(); i++) {
+      record.putChar(text.charAt(i));
+    }
+    append(record);
+    length += text.length();
+  }
+
+  void remove(int offset, int count) throws IOException {
+    // the same as the document does, the removal does not go past the end of the text
+    count = Math.min(count, length - offset);
+    checkRange(offset, offset + count);
+    ByteBuffer record = ByteBuffer.allocate(9);
+    record.put(REMOVE).putInt(offset).putInt(count);
+    append(record);
+    length -= count;
+  }
+
+  byte[] readSnapshot() throws IOException {
+    return Files.readAllBytes(snapshot);
+  }
+
+  /** Applies the logged changes to the given document. */
+  void replay(EditorDocument document) throws IOException {
+    if (!hasChanges()) {
+      return;
+    }
+    // only the completely written records are read, whatever follows them in the file
+    try (DataInputStream in =
+        new DataInputStream(
+            new BufferedInputStream(limit(Files.newInputStream(log), logBytes)))) {
+      while (true) {
+        byte type;
+        int offset;
+        int count;
+        char[] text = null;
+        try {
+          type = in.readByte();
+          offset = in.readInt();
+          count = in.readInt();
+          if (type == INSERT) {
+            text = new char[count];
+            for (int i = 0; i < count; i++) {
+              text[i] = in.readChar();
+            }
+          }
+        } catch (EOFException e) {
+          // the end of the log, possibly with a record which was not written completely
+          break;
+        }
+        if (type == INSERT) {
+          document.insert(offset, new String(text));
+        } else {
+          document.remove(offset, count);
+        }
+      }
+    }
+  }
+
+  void delete() throws IOException {
+    try {
+      closeLog();
+    } finally {
+      Files.deleteIfExists(log);
+      Files.deleteIfExists(snapshot);
+    }
+  }
+
+  /** Writes the record at the end of the log, or leaves the log as it was if that fails. */
+  private void append(ByteBuffer record) throws IOException {
+    record.flip();
+    if (logChannel == null) {
+      logChannel = FileChannel.open(log, CREATE, WRITE);
+    }
+    try {
+      long position = logBytes;
+      while (record.hasRemaining()) {
+        position += logChannel.write(record, position);
+      }
+    } catch (IOException e) {
+      try {
+        logChannel.truncate(logBytes);
+      } catch (IOException suppressed) {
+        // the tail is overwritten by the next record and is never replayed anyway
+        e.addSuppressed(suppressed);
+      }
+      throw e;
+    }
+    logBytes += record.limit();
+  }
+
+  private void closeLog() throws IOException {
+    if (logChannel != null) {
+      FileChannel channel = logChannel;
+      logChannel = null;
+      channel.close();
+    }
+  }
+
+  private void checkRange(int start, int end) {
+    if (start < 0 || start > end || end > length) {
+      throw new IndexOutOfBoundsException(
+          "Range [" + start + ", " + end + ") is out of text of length " + length);
+    }
+  }
+}
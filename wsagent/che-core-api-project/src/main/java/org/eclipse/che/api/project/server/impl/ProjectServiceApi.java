@@ -678,7 +678,8 @@ public class ProjectServiceApi {
         results.add(
             searchResultDto
                 .withItemReference(itemReference)
-                .withSearchOccurrences(searchOccurrences));
+                .withSearchOccurrences(searchOccurrences)
+                .withContentTruncated(searchResultEntry.isContentTruncated()));
       }
     }
     return results;
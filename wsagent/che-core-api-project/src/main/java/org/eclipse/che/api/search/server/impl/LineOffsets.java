@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.api.search.server.impl;
+
+import java.util.Arrays;
+
+/**
+ * Table of line start offsets of a text, built in one pass over the text. Allows resolving the line
+ * that contains a given character offset by binary search instead of rescanning the text for each
+ * offset. Lines are separated by {@code \n}, {@code \r\n} or {@code \r}.
+ */
+class LineOffsets {
+
+  private final String text;
+  private final int[] lineStarts;
+  private final int lineCount;
+
+  private LineOffsets(String text, int[] lineStarts, int lineCount) {
+    this.text = text;
+    this.lineStarts = lineStarts;
+    this.lineCount = lineCount;
+  }
+
+  /** Builds the table of line offsets for the given text. */
+  static LineOffsets of(String text) {
+    int[] lineStarts = new int[16];
+    int lineCount = 1;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '\n' || c == '\r') {
+        if (c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+          i++;
+        }
+        if (lineCount == lineStarts.length) {
+          lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+        }
+        lineStarts[lineCount++] = i + 1;
+      }
+    }
+    return new LineOffsets(text, lineStarts, lineCount);
+  }
+
+  /**
+   * Returns the number of the line which contains the given offset.
+   *
+   * @param offset character offset in the text
+   * @return line number, starting from 1
+   */
+  int lineNumber(int offset) {
+    int index = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+    return index >= 0 ? index + 1 : -index - 1;
+  }
+
+  /**
+   * Returns the content of the given line without line separator.
+   *
+   * @param lineNumber line number, starting from 1
+   */
+  String line(int lineNumber) {
+    int start = lineStarts[lineNumber - 1];
+    int end = lineNumber < lineCount ? lineStarts[lineNumber] : text.length();
+    while (end > start && (text.charAt(end - 1) == '\n' || text.charAt(end - 1) == '\r')) {
+      end--;
+    }
+    return text.substring(start, end);
+  }
+}
@@ -11,16 +11,24 @@
 package org.eclipse.che.api.search.server.impl;
 
 import static com.google.common.collect.Lists.newArrayList;
+import static java.lang.Thread.currentThread;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static org.eclipse.che.api.fs.server.WsPathUtils.nameOf;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.CharStreams;
-import java.io.BufferedReader;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.Reader;
 import java.nio.charset.MalformedInputException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -30,12 +38,26 @@ import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -44,23 +66,30 @@ import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.core.LowerCaseFilterFactory;
 import org.apache.lucene.analysis.core.WhitespaceTokenizerFactory;
 import org.apache.lucene.analysis.custom.CustomAnalyzer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.NGramTokenizerFactory;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.analysis.tokenattributes.OffsetAttribute;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StoredField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.MultiFields;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PhraseQuery;
 import org.apache.lucene.search.PrefixQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
@@ -72,9 +101,12 @@ import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.highlight.QueryScorer;
 import org.apache.lucene.search.highlight.TokenSources;
+import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.store.SingleInstanceLockFactory;
+import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.ThreadInterruptedException;
 import org.eclipse.che.api.fs.server.PathTransformer;
 import org.eclipse.che.api.project.server.impl.RootDirPathProvider;
 import org.eclipse.che.api.search.server.InvalidQueryException;
@@ -83,6 +115,7 @@ import org.eclipse.che.api.search.server.QueryExecutionException;
 import org.eclipse.che.api.search.server.QueryExpression;
 import org.eclipse.che.api.search.server.SearchResult;
 import org.eclipse.che.api.search.server.Searcher;
+import org.eclipse.che.commons.lang.concurrent.LoggingUncaughtExceptionHandler;
 import org.eclipse.che.commons.schedule.ScheduleRate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -102,21 +135,52 @@ public class LuceneSearcher implements Searcher {
   private static final String PATH_FIELD = "path";
   private static final String NAME_FIELD = "name";
   private static final String TEXT_FIELD = "text";
+  private static final String MODIFIED_FIELD = "modified";
+  private static final String SIZE_FIELD = "size";
+  private static final String FORMAT_FIELD = "format";
+  private static final String TRUNCATED_FIELD = "truncated";
+  private static final String TRIGRAM_FIELD = "text_trigram";
+
+  /** Version of the document structure, documents of other versions are re-indexed on start. */
+  private static final int INDEX_FORMAT = 1;
+
+  /** Text query looking for a literal at any position of a content, e.g. {@code *getFoo*}. */
+  private static final Pattern SUBSTRING_QUERY = Pattern.compile("^\\*([\\w.$]{3,})\\*$");
+
+  private static final int INDEXING_THREADS =
+      Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+  private static final int INDEXING_QUEUE_SIZE = 1_000;
+  private static final int INDEXING_PROGRESS_STEP = 10_000;
+  private static final int PAGE_CURSORS_LIMIT = 100;
+  private static final long CLOSE_TIMEOUT_MILLIS = 10_000;
+
+  /** Size of the first block of a file that is checked to detect binary content. */
+  private static final int SNIFF_BLOCK_SIZE = 8 * 1024;
 
   private final Set<PathMatcher> excludePatterns;
   private final PathTransformer pathTransformer;
 
   private final Path root;
+  private final long maxFileSize;
+  private final AtomicLong skippedBytes = new AtomicLong();
+  private final AtomicLong truncatedFiles = new AtomicLong();
+  private final AtomicLong binaryFiles = new AtomicLong();
   private final IndexWriter luceneIndexWriter;
   private final SearcherManager searcherManager;
   private final Analyzer analyzer;
+  private final Analyzer trigramAnalyzer;
   private final CountDownLatch initialIndexingLatch = new CountDownLatch(1);
+  private volatile long initiallyIndexedFiles;
+  private volatile boolean closed;
+  private Thread initializer;
   private final Sort sort;
+  private final Cache<PageKey, ScoreDoc> pageCursors;
 
   @Inject
   public LuceneSearcher(
       @Named("vfs.index_filter_matcher") Set<PathMatcher> excludePatterns,
       @Named("vfs.local.fs_index_root_dir") File indexDirectory,
+      @Named("vfs.local.fs_index_max_file_size_bytes") long maxFileSize,
       RootDirPathProvider pathProvider,
       PathTransformer pathTransformer)
       throws IOException {
@@ -130,6 +194,7 @@ public class LuceneSearcher implements Searcher {
     }
 
     this.root = Paths.get(pathProvider.get());
+    this.maxFileSize = maxFileSize;
     this.excludePatterns = excludePatterns;
     this.pathTransformer = pathTransformer;
     this.analyzer =
@@ -137,26 +202,59 @@ public class LuceneSearcher implements Searcher {
             .withTokenizer(WhitespaceTokenizerFactory.class)
             .addTokenFilter(LowerCaseFilterFactory.class)
             .build();
+    this.trigramAnalyzer =
+        CustomAnalyzer.builder()
+            .withTokenizer(NGramTokenizerFactory.class, "minGramSize", "3", "maxGramSize", "3")
+            .addTokenFilter(LowerCaseFilterFactory.class)
+            .build();
+    Map<String, Analyzer> fieldAnalyzers = new HashMap<>();
+    fieldAnalyzers.put(TRIGRAM_FIELD, trigramAnalyzer);
     this.luceneIndexWriter =
         new IndexWriter(
             FSDirectory.open(indexDirectory.toPath(), new SingleInstanceLockFactory()),
-            new IndexWriterConfig(analyzer));
+            new IndexWriterConfig(new PerFieldAnalyzerWrapper(analyzer, fieldAnalyzers)));
     this.searcherManager =
         new SearcherManager(luceneIndexWriter, true, true, new SearcherFactory());
     this.sort = new Sort(SortField.FIELD_SCORE, new SortField(PATH_FIELD, SortField.Type.STRING));
+    this.pageCursors =
+        CacheBuilder.newBuilder()
+            .maximumSize(PAGE_CURSORS_LIMIT)
+            .expireAfterAccess(5, MINUTES)
+            .build();
   }
 
   @PostConstruct
   @VisibleForTesting
   void initialize() {
-    Thread initializer =
+    initializer =
         new Thread(
             () -> {
               try {
                 long start = System.currentTimeMillis();
-                add(root);
+                Map<String, FileStamp> stamps = readIndexedStamps();
+                long indexed = addTree(root, stamps);
+                if (closed) {
+                  // not visited documents are not known to be stale
+                  LOG.info("Initial indexing is stopped, searcher is closed");
+                  return;
+                }
+                initiallyIndexedFiles = indexed;
+                removeFromIndex(stamps.keySet());
+                luceneIndexWriter.commit();
                 LOG.info(
-                    "Initial indexing complete after {} msec ", System.currentTimeMillis() - start);
+                    "Initial indexing complete after {} msec, {} files (re)indexed, {} removed ",
+                    System.currentTimeMillis() - start,
+                    indexed,
+                    stamps.size());
+                LOG.info(
+                    "Content of {} binary files and {} bytes of {} truncated files is not indexed",
+                    binaryFiles.get(),
+                    skippedBytes.get(),
+                    truncatedFiles.get());
+              } catch (IOException e) {
+                LOG.warn("Initial indexing failed because {} ", e.getMessage());
+              } catch (AlreadyClosedException | ThreadInterruptedException e) {
+                LOG.info("Initial indexing is stopped, searcher is closed");
               } finally {
                 initialIndexingLatch.countDown();
               }
@@ -166,6 +264,28 @@ public class LuceneSearcher implements Searcher {
     initializer.start();
   }
 
+  @PreDestroy
+  @VisibleForTesting
+  void close() throws IOException {
+    closed = true;
+    if (initializer != null) {
+      initializer.interrupt();
+      try {
+        initializer.join(CLOSE_TIMEOUT_MILLIS);
+      } catch (InterruptedException e) {
+        currentThread().interrupt();
+      }
+    }
+    searcherManager.close();
+    luceneIndexWriter.close();
+  }
+
+  /** Returns the number of files (re)indexed by the initial indexing. */
+  @VisibleForTesting
+  long getInitiallyIndexedFiles() {
+    return initiallyIndexedFiles;
+  }
+
   @VisibleForTesting
   CountDownLatch getInitialIndexingLatch() {
     return initialIndexingLatch;
@@ -173,7 +293,14 @@ public class LuceneSearcher implements Searcher {
 
   @ScheduleRate(period = 30, initialDelay = 30)
   private void commitIndex() throws IOException {
-    luceneIndexWriter.commit();
+    if (closed) {
+      return;
+    }
+    try {
+      luceneIndexWriter.commit();
+    } catch (AlreadyClosedException e) {
+      LOG.debug("Index is closed, changes are not committed");
+    }
   }
 
   @Override
@@ -185,12 +312,19 @@ public class LuceneSearcher implements Searcher {
       searcherManager.maybeRefresh();
       luceneSearcher = searcherManager.acquire();
 
-      Query luceneQuery = createLuceneQuery(query);
+      Query luceneQuery = createLuceneQuery(query, true);
+      Query highlightQuery = null;
 
       ScoreDoc after = null;
       final int numSkipDocs = Math.max(0, query.getSkipCount());
+      IndexReader indexReader = luceneSearcher.getIndexReader();
+      // searcher manager opens directory readers only
+      long indexVersion = ((DirectoryReader) indexReader).getVersion();
       if (numSkipDocs > 0) {
-        after = skipScoreDocs(luceneSearcher, luceneQuery, numSkipDocs);
+        after = pageCursors.getIfPresent(new PageKey(indexVersion, luceneQuery, numSkipDocs));
+        if (after == null) {
+          after = skipScoreDocs(luceneSearcher, luceneQuery, numSkipDocs);
+        }
       }
 
       final int numDocs =
@@ -208,12 +342,10 @@ public class LuceneSearcher implements Searcher {
           offsetData = new ArrayList<>();
           String txt = doc.get(TEXT_FIELD);
           if (txt != null) {
-            IndexReader reader = luceneSearcher.getIndexReader();
-
             TokenStream tokenStream =
                 TokenSources.getTokenStream(
                     TEXT_FIELD,
-                    reader.getTermVectors(docId),
+                    indexReader.getTermVectors(docId),
                     txt,
                     luceneIndexWriter.getAnalyzer(),
                     -1);
@@ -221,7 +353,10 @@ public class LuceneSearcher implements Searcher {
             CharTermAttribute termAtt = tokenStream.addAttribute(CharTermAttribute.class);
             OffsetAttribute offsetAtt = tokenStream.addAttribute(OffsetAttribute.class);
 
-            QueryScorer queryScorer = new QueryScorer(luceneQuery);
+            if (highlightQuery == null) {
+              highlightQuery = createLuceneQuery(query, false);
+            }
+            QueryScorer queryScorer = new QueryScorer(highlightQuery);
             // TODO think about this constant
             queryScorer.setMaxDocCharsToAnalyze(1_000_000);
             TokenStream newStream = queryScorer.init(tokenStream);
@@ -232,6 +367,7 @@ public class LuceneSearcher implements Searcher {
 
             tokenStream.reset();
 
+            LineOffsets lineOffsets = null;
             int startOffset, endOffset;
             // TODO think about this constant
             for (boolean next = tokenStream.incrementToken();
@@ -251,19 +387,11 @@ public class LuceneSearcher implements Searcher {
               float res = queryScorer.getTokenScore();
               if (res > 0.0F && startOffset <= endOffset) {
                 String tokenText = txt.substring(startOffset, endOffset);
-                Scanner sc = new Scanner(txt);
-                int lineNum = 1;
-                long len = 0;
-                String foundLine = "";
-                while (sc.hasNextLine()) {
-                  foundLine = sc.nextLine();
-
-                  len += foundLine.length();
-                  if (len > startOffset) {
-                    break;
-                  }
-                  lineNum++;
+                if (lineOffsets == null) {
+                  lineOffsets = LineOffsets.of(txt);
                 }
+                int lineNum = lineOffsets.lineNumber(startOffset);
+                String foundLine = lineOffsets.line(lineNum);
                 offsetData.add(
                     new OffsetData(tokenText, startOffset, endOffset, res, lineNum, foundLine));
               }
@@ -273,7 +401,8 @@ public class LuceneSearcher implements Searcher {
 
         String filePath = doc.getField(PATH_FIELD).stringValue();
         LOG.debug("Doc {} path {} score {} ", docId, filePath, scoreDoc.score);
-        results.add(new SearchResultEntry(filePath, offsetData));
+        boolean truncated = doc.getField(TRUNCATED_FIELD) != null;
+        results.add(new SearchResultEntry(filePath, offsetData, truncated));
       }
 
       final long elapsedTimeMillis = System.currentTimeMillis() - startTime;
@@ -281,8 +410,11 @@ public class LuceneSearcher implements Searcher {
       boolean hasMoreToRetrieve = numSkipDocs + topDocs.scoreDocs.length + 1 < totalHitsNum;
       QueryExpression nextPageQueryExpression = null;
       if (hasMoreToRetrieve) {
-        nextPageQueryExpression =
-            createNextPageQuery(query, numSkipDocs + topDocs.scoreDocs.length);
+        int nextSkipCount = numSkipDocs + topDocs.scoreDocs.length;
+        nextPageQueryExpression = createNextPageQuery(query, nextSkipCount);
+        pageCursors.put(
+            new PageKey(indexVersion, luceneQuery, nextSkipCount),
+            topDocs.scoreDocs[topDocs.scoreDocs.length - 1]);
       }
 
       return SearchResult.aSearchResult()
@@ -304,7 +436,17 @@ public class LuceneSearcher implements Searcher {
     }
   }
 
-  private Query createLuceneQuery(QueryExpression query) throws ParseException, IOException {
+  /**
+   * Creates lucene query from the given expression.
+   *
+   * @param query query expression
+   * @param optimize if {@code true} substring text queries are executed against trigrams of the
+   *     content rather than against whole words of it, which are equal by matched documents but
+   *     the former does not need to scan whole terms dictionary. Such a query can't be used for
+   *     highlighting of the words found by the query though
+   */
+  private Query createLuceneQuery(QueryExpression query, boolean optimize)
+      throws ParseException, IOException {
     BooleanQuery.Builder luceneQueryBuilder = new BooleanQuery.Builder();
     final String name = query.getName();
     final String path = query.getPath();
@@ -317,7 +459,10 @@ public class LuceneSearcher implements Searcher {
       qParser.setAllowLeadingWildcard(true);
       luceneQueryBuilder.add(qParser.parse(name), BooleanClause.Occur.MUST);
     }
-    if (text != null) {
+    Query substringQuery = optimize && text != null ? createSubstringQuery(text) : null;
+    if (substringQuery != null) {
+      luceneQueryBuilder.add(substringQuery, BooleanClause.Occur.MUST);
+    } else if (text != null) {
       QueryParser qParser = new QueryParser(TEXT_FIELD, analyzer);
       qParser.setAllowLeadingWildcard(true);
       luceneQueryBuilder.add(qParser.parse(text), BooleanClause.Occur.MUST);
@@ -325,6 +470,32 @@ public class LuceneSearcher implements Searcher {
     return luceneQueryBuilder.build();
   }
 
+  /**
+   * Creates a query that finds documents containing the literal of a {@link #SUBSTRING_QUERY} as a
+   * sequence of adjacent trigrams. The literal doesn't contain whitespaces, so it's found in a
+   * content if and only if a whitespace separated word of this content contains it.
+   *
+   * @return trigrams query or {@code null} if the given text isn't a substring query
+   */
+  private Query createSubstringQuery(String text) throws IOException {
+    Matcher matcher = SUBSTRING_QUERY.matcher(text);
+    if (!matcher.matches()) {
+      return null;
+    }
+    PhraseQuery.Builder phraseQueryBuilder = new PhraseQuery.Builder();
+    try (TokenStream tokenStream = trigramAnalyzer.tokenStream(TRIGRAM_FIELD, matcher.group(1))) {
+      CharTermAttribute termAtt = tokenStream.addAttribute(CharTermAttribute.class);
+      tokenStream.reset();
+      int position = 0;
+      while (tokenStream.incrementToken()) {
+        phraseQueryBuilder.add(new Term(TRIGRAM_FIELD, termAtt.toString()), position++);
+      }
+      tokenStream.end();
+    }
+    // keep scoring consistent with wildcard query which is constant score
+    return new ConstantScoreQuery(phraseQueryBuilder.build());
+  }
+
   private ScoreDoc skipScoreDocs(IndexSearcher luceneSearcher, Query luceneQuery, int numSkipDocs)
       throws IOException {
     final int readFrameSize = Math.min(numSkipDocs, RESULT_LIMIT);
@@ -386,6 +557,160 @@ public class LuceneSearcher implements Searcher {
     }
   }
 
+  /**
+   * Reads modification stamps of all documents that are already in the index, the index directory
+   * is kept between agent restarts so most of the documents are usually still up to date.
+   *
+   * @return mutable map of workspace paths to their indexed stamps
+   */
+  private Map<String, FileStamp> readIndexedStamps() throws IOException {
+    Map<String, FileStamp> stamps = new ConcurrentHashMap<>();
+    Set<String> fieldsToLoad =
+        new HashSet<>(Arrays.asList(PATH_FIELD, MODIFIED_FIELD, SIZE_FIELD, FORMAT_FIELD));
+    IndexSearcher luceneSearcher = null;
+    try {
+      searcherManager.maybeRefresh();
+      luceneSearcher = searcherManager.acquire();
+      IndexReader reader = luceneSearcher.getIndexReader();
+      Bits liveDocs = MultiFields.getLiveDocs(reader);
+      for (int docId = 0; docId < reader.maxDoc(); docId++) {
+        if (liveDocs != null && !liveDocs.get(docId)) {
+          continue;
+        }
+        Document doc = reader.document(docId, fieldsToLoad);
+        String wsPath = doc.get(PATH_FIELD);
+        if (wsPath != null && !isCurrentFormat(doc)) {
+          stamps.put(wsPath, new FileStamp(-1, -1));
+        } else if (wsPath != null) {
+          stamps.put(
+              wsPath,
+              new FileStamp(
+                  doc.getField(MODIFIED_FIELD) == null
+                      ? -1
+                      : doc.getField(MODIFIED_FIELD).numericValue().longValue(),
+                  doc.getField(SIZE_FIELD) == null
+                      ? -1
+                      : doc.getField(SIZE_FIELD).numericValue().longValue()));
+        }
+      }
+    } finally {
+      searcherManager.release(luceneSearcher);
+    }
+    LOG.debug("Found {} documents in existing index", stamps.size());
+    return stamps;
+  }
+
+  private boolean isCurrentFormat(Document doc) {
+    return doc.getField(FORMAT_FIELD) != null
+        && doc.getField(FORMAT_FIELD).numericValue().intValue() == INDEX_FORMAT;
+  }
+
+  private void removeFromIndex(Set<String> wsPaths) throws IOException {
+    if (wsPaths.isEmpty()) {
+      return;
+    }
+    Term[] terms = wsPaths.stream().map(it -> new Term(PATH_FIELD, it)).toArray(Term[]::new);
+    luceneIndexWriter.deleteDocuments(terms);
+  }
+
+  /**
+   * Indexes the whole tree under the given directory. The tree is walked on the calling thread
+   * while documents are read, tokenized and added to the index by a pool of indexing threads, the
+   * pool's work queue is bounded so the walker is throttled when indexing can't keep up with it.
+   *
+   * <p>Files which are present in {@code indexedStamps} with the same modification time and size
+   * are considered up to date and are not read again. Every visited entry is removed from {@code
+   * indexedStamps}, so after the walk it contains only the documents which no longer correspond to
+   * indexable files.
+   *
+   * @param fsPath directory to index
+   * @param indexedStamps stamps of the documents already present in the index
+   * @return number of files sent to indexing
+   */
+  private long addTree(Path fsPath, Map<String, FileStamp> indexedStamps) {
+    ThreadFactory factory =
+        new ThreadFactoryBuilder()
+            .setUncaughtExceptionHandler(LoggingUncaughtExceptionHandler.getInstance())
+            .setNameFormat("LuceneSearcherIndexer-%d")
+            .setDaemon(true)
+            .build();
+    ExecutorService indexers =
+        new ThreadPoolExecutor(
+            INDEXING_THREADS,
+            INDEXING_THREADS,
+            0L,
+            MILLISECONDS,
+            new ArrayBlockingQueue<>(INDEXING_QUEUE_SIZE),
+            factory,
+            new CallerRunsPolicy());
+    AtomicLong indexed = new AtomicLong();
+    try {
+      Files.walkFileTree(
+          fsPath,
+          new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+              if (closed) {
+                return FileVisitResult.TERMINATE;
+              }
+              if (!isNotExcluded(file)) {
+                return FileVisitResult.CONTINUE;
+              }
+              FileStamp stamp = indexedStamps.remove(pathTransformer.transform(file));
+              long modified = attrs.lastModifiedTime().toMillis();
+              if (stamp != null && stamp.equals(new FileStamp(modified, attrs.size()))) {
+                return FileVisitResult.CONTINUE;
+              }
+              indexers.execute(
+                  () -> {
+                    if (closed) {
+                      return;
+                    }
+                    addFile(file);
+                    long count = indexed.incrementAndGet();
+                    if (count % INDEXING_PROGRESS_STEP == 0) {
+                      LOG.info("Indexed {} files", count);
+                    }
+                  });
+              return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+              LOG.warn("Not able to index {} because {} ", file.toString(), exc.getMessage());
+              return FileVisitResult.CONTINUE;
+            }
+          });
+    } catch (IOException e) {
+      LOG.warn("Not able to index {} because {} ", fsPath.toString(), e.getMessage());
+    } finally {
+      indexers.shutdown();
+      // indexers are not interrupted as they write to the index, once the searcher is closed
+      // they skip the queued files and terminate soon
+      boolean interrupted = false;
+      while (!indexers.isTerminated()) {
+        try {
+          indexers.awaitTermination(Long.MAX_VALUE, MILLISECONDS);
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        currentThread().interrupt();
+      }
+    }
+
+    try {
+      printStatistic();
+    } catch (IOException e) {
+      LOG.warn(
+          "Can't commit changes to index for: {} because {} ",
+          fsPath.toAbsolutePath().toString(),
+          e.getMessage());
+    }
+    return indexed.get();
+  }
+
   private void addFile(Path fsPath) {
     if (!fsPath.toFile().exists()) {
       return;
@@ -397,17 +722,48 @@ public class LuceneSearcher implements Searcher {
     String wsPath = pathTransformer.transform(fsPath);
     LOG.debug("Adding file {} ", wsPath);
 
-    try (Reader reader =
-        new BufferedReader(new InputStreamReader(new FileInputStream(fsPath.toFile()), "utf-8"))) {
+    // stamp is taken before reading so that concurrent modification is detected on next start,
+    // from the same attributes as the stamps it is compared with there
+    BasicFileAttributes attrs;
+    try {
+      attrs = Files.readAttributes(fsPath, BasicFileAttributes.class);
+    } catch (IOException e) {
+      LOG.warn("Can't index file: {}", wsPath);
+      return;
+    }
+    long modified = attrs.lastModifiedTime().toMillis();
+    long size = attrs.size();
+    File file = fsPath.toFile();
+    try (InputStream content =
+        new BufferedInputStream(new FileInputStream(file), SNIFF_BLOCK_SIZE)) {
       String name = nameOf(wsPath);
       Document doc = new Document();
       doc.add(new StringField(PATH_FIELD, wsPath, Field.Store.YES));
       doc.add(new SortedDocValuesField(PATH_FIELD, new BytesRef(wsPath)));
       doc.add(new TextField(NAME_FIELD, name, Field.Store.YES));
-      try {
-        doc.add(new TextField(TEXT_FIELD, CharStreams.toString(reader), Field.Store.YES));
-      } catch (MalformedInputException e) {
-        LOG.warn("Can't index file: {}", wsPath);
+      doc.add(new StoredField(MODIFIED_FIELD, modified));
+      doc.add(new StoredField(SIZE_FIELD, size));
+      doc.add(new StoredField(FORMAT_FIELD, INDEX_FORMAT));
+      if (isBinary(content)) {
+        LOG.debug("Content of file {} is binary and is not indexed", wsPath);
+        binaryFiles.incrementAndGet();
+        skippedBytes.addAndGet(size);
+      } else {
+        if (size > maxFileSize) {
+          LOG.debug("Only first {} bytes of file {} are indexed", maxFileSize, wsPath);
+          truncatedFiles.incrementAndGet();
+          skippedBytes.addAndGet(size - maxFileSize);
+          doc.add(new StoredField(TRUNCATED_FIELD, 1));
+        }
+        try {
+          String text =
+              CharStreams.toString(
+                  new InputStreamReader(ByteStreams.limit(content, maxFileSize), UTF_8));
+          doc.add(new TextField(TEXT_FIELD, text, Field.Store.YES));
+          doc.add(new TextField(TRIGRAM_FIELD, text, Field.Store.NO));
+        } catch (MalformedInputException e) {
+          LOG.warn("Can't index file: {}", wsPath);
+        }
       }
       luceneIndexWriter.updateDocument(new Term(PATH_FIELD, wsPath), doc);
 
@@ -416,6 +772,23 @@ public class LuceneSearcher implements Searcher {
     }
   }
 
+  /**
+   * Checks whether the first block of the given stream contains zero bytes, which text files don't
+   * contain. The stream is reset to the initial position after the check.
+   */
+  private boolean isBinary(InputStream content) throws IOException {
+    byte[] block = new byte[SNIFF_BLOCK_SIZE];
+    content.mark(SNIFF_BLOCK_SIZE);
+    int length = ByteStreams.read(content, block, 0, SNIFF_BLOCK_SIZE);
+    content.reset();
+    for (int i = 0; i < length; i++) {
+      if (block[i] == 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   @Override
   public final void delete(Path fsPath) {
 
@@ -472,4 +845,69 @@ public class LuceneSearcher implements Searcher {
     }
     return true;
   }
+
+  /** Modification time and size of an indexed file. */
+  private static class FileStamp {
+    private final long modified;
+    private final long size;
+
+    private FileStamp(long modified, long size) {
+      this.modified = modified;
+      this.size = size;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof FileStamp)) {
+        return false;
+      }
+      FileStamp other = (FileStamp) obj;
+      return modified == other.modified && size == other.size;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(modified, size);
+    }
+  }
+
+  /**
+   * Identifies the position in results of a query after which the next page starts. Document
+   * identifiers are only valid within the same version of the index, so the version is a part of
+   * the key and the cursor is not reused once the searcher is refreshed. The reader itself is not
+   * referenced, so the cache does not keep closed readers in memory.
+   */
+  private static class PageKey {
+    private final long indexVersion;
+    private final Query query;
+    private final int skipCount;
+
+    private PageKey(long indexVersion, Query query, int skipCount) {
+      this.indexVersion = indexVersion;
+      this.query = query;
+      this.skipCount = skipCount;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof PageKey)) {
+        return false;
+      }
+      PageKey other = (PageKey) obj;
+      return indexVersion == other.indexVersion
+          && skipCount == other.skipCount
+          && Objects.equals(query, other.query);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(indexVersion, query, skipCount);
+    }
+  }
 }
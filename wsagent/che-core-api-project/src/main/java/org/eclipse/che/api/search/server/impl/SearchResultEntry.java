@@ -19,9 +19,16 @@ public class SearchResultEntry {
 
   private final List<OffsetData> data;
 
+  private final boolean contentTruncated;
+
   public SearchResultEntry(String filePath, List<OffsetData> data) {
+    this(filePath, data, false);
+  }
+
+  public SearchResultEntry(String filePath, List<OffsetData> data, boolean contentTruncated) {
     this.filePath = filePath;
     this.data = data;
+    this.contentTruncated = contentTruncated;
   }
 
   public List<OffsetData> getData() {
@@ -33,6 +40,14 @@ public class SearchResultEntry {
     return filePath;
   }
 
+  /**
+   * Whether only the beginning of the file content is indexed, so the text searched for may occur
+   * in the file even if it is not found.
+   */
+  public boolean isContentTruncated() {
+    return contentTruncated;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -44,6 +59,9 @@ public class SearchResultEntry {
 
     SearchResultEntry that = (SearchResultEntry) o;
 
+    if (isContentTruncated() != that.isContentTruncated()) {
+      return false;
+    }
     if (getFilePath() != null
         ? !getFilePath().equals(that.getFilePath())
         : that.getFilePath() != null) {
@@ -56,11 +74,20 @@ public class SearchResultEntry {
   public int hashCode() {
     int result = getFilePath() != null ? getFilePath().hashCode() : 0;
     result = 31 * result + (getData() != null ? getData().hashCode() : 0);
+    result = 31 * result + (isContentTruncated() ? 1 : 0);
     return result;
   }
 
   @Override
   public String toString() {
-    return "SearchResultEntry{" + "filePath='" + filePath + '\'' + ", data=" + data + '}';
+    return "SearchResultEntry{"
+        + "filePath='"
+        + filePath
+        + '\''
+        + ", data="
+        + data
+        + ", contentTruncated="
+        + contentTruncated
+        + '}';
   }
 }
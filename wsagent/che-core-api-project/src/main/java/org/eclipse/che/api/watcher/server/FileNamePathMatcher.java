@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.api.watcher.server;
+
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+
+/**
+ * Path matcher that matches file system items with specific file name and, optionally, an
+ * additional condition. Unlike an arbitrary {@link PathMatcher} registered in {@link
+ * FileWatcherManager#registerByMatcher}, such matcher is looked up by the name of a changed item
+ * instead of being evaluated against every change, so it should be preferred whenever the name of
+ * the watched item is known in advance.
+ */
+public class FileNamePathMatcher implements PathMatcher {
+
+  private final String fileName;
+  private final PathMatcher condition;
+
+  private FileNamePathMatcher(String fileName, PathMatcher condition) {
+    this.fileName = fileName;
+    this.condition = condition;
+  }
+
+  /**
+   * Creates matcher of items with the given name.
+   *
+   * @param fileName name of the matched items
+   */
+  public static FileNamePathMatcher fileName(String fileName) {
+    return new FileNamePathMatcher(fileName, it -> true);
+  }
+
+  /**
+   * Creates matcher of items with the given name that also satisfy the given condition.
+   *
+   * @param fileName name of the matched items
+   * @param condition additional condition which is checked only for the items with the given name
+   */
+  public static FileNamePathMatcher fileName(String fileName, PathMatcher condition) {
+    return new FileNamePathMatcher(fileName, condition);
+  }
+
+  public String getFileName() {
+    return fileName;
+  }
+
+  @Override
+  public boolean matches(Path path) {
+    Path name = path.getFileName();
+    return name != null && fileName.equals(name.toString()) && condition.matches(path);
+  }
+
+  @Override
+  public String toString() {
+    return "FileNamePathMatcher{fileName='" + fileName + "'}";
+  }
+}
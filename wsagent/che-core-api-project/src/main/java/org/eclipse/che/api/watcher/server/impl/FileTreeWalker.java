@@ -10,24 +10,32 @@
  */
 package org.eclipse.che.api.watcher.server.impl;
 
-import static java.nio.file.FileVisitResult.CONTINUE;
-import static java.nio.file.FileVisitResult.SKIP_SUBTREE;
-import static java.nio.file.Files.exists;
-import static java.nio.file.Files.walkFileTree;
-import static java.util.stream.Collectors.toSet;
+import static java.nio.file.LinkOption.NOFOLLOW_LINKS;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.inject.Inject;
 import java.io.IOException;
-import java.nio.file.FileVisitResult;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
-import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent.Kind;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import javax.annotation.PostConstruct;
 import javax.inject.Named;
@@ -38,14 +46,25 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Walks a file system tree, register addition, update and removal of file system items. On events
- * runs corresponding consumers that can be registered in DI configuration modules.
+ * Keeps the state of a file system tree, register addition, update and removal of file system
+ * items. On events runs corresponding consumers that can be registered in DI configuration modules.
+ *
+ * <p>Directories of the tree are watched by {@link FileWatcherService}, which events are journaled
+ * and applied to the tree periodically, so only the directories with changed entries are read
+ * again. Directories which could not be watched are read on each run, and the directories which
+ * events overflowed are read again with their whole subtree.
  */
 @Singleton
 public class FileTreeWalker {
   private static final Logger LOG = LoggerFactory.getLogger(FileTreeWalker.class);
 
+  /** Max number of directories registered in watcher, the rest of directories is read each run */
+  @VisibleForTesting static final int MAX_WATCHED_DIRECTORIES = 4096;
+  /** Max number of journaled events, the whole tree is read again if the journal overflows */
+  @VisibleForTesting static final int MAX_JOURNAL_SIZE = 100_000;
+
   private final Path root;
+  private final FileWatcherService fileWatcherService;
 
   private final Set<Consumer<Path>> directoryUpdateConsumers;
   private final Set<Consumer<Path>> directoryCreateConsumers;
@@ -57,14 +76,22 @@ public class FileTreeWalker {
   private final Set<Consumer<Path>> fileDeleteConsumers;
   private final Set<PathMatcher> fileExcludes;
 
-  private final Map<Path, Long> files = new HashMap<>();
-  private final Map<Path, Long> directories = new HashMap<>();
+  /** Events of watched directories, filled by watching thread and drained by the walk */
+  private final Queue<Change> journal = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger journalSize = new AtomicInteger();
+  private volatile boolean journalOverflowed;
+
+  private final Node tree = new Node(true);
+  /** Directories of the tree that are not watched, so they are read on each walk */
+  private final Map<Path, Node> unwatchedDirectories = new HashMap<>();
 
+  private int watchedDirectories;
   private boolean initialized;
 
   @Inject
   public FileTreeWalker(
       RootDirPathProvider pathProvider,
+      FileWatcherService fileWatcherService,
       @Named("che.fs.directory.update") Set<Consumer<Path>> directoryUpdateConsumers,
       @Named("che.fs.directory.create") Set<Consumer<Path>> directoryCreateConsumers,
       @Named("che.fs.directory.delete") Set<Consumer<Path>> directoryDeleteConsumers,
@@ -74,6 +101,7 @@ public class FileTreeWalker {
       @Named("che.fs.file.delete") Set<Consumer<Path>> fileDeleteConsumers,
       @Named("che.fs.file.excludes") Set<PathMatcher> fileExcludes) {
     this.root = Paths.get(pathProvider.get());
+    this.fileWatcherService = fileWatcherService;
 
     this.directoryUpdateConsumers = directoryUpdateConsumers;
     this.directoryCreateConsumers = directoryCreateConsumers;
@@ -89,120 +117,285 @@ public class FileTreeWalker {
 
   @PostConstruct
   void initialize() {
-    try {
-      walkFileTree(
-          root,
-          new SimpleFileVisitor<Path>() {
-            @Override
-            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
-              for (PathMatcher matcher : directoryExcludes) {
-                if (matcher.matches(dir)) {
-                  return SKIP_SUBTREE;
-                }
-              }
-
-              directories.put(dir, attrs.lastModifiedTime().toMillis());
-
-              return CONTINUE;
-            }
-
-            @Override
-            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-              for (PathMatcher matcher : fileExcludes) {
-                if (matcher.matches(file)) {
-                  return CONTINUE;
-                }
-              }
-
-              files.put(file, attrs.lastModifiedTime().toMillis());
-
-              return CONTINUE;
-            }
-          });
-    } catch (IOException e) {
-      LOG.error("Error while walking file tree", e);
-    }
+    fileWatcherService.addChangeListener(this::record);
 
+    watch(tree, root);
+    read(tree, root, true, new Changes(false));
     initialized = true;
   }
 
+  /**
+   * Applies the journaled events to the tree. Directory of a created or deleted entry is read
+   * again, a modified entry is checked alone, and a directory which events overflowed is read again
+   * with its whole subtree. Directories which are not watched are read each time.
+   */
   @ScheduleRate(period = 10)
   void walk() {
     if (!initialized) {
       return;
     }
 
+    LOG.debug("Tree walk started");
+    Set<Path> rescanned = new LinkedHashSet<>();
+    Set<Path> reread = new LinkedHashSet<>();
+    Set<Path> modified = new LinkedHashSet<>();
+    if (journalOverflowed) {
+      journalOverflowed = false;
+      rescanned.add(root);
+    }
+    for (Change change; (change = journal.poll()) != null; ) {
+      journalSize.decrementAndGet();
+      if (change.kind == OVERFLOW) {
+        rescanned.add(change.path);
+      } else if (change.kind == ENTRY_MODIFY) {
+        modified.add(change.path);
+      } else {
+        reread.add(change.path.getParent());
+      }
+    }
+    reread.addAll(unwatchedDirectories.keySet());
+
+    Changes changes = new Changes(true);
+    rescanned.forEach(dir -> refresh(dir, true, changes));
+    reread.forEach(dir -> refresh(dir, false, changes));
+    modified.forEach(path -> update(path, changes));
+    changes.notifyDeleted();
+    LOG.debug("Tree walk finished");
+  }
+
+  private void record(Path path, Kind<?> kind) {
+    if (journalSize.incrementAndGet() > MAX_JOURNAL_SIZE) {
+      journalSize.decrementAndGet();
+      journalOverflowed = true;
+      return;
+    }
+    journal.add(new Change(path, kind));
+  }
+
+  /** Checks the directory itself and reads its entries, skips directories unknown to the tree. */
+  private void refresh(Path dir, boolean recursive, Changes changes) {
+    Node node = find(dir);
+    if (node == null || !node.directory) {
+      return;
+    }
+
+    update(dir, changes);
+    read(node, dir, recursive, changes);
+  }
+
+  /** Checks whether the known item is modified, skips items unknown to the tree. */
+  private void update(Path path, Changes changes) {
+    Node node = find(path);
+    if (node == null || node == tree) {
+      return;
+    }
+
+    BasicFileAttributes attrs;
     try {
-      LOG.debug("Tree walk started");
-
-      Set<Path> deletedFiles = files.keySet().stream().filter(it -> !exists(it)).collect(toSet());
-      fileDeleteConsumers.forEach(deletedFiles::forEach);
-      files.keySet().removeAll(deletedFiles);
-
-      Set<Path> deletedDirectories =
-          directories.keySet().stream().filter(it -> !exists(it)).collect(toSet());
-      directoryDeleteConsumers.forEach(deletedDirectories::forEach);
-      directories.keySet().removeAll(deletedDirectories);
-
-      walkFileTree(
-          root,
-          new SimpleFileVisitor<Path>() {
-            @Override
-            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
-                throws IOException {
-              for (PathMatcher matcher : directoryExcludes) {
-                if (matcher.matches(dir)) {
-                  return SKIP_SUBTREE;
-                }
-              }
-
-              updateFsTreeAndAcceptConsumables(
-                  directories, directoryUpdateConsumers, directoryCreateConsumers, dir, attrs);
-
-              return CONTINUE;
-            }
-
-            @Override
-            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-              for (PathMatcher matcher : fileExcludes) {
-                if (matcher.matches(file)) {
-                  return CONTINUE;
-                }
-              }
-
-              updateFsTreeAndAcceptConsumables(
-                  files, fileUpdateConsumers, fileCreateConsumers, file, attrs);
-
-              return CONTINUE;
-            }
-          });
-      LOG.debug("Tree walk finished");
+      attrs = Files.readAttributes(path, BasicFileAttributes.class, NOFOLLOW_LINKS);
+    } catch (IOException e) {
+      // deletion is found when parent directory is read
+      return;
+    }
+
+    if (attrs.isDirectory() != node.directory) {
+      refresh(path.getParent(), false, changes);
+    } else if (node.lastModified != attrs.lastModifiedTime().toMillis()) {
+      node.lastModified = attrs.lastModifiedTime().toMillis();
+      changes.updated(path, node.directory);
+    }
+  }
+
+  /**
+   * Compares entries of the directory with the state known from the previous walk. Items under a
+   * directory which entries could not be read may still exist, so they are kept as they are.
+   *
+   * @param recursive whether known subdirectories should be read as well, new subdirectories are
+   *     always read with their whole subtree
+   */
+  private void read(Node node, Path dir, boolean recursive, Changes changes) {
+    Map<String, BasicFileAttributes> entries = new HashMap<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+      for (Path entry : stream) {
+        try {
+          entries.put(
+              entry.getFileName().toString(),
+              Files.readAttributes(entry, BasicFileAttributes.class, NOFOLLOW_LINKS));
+        } catch (NoSuchFileException e) {
+          // deleted while being read
+        } catch (IOException e) {
+          LOG.debug("Can't visit {}: {}", entry, e.getMessage());
+          entries.put(entry.getFileName().toString(), null);
+        }
+      }
     } catch (NoSuchFileException e) {
-      LOG.debug(
-          "Trying to process a file, however seems like it is already not present: {}",
-          e.getMessage());
-    } catch (Exception e) {
-      LOG.error("Error while walking file tree", e);
+      // deletion is found when parent directory is read
+      return;
+    } catch (IOException e) {
+      LOG.debug("Can't visit entries of {}: {}", dir, e.getMessage());
+      return;
+    }
+
+    if (node.children != null) {
+      Iterator<Entry<String, Node>> iterator = node.children.entrySet().iterator();
+      while (iterator.hasNext()) {
+        Entry<String, Node> entry = iterator.next();
+        if (!entries.containsKey(entry.getKey())) {
+          iterator.remove();
+          unwatch(entry.getValue(), dir.resolve(entry.getKey()));
+          changes.deleted(entry.getValue(), dir.resolve(entry.getKey()));
+        }
+      }
+    }
+
+    for (Entry<String, BasicFileAttributes> entry : entries.entrySet()) {
+      BasicFileAttributes attrs = entry.getValue();
+      Path path = dir.resolve(entry.getKey());
+      if (attrs == null || isExcluded(path, attrs.isDirectory())) {
+        continue;
+      }
+
+      boolean directory = attrs.isDirectory();
+      long lastModified = attrs.lastModifiedTime().toMillis();
+      Node child = node.child(entry.getKey());
+      if (child == null || child.directory != directory) {
+        if (child != null) {
+          unwatch(child, path);
+        }
+        child = new Node(directory);
+        child.lastModified = lastModified;
+        if (node.children == null) {
+          node.children = new HashMap<>();
+        }
+        node.children.put(entry.getKey(), child);
+        changes.created(path, directory);
+        if (directory) {
+          watch(child, path);
+          read(child, path, true, changes);
+        }
+      } else {
+        if (child.lastModified != lastModified) {
+          child.lastModified = lastModified;
+          changes.updated(path, directory);
+        }
+        if (directory && recursive) {
+          read(child, path, true, changes);
+        }
+      }
     }
   }
 
-  private void updateFsTreeAndAcceptConsumables(
-      Map<Path, Long> items,
-      Set<Consumer<Path>> updateConsumer,
-      Set<Consumer<Path>> createConsumer,
-      Path path,
-      BasicFileAttributes attrs) {
-    Long lastModifiedActual = attrs.lastModifiedTime().toMillis();
-
-    if (items.containsKey(path)) {
-      Long lastModifiedStored = items.get(path);
-      if (!lastModifiedActual.equals(lastModifiedStored)) {
-        items.put(path, lastModifiedActual);
-        updateConsumer.forEach(it -> it.accept(path));
+  private boolean isExcluded(Path path, boolean directory) {
+    for (PathMatcher matcher : directory ? directoryExcludes : fileExcludes) {
+      if (matcher.matches(path)) {
+        return true;
       }
+    }
+    return false;
+  }
+
+  private Node find(Path path) {
+    if (path == null || !path.startsWith(root)) {
+      return null;
+    }
+    Node node = tree;
+    for (int i = root.getNameCount(); node != null && i < path.getNameCount(); i++) {
+      node = node.child(path.getName(i).toString());
+    }
+    return node;
+  }
+
+  private void watch(Node node, Path dir) {
+    if (watchedDirectories < MAX_WATCHED_DIRECTORIES) {
+      fileWatcherService.register(dir);
+      node.watched = fileWatcherService.isWatched(dir);
+    }
+    if (node.watched) {
+      watchedDirectories++;
     } else {
-      items.put(path, lastModifiedActual);
-      createConsumer.forEach(it -> it.accept(path));
+      unwatchedDirectories.put(dir, node);
+    }
+  }
+
+  /** Stops watching the directory and all its subdirectories that are removed from the tree. */
+  private void unwatch(Node node, Path dir) {
+    if (!node.directory) {
+      return;
+    }
+    if (node.watched) {
+      fileWatcherService.unRegister(dir);
+      watchedDirectories--;
+    } else {
+      unwatchedDirectories.remove(dir);
+    }
+    if (node.children != null) {
+      node.children.forEach((name, child) -> unwatch(child, dir.resolve(name)));
+    }
+  }
+
+  /** Changes found during a walk, deletions are reported after all the other changes. */
+  private class Changes {
+    private final boolean notify;
+    private final List<Path> deletedFiles = new ArrayList<>();
+    private final List<Path> deletedDirectories = new ArrayList<>();
+
+    private Changes(boolean notify) {
+      this.notify = notify;
+    }
+
+    private void created(Path path, boolean directory) {
+      if (notify) {
+        (directory ? directoryCreateConsumers : fileCreateConsumers).forEach(it -> it.accept(path));
+      }
+    }
+
+    private void updated(Path path, boolean directory) {
+      if (notify) {
+        (directory ? directoryUpdateConsumers : fileUpdateConsumers).forEach(it -> it.accept(path));
+      }
+    }
+
+    private void deleted(Node node, Path path) {
+      (node.directory ? deletedDirectories : deletedFiles).add(path);
+      if (node.children != null) {
+        node.children.forEach((name, child) -> deleted(child, path.resolve(name)));
+      }
+    }
+
+    private void notifyDeleted() {
+      if (notify) {
+        fileDeleteConsumers.forEach(deletedFiles::forEach);
+        directoryDeleteConsumers.forEach(deletedDirectories::forEach);
+      }
+    }
+  }
+
+  private static class Change {
+    private final Path path;
+    private final Kind<?> kind;
+
+    private Change(Path path, Kind<?> kind) {
+      this.path = path;
+      this.kind = kind;
+    }
+  }
+
+  /**
+   * State of a file system item known from the last walk. Items are kept in a tree of names instead
+   * of maps of full paths, which keeps memory footprint low on large workspaces.
+   */
+  private static class Node {
+    private final boolean directory;
+    private long lastModified;
+    private boolean watched;
+    private Map<String, Node> children;
+
+    private Node(boolean directory) {
+      this.directory = directory;
+    }
+
+    private Node child(String name) {
+      return children == null ? null : children.get(name);
     }
   }
 }
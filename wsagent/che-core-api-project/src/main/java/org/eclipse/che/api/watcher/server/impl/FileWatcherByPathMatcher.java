@@ -12,19 +12,20 @@ package org.eclipse.che.api.watcher.server.impl;
 
 import static com.google.common.collect.Sets.newConcurrentHashSet;
 import static java.nio.file.Files.exists;
+import static java.util.Collections.emptySet;
 
+import com.google.common.collect.Iterables;
 import com.google.inject.Inject;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
-import java.util.Iterator;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import javax.inject.Singleton;
 import org.eclipse.che.api.fs.server.PathTransformer;
+import org.eclipse.che.api.watcher.server.FileNamePathMatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,14 +38,20 @@ public class FileWatcherByPathMatcher implements Consumer<Path> {
 
   private final FileWatcherByPathValue watcher;
 
-  /** Operation ID -> Operation (create, modify, delete) */
+  /** Operation ID -> Operation (matcher, create, modify, delete) */
   private final Map<Integer, Operation> operations = new ConcurrentHashMap<>();
   /** Operation ID -> Registered paths */
   private final Map<Integer, Set<Path>> paths = new ConcurrentHashMap<>();
   /** Matcher -> Operation IDs */
   private final Map<PathMatcher, Set<Integer>> matchers = new ConcurrentHashMap<>();
-  /** Registered path -> Path watch operation IDs */
-  private final Map<Path, Set<Integer>> pathWatchRegistrations = new ConcurrentHashMap<>();
+  /** Matcher -> Paths registered by its operations */
+  private final Map<PathMatcher, Set<Path>> matcherPaths = new ConcurrentHashMap<>();
+  /** File name -> Matchers of that file name */
+  private final Map<String, Set<PathMatcher>> fileNameMatchers = new ConcurrentHashMap<>();
+  /** Matchers that can't be looked up by file name and are checked against every path */
+  private final Set<PathMatcher> otherMatchers = newConcurrentHashSet();
+  /** Registered path -> Operation ID -> Path watch operation ID */
+  private final Map<Path, Map<Integer, Integer>> pathWatchRegistrations = new ConcurrentHashMap<>();
 
   private PathTransformer pathTransformer;
 
@@ -57,17 +64,26 @@ public class FileWatcherByPathMatcher implements Consumer<Path> {
   @Override
   public void accept(Path path) {
     if (!exists(path)) {
-      if (pathWatchRegistrations.containsKey(path)) {
-        pathWatchRegistrations.remove(path).forEach(watcher::unwatch);
+      Map<Integer, Integer> registrations = pathWatchRegistrations.remove(path);
+      if (registrations != null) {
+        registrations.forEach(
+            (operationId, pathWatcherOperationId) -> {
+              watcher.unwatch(pathWatcherOperationId);
+              removePath(operationId, path);
+            });
       }
-      paths.values().forEach(it -> it.remove(path));
-      paths.entrySet().removeIf(it -> it.getValue().isEmpty());
       return;
     }
 
-    for (PathMatcher matcher : matchers.keySet()) {
-      if (matcher.matches(path)) {
-        for (int operationId : matchers.get(matcher)) {
+    Path fileName = path.getFileName();
+    Set<PathMatcher> candidates =
+        fileName == null
+            ? emptySet()
+            : fileNameMatchers.getOrDefault(fileName.toString(), emptySet());
+    for (PathMatcher matcher : Iterables.concat(candidates, otherMatchers)) {
+      Set<Integer> operationIds = matchers.get(matcher);
+      if (operationIds != null && matcher.matches(path)) {
+        for (int operationId : operationIds) {
           paths.putIfAbsent(operationId, newConcurrentHashSet());
           if (paths.get(operationId).contains(path)) {
             return;
@@ -78,8 +94,10 @@ public class FileWatcherByPathMatcher implements Consumer<Path> {
           Operation operation = operations.get(operationId);
           int pathWatcherOperationId =
               watcher.watch(path, operation.create, operation.modify, operation.delete);
-          pathWatchRegistrations.putIfAbsent(path, newConcurrentHashSet());
-          pathWatchRegistrations.get(path).add(pathWatcherOperationId);
+          pathWatchRegistrations
+              .computeIfAbsent(path, it -> new ConcurrentHashMap<>())
+              .put(operationId, pathWatcherOperationId);
+          matcherPaths.computeIfAbsent(matcher, it -> newConcurrentHashSet()).add(path);
           operation.create.accept(pathTransformer.transform(path));
         }
       }
@@ -94,10 +112,17 @@ public class FileWatcherByPathMatcher implements Consumer<Path> {
     LOG.debug("Watching matcher '{}'", matcher);
     int operationId = operationIdCounter.getAndIncrement();
 
+    operations.put(operationId, new Operation(matcher, create, modify, delete));
+
     matchers.putIfAbsent(matcher, newConcurrentHashSet());
     matchers.get(matcher).add(operationId);
 
-    operations.put(operationId, new Operation(create, modify, delete));
+    if (matcher instanceof FileNamePathMatcher) {
+      String fileName = ((FileNamePathMatcher) matcher).getFileName();
+      fileNameMatchers.computeIfAbsent(fileName, it -> newConcurrentHashSet()).add(matcher);
+    } else {
+      otherMatchers.add(matcher);
+    }
 
     LOG.debug("Registered matcher operation set with id '{}'", operationId);
     return operationId;
@@ -105,41 +130,84 @@ public class FileWatcherByPathMatcher implements Consumer<Path> {
 
   void unwatch(int operationId) {
     LOG.debug("Unwatching matcher operation set with id '{}'", operationId);
-    for (Entry<PathMatcher, Set<Integer>> entry : matchers.entrySet()) {
-      PathMatcher matcher = entry.getKey();
-      Set<Integer> operationsIdList = entry.getValue();
-      Iterator<Integer> iterator = operationsIdList.iterator();
-      while (iterator.hasNext()) {
-        if (iterator.next() == operationId) {
-          pathWatchRegistrations
-              .keySet()
-              .stream()
-              .filter(matcher::matches)
-              .flatMap(it -> pathWatchRegistrations.remove(it).stream())
-              .forEach(watcher::unwatch);
-
-          paths.values().forEach(it -> it.removeIf(matcher::matches));
-          paths.entrySet().removeIf(it -> it.getValue().isEmpty());
-          iterator.remove();
-          operations.remove(operationId);
-
-          break;
-        }
-      }
+    Operation operation = operations.remove(operationId);
+    if (operation == null) {
+      return;
+    }
 
-      if (matchers.get(matcher) == null || matchers.get(matcher).isEmpty()) {
-        matchers.remove(matcher);
-      }
+    // only the paths registered for the matcher are visited, not all the registered ones
+    PathMatcher matcher = operation.matcher;
+    for (Path path : matcherPaths.getOrDefault(matcher, emptySet())) {
+      pathWatchRegistrations.computeIfPresent(
+          path,
+          (it, registrations) -> {
+            Integer pathWatcherOperationId = registrations.remove(operationId);
+            if (pathWatcherOperationId != null) {
+              watcher.unwatch(pathWatcherOperationId);
+            }
+            return registrations.isEmpty() ? null : registrations;
+          });
+    }
+    paths.remove(operationId);
+
+    Set<Integer> operationIds =
+        matchers.computeIfPresent(
+            matcher,
+            (it, ids) -> {
+              ids.remove(operationId);
+              return ids.isEmpty() ? null : ids;
+            });
+    if (operationIds == null) {
+      matcherPaths.remove(matcher);
+      removeFromIndex(matcher);
+    }
+  }
+
+  /** Forgets the path registered by the operation, e.g. when the path is deleted. */
+  private void removePath(int operationId, Path path) {
+    paths.computeIfPresent(
+        operationId,
+        (it, registered) -> {
+          registered.remove(path);
+          return registered.isEmpty() ? null : registered;
+        });
+    Operation operation = operations.get(operationId);
+    if (operation != null) {
+      matcherPaths.computeIfPresent(
+          operation.matcher,
+          (it, registered) -> {
+            registered.remove(path);
+            return registered.isEmpty() ? null : registered;
+          });
+    }
+  }
+
+  private void removeFromIndex(PathMatcher matcher) {
+    if (matcher instanceof FileNamePathMatcher) {
+      fileNameMatchers.computeIfPresent(
+          ((FileNamePathMatcher) matcher).getFileName(),
+          (fileName, fileMatchers) -> {
+            fileMatchers.remove(matcher);
+            return fileMatchers.isEmpty() ? null : fileMatchers;
+          });
+    } else {
+      otherMatchers.remove(matcher);
     }
   }
 
   private static class Operation {
 
+    final PathMatcher matcher;
     final Consumer<String> create;
     final Consumer<String> modify;
     final Consumer<String> delete;
 
-    private Operation(Consumer<String> create, Consumer<String> modify, Consumer<String> delete) {
+    private Operation(
+        PathMatcher matcher,
+        Consumer<String> create,
+        Consumer<String> modify,
+        Consumer<String> delete) {
+      this.matcher = matcher;
       this.create = create;
       this.modify = modify;
       this.delete = delete;
@@ -17,8 +17,11 @@ import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
 import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.IOException;
 import java.lang.reflect.Field;
@@ -30,14 +33,20 @@ import java.nio.file.WatchEvent.Kind;
 import java.nio.file.WatchEvent.Modifier;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.function.Predicate;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
@@ -58,11 +67,24 @@ import org.slf4j.LoggerFactory;
 public class FileWatcherService {
   private static final Logger LOG = LoggerFactory.getLogger(FileWatcherService.class);
 
+  /** Time during which events are collected and coalesced before they are dispatched. */
+  private static final long COALESCING_WINDOW_MILLIS = 50;
+  /** Max number of distinct paths collected before the events are dispatched. */
+  private static final int COALESCING_LIMIT = 10_000;
+  /** Number of threads events are dispatched with. */
+  private static final int DISPATCHER_STRIPES = 4;
+
   private final AtomicBoolean suspended = new AtomicBoolean(true);
   private final AtomicBoolean running = new AtomicBoolean();
 
+  /** Watch key -> Watched directory */
   private final Map<WatchKey, Path> keys = new ConcurrentHashMap<>();
-  private final Map<Path, Integer> registrations = new ConcurrentHashMap<>();
+  /** Watched directory -> Its watch key and registration counter */
+  private final Map<Path, Registration> registrations = new ConcurrentHashMap<>();
+  /** Paths which did not exist when the current batch of events started, used by watching thread */
+  private final Set<Path> createdInBatch = new HashSet<>();
+  /** Listeners of all the events of watched directories, called by watching thread */
+  private final List<BiConsumer<Path, Kind<?>>> changeListeners = new CopyOnWriteArrayList<>();
 
   private final FileWatcherExcludePatternsRegistry excludePatternsRegistry;
   private final FileWatcherEventHandler handler;
@@ -71,6 +93,7 @@ public class FileWatcherService {
   private final Kind<?>[] eventKinds;
 
   private ExecutorService executor;
+  private ExecutorService[] dispatchers;
 
   @Inject
   public FileWatcherService(
@@ -131,6 +154,22 @@ public class FileWatcherService {
             .setDaemon(true)
             .build();
     executor = newSingleThreadExecutor(factory);
+
+    // events within the same entry of the topmost watched directory, e.g. the same project, are
+    // always dispatched by the same thread so that handlers receive events of a directory and of
+    // its entries in the order they happened, while events of different entries are dispatched
+    // in parallel
+    dispatchers = new ExecutorService[DISPATCHER_STRIPES];
+    for (int i = 0; i < DISPATCHER_STRIPES; i++) {
+      dispatchers[i] =
+          newSingleThreadExecutor(
+              new ThreadFactoryBuilder()
+                  .setUncaughtExceptionHandler(LoggingUncaughtExceptionHandler.getInstance())
+                  .setNameFormat(FileWatcherService.class.getSimpleName() + "Dispatcher-" + i)
+                  .setDaemon(true)
+                  .build());
+    }
+
     executor.execute(this::run);
   }
 
@@ -161,12 +200,31 @@ public class FileWatcherService {
       executor.shutdownNow();
       LOG.debug("Executor tasks have been shutdown");
     }
+
+    for (ExecutorService dispatcher : dispatchers) {
+      dispatcher.shutdownNow();
+    }
   }
 
   boolean isStopped() {
     return executor.isShutdown();
   }
 
+  /**
+   * Adds a listener of all the events of watched directories, including the ones of excluded paths.
+   * Overflow of the events of a directory is reported as {@link
+   * java.nio.file.StandardWatchEventKinds#OVERFLOW} of the directory. Listeners are called by the
+   * watching thread, so they must not block.
+   */
+  void addChangeListener(BiConsumer<Path, Kind<?>> listener) {
+    changeListeners.add(listener);
+  }
+
+  /** Tells whether the directory has a watch key, i.e. whether its entries' events are reported */
+  boolean isWatched(Path dir) {
+    return registrations.containsKey(dir);
+  }
+
   /**
    * Registers a directory for tracking of corresponding entry creation, modification or deletion
    * events. Each call of this method increase by one registration counter that corresponds to each
@@ -182,24 +240,33 @@ public class FileWatcherService {
       return;
     }
     LOG.debug("Registering directory '{}'", dir);
-    if (keys.values().contains(dir)) {
-      int previous = registrations.get(dir);
-      LOG.debug(
-          "Directory is already being watched, increasing watch counter, previous value: {}",
-          previous);
-      registrations.put(dir, previous + 1);
-    } else {
-      try {
-        LOG.debug("Starting watching directory '{}'", dir);
-        synchronized (keys) {
-          WatchKey watchKey = dir.register(service, eventKinds, eventModifiers);
-          keys.put(watchKey, dir);
-          registrations.put(dir, 1);
-        }
-      } catch (IOException e) {
-        LOG.error("Can't register dir {} in file watch service", dir, e);
-      }
-    }
+    registrations.compute(
+        dir,
+        (it, registration) -> {
+          if (registration != null) {
+            LOG.debug(
+                "Directory is already being watched, increasing watch counter, previous value: {}",
+                registration.counter);
+            registration.counter++;
+            return registration;
+          }
+          try {
+            LOG.debug("Starting watching directory '{}'", dir);
+            WatchKey watchKey = watch(dir);
+            Registration created = new Registration(watchKey);
+            // entries are listed after the key is registered, so that no change is missed
+            try (Stream<Path> entries = Files.list(dir)) {
+              entries.forEach(entry -> created.entries.add(entry.getFileName().toString()));
+            } catch (IOException e) {
+              LOG.debug("Can't list entries of directory '{}'", dir, e);
+            }
+            keys.put(watchKey, dir);
+            return created;
+          } catch (IOException e) {
+            LOG.error("Can't register dir {} in file watch service", dir, e);
+            return null;
+          }
+        });
   }
 
   /**
@@ -216,15 +283,13 @@ public class FileWatcherService {
   void unRegister(Path dir) {
     LOG.debug("Canceling directory '{}' registration", dir);
 
-    Predicate<Entry<WatchKey, Path>> equalsDir = it -> it.getValue().equals(dir);
-
     if (!exists(dir)) {
       LOG.debug("Trying to unregister directory '{}' while it does not exist", dir);
 
-      registrations.remove(dir);
-
-      keys.entrySet().stream().filter(equalsDir).map(Entry::getKey).forEach(WatchKey::cancel);
-      keys.entrySet().removeIf(equalsDir);
+      Registration registration = registrations.remove(dir);
+      if (registration != null) {
+        cancel(registration);
+      }
 
       return;
     }
@@ -234,19 +299,30 @@ public class FileWatcherService {
       return;
     }
 
-    int previous = registrations.get(dir);
-    if (previous == 1) {
-      LOG.debug("Stopping watching directory '{}'", dir);
-      registrations.remove(dir);
-
-      keys.entrySet().stream().filter(equalsDir).map(Entry::getKey).forEach(WatchKey::cancel);
-      keys.entrySet().removeIf(equalsDir);
-    } else {
-      LOG.debug(
-          "Directory is being watched by someone else, decreasing watch counter, previous value: {}",
-          previous);
-      registrations.put(dir, previous - 1);
-    }
+    registrations.computeIfPresent(
+        dir,
+        (it, registration) -> {
+          if (registration.counter == 1) {
+            LOG.debug("Stopping watching directory '{}'", dir);
+            cancel(registration);
+            return null;
+          }
+          LOG.debug(
+              "Directory is being watched by someone else, decreasing watch counter, previous value: {}",
+              registration.counter);
+          registration.counter--;
+          return registration;
+        });
+  }
+
+  @VisibleForTesting
+  WatchKey watch(Path dir) throws IOException {
+    return dir.register(service, eventKinds, eventModifiers);
+  }
+
+  private void cancel(Registration registration) {
+    registration.watchKey.cancel();
+    keys.remove(registration.watchKey);
   }
 
   private void run() {
@@ -255,66 +331,200 @@ public class FileWatcherService {
 
     while (running.get()) {
       try {
-        WatchKey watchKey = service.take();
-        Path dir;
-        synchronized (keys) {
-          dir = keys.get(watchKey);
+        Map<Path, Kind<?>> events = new LinkedHashMap<>();
+        createdInBatch.clear();
+        collect(service.take(), events);
+
+        long deadline = System.nanoTime() + MILLISECONDS.toNanos(COALESCING_WINDOW_MILLIS);
+        long remaining;
+        while (events.size() < COALESCING_LIMIT
+            && (remaining = deadline - System.nanoTime()) > 0) {
+          WatchKey watchKey = service.poll(remaining, NANOSECONDS);
+          if (watchKey == null) {
+            break;
+          }
+          collect(watchKey, events);
         }
 
-        if (dir == null) {
-          resetAndRemove(watchKey, dir);
+        events.forEach(this::dispatch);
+      } catch (InterruptedException e) {
+        running.compareAndSet(true, false);
+        LOG.debug(
+            "Interruption error when running file watcher, most likely caused by stopping it", e);
+      } catch (ClosedWatchServiceException e) {
+        running.compareAndSet(true, false);
+        LOG.debug("Closing watch service while some of keys may be processing", e);
+      }
+    }
+  }
 
-          LOG.debug("Reported directory is not registered - skipping.");
-          continue;
-        }
+  /**
+   * Polls events of the watch key and coalesces them into the given events map. When events are
+   * overflowed the directory of the watch key is rescanned and compared with its entries known
+   * from the previous events, so that none of the changes is missed.
+   *
+   * @param watchKey watch key that is signalled
+   * @param events collected events in order of their appearance, at most one per path
+   */
+  private void collect(WatchKey watchKey, Map<Path, Kind<?>> events) {
+    Path dir = keys.get(watchKey);
 
-        List<WatchEvent<?>> watchEvents = watchKey.pollEvents();
+    if (dir == null) {
+      // either the key is already cancelled or it is just being registered, in the latter case
+      // it is queued again on reset as its events are not polled yet
+      watchKey.reset();
 
-        if (suspended.get()) {
-          resetAndRemove(watchKey, dir);
+      LOG.debug("Reported directory is not registered - skipping.");
+      return;
+    }
 
-          LOG.debug("File watchers are running in suspended mode - skipping.");
-          continue;
-        }
+    List<WatchEvent<?>> watchEvents = watchKey.pollEvents();
 
-        for (WatchEvent<?> event : watchEvents) {
-          Kind<?> kind = event.kind();
+    if (suspended.get()) {
+      resetAndRemove(watchKey, dir);
 
-          if (kind == OVERFLOW) {
-            LOG.warn("Detected file system events overflowing");
-            continue;
-          }
+      LOG.debug("File watchers are running in suspended mode - skipping.");
+      return;
+    }
 
-          WatchEvent<Path> ev = cast(event);
-          Path item = ev.context();
-          Path path = dir.resolve(item).toAbsolutePath();
+    Registration registration = registrations.get(dir);
+    Set<String> entries = registration == null ? new HashSet<>() : registration.entries;
+    for (WatchEvent<?> event : watchEvents) {
+      Kind<?> kind = event.kind();
 
-          if (excludePatternsRegistry.isExcluded(path)) {
-            LOG.debug("Path is within exclude list, skipping...");
-            continue;
-          }
+      if (kind == OVERFLOW) {
+        LOG.warn("Detected file system events overflowing, rescanning directory '{}'", dir);
+        changeListeners.forEach(it -> it.accept(dir, OVERFLOW));
+        rescan(dir, entries, events);
+        continue;
+      }
 
-          handler.handle(path, kind);
-        }
+      WatchEvent<Path> ev = cast(event);
+      Path item = ev.context();
+      Path path = dir.resolve(item).toAbsolutePath();
 
-        resetAndRemove(watchKey, dir);
-      } catch (InterruptedException e) {
-        running.compareAndSet(true, false);
-        LOG.debug(
-            "Interruption error when running file watcher, most likely caused by stopping it", e);
-      } catch (ClosedWatchServiceException e) {
-        running.compareAndSet(true, false);
-        LOG.debug("Closing watch service while some of keys may be processing", e);
+      if (kind == ENTRY_CREATE) {
+        entries.add(item.toString());
+      } else if (kind == ENTRY_DELETE) {
+        entries.remove(item.toString());
+      }
+      changeListeners.forEach(it -> it.accept(path, kind));
+
+      if (excludePatternsRegistry.isExcluded(path)) {
+        LOG.debug("Path is within exclude list, skipping...");
+        continue;
+      }
+
+      coalesce(events, path, kind);
+    }
+
+    resetAndRemove(watchKey, dir);
+  }
+
+  /**
+   * Merges event into the collected events. The last event of a path wins and takes its place in
+   * the order, except for creation of an entry which is not overridden by its modification, and
+   * which is cancelled out by its deletion if the entry did not exist before the batch. Creation
+   * keeps its place, so that it stays ahead of the events of the entries of a created directory.
+   */
+  private void coalesce(Map<Path, Kind<?>> events, Path path, Kind<?> kind) {
+    Kind<?> previous = events.get(path);
+    if (previous == ENTRY_CREATE && kind == ENTRY_MODIFY) {
+      return;
+    }
+    if (previous == null && kind == ENTRY_CREATE) {
+      createdInBatch.add(path);
+    }
+    events.remove(path);
+    if (previous == ENTRY_CREATE && kind == ENTRY_DELETE && createdInBatch.remove(path)) {
+      return;
+    }
+    events.put(path, kind);
+  }
+
+  /**
+   * Compares the existing entries of directory with the known ones, as their events are lost.
+   * Entries which are not known are reported as created, known entries which do not exist anymore
+   * as deleted and the others as modified.
+   */
+  private void rescan(Path dir, Set<String> known, Map<Path, Kind<?>> events) {
+    Set<String> existing = new HashSet<>();
+    try (Stream<Path> entries = Files.list(dir)) {
+      entries.forEach(
+          entry -> {
+            String name = entry.getFileName().toString();
+            existing.add(name);
+            report(events, entry, known.add(name) ? ENTRY_CREATE : ENTRY_MODIFY);
+          });
+    } catch (IOException e) {
+      LOG.error("Can't rescan directory '{}' after events overflow", dir, e);
+      return;
+    }
+    for (Iterator<String> it = known.iterator(); it.hasNext(); ) {
+      String name = it.next();
+      if (!existing.contains(name)) {
+        it.remove();
+        report(events, dir.resolve(name), ENTRY_DELETE);
       }
     }
   }
 
+  private void report(Map<Path, Kind<?>> events, Path entry, Kind<?> kind) {
+    Path path = entry.toAbsolutePath();
+    if (!excludePatternsRegistry.isExcluded(path)) {
+      coalesce(events, path, kind);
+    }
+  }
+
+  /**
+   * Returns the key events are striped by: the entry of the topmost watched directory which
+   * contains the path or is the path itself, e.g. a project when the workspace root is watched.
+   */
+  private Path stripeKey(Path path) {
+    Path root = path.getParent();
+    for (Path dir = root; dir != null; dir = dir.getParent()) {
+      if (registrations.containsKey(dir)) {
+        root = dir;
+      }
+    }
+    return root == null ? path : root.resolve(root.relativize(path).getName(0));
+  }
+
+  private void dispatch(Path path, Kind<?> kind) {
+    int stripe = Math.floorMod(stripeKey(path).hashCode(), DISPATCHER_STRIPES);
+    try {
+      dispatchers[stripe].execute(
+          () -> {
+            try {
+              handler.handle(path, kind);
+            } catch (RuntimeException e) {
+              LOG.error("Handling of event {} for path '{}' failed", kind, path, e);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      LOG.debug("Event {} for path '{}' is skipped as file watcher is stopped", kind, path);
+    }
+  }
+
   private void resetAndRemove(WatchKey watchKey, Path dir) {
     if (!watchKey.reset()) {
-      if (dir != null) {
-        registrations.remove(dir);
-      }
+      registrations.computeIfPresent(
+          dir, (it, registration) -> registration.watchKey == watchKey ? null : registration);
       keys.remove(watchKey);
     }
   }
+
+  /**
+   * Watch key of a directory, the number of times the directory is registered and names of its
+   * entries known from the events, which are used to find out the lost changes on overflow.
+   */
+  private static class Registration {
+    private final WatchKey watchKey;
+    private final Set<String> entries = ConcurrentHashMap.newKeySet();
+    private int counter = 1;
+
+    private Registration(WatchKey watchKey) {
+      this.watchKey = watchKey;
+    }
+  }
 }
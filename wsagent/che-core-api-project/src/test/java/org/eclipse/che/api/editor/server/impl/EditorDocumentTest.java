@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.api.editor.server.impl;
+
+import static org.eclipse.che.api.editor.server.impl.EditorDocument.CHUNK_SIZE;
+import static org.testng.Assert.assertEquals;
+
+import com.google.common.base.Strings;
+import java.util.Random;
+import org.testng.annotations.Test;
+
+public class EditorDocumentTest {
+
+  @Test
+  public void shouldInsertIntoEmptyDocument() {
+    EditorDocument document = new EditorDocument("");
+
+    document.insert(0, "text");
+
+    assertEquals(document.toString(), "text");
+    assertEquals(document.length(), 4);
+  }
+
+  @Test
+  public void shouldInsertAndRemoveAcrossChunks() {
+    String text = Strings.repeat("a", CHUNK_SIZE) + Strings.repeat("b", CHUNK_SIZE);
+    EditorDocument document = new EditorDocument(text);
+
+    document.insert(CHUNK_SIZE, "-");
+    document.remove(CHUNK_SIZE - 2, 5);
+
+    assertEquals(
+        document.toString(),
+        Strings.repeat("a", CHUNK_SIZE - 2) + Strings.repeat("b", CHUNK_SIZE - 2));
+  }
+
+  @Test
+  public void shouldRemoveWholeText() {
+    EditorDocument document = new EditorDocument(Strings.repeat("a", 3 * CHUNK_SIZE + 1));
+
+    document.remove(0, document.length());
+    document.insert(0, "b");
+
+    assertEquals(document.toString(), "b");
+  }
+
+  @Test
+  public void shouldMatchStringBuilderOnRandomEdits() {
+    Random random = new Random(42);
+    StringBuilder expected = new StringBuilder(Strings.repeat("0123456789\n", 2_000));
+    EditorDocument document = new EditorDocument(expected.toString());
+
+    for (int i = 0; i < 5_000; i++) {
+      int offset = random.nextInt(expected.length() + 1);
+      if (random.nextBoolean()) {
+        String inserted = Strings.repeat("x", random.nextInt(i % 100 == 0 ? 3 * CHUNK_SIZE : 10));
+        expected.insert(offset, inserted);
+        document.insert(offset, inserted);
+      } else {
+        int count = random.nextInt(Math.min(2 * CHUNK_SIZE, expected.length() - offset) + 1);
+        expected.delete(offset, offset + count);
+        document.remove(offset, count);
+      }
+      assertEquals(document.length(), expected.length());
+    }
+
+    assertEquals(document.toString(), expected.toString());
+  }
+
+  @Test
+  public void shouldRemoveUpToEndOfTextWhenCountExceedsIt() {
+    EditorDocument document = new EditorDocument("text");
+
+    document.remove(2, 3);
+
+    assertEquals(document.toString(), "te");
+    assertEquals(document.length(), 2);
+  }
+
+  @Test(expectedExceptions = IndexOutOfBoundsException.class)
+  public void shouldRejectRemovalOutOfText() {
+    new EditorDocument("text").remove(5, 1);
+  }
+}
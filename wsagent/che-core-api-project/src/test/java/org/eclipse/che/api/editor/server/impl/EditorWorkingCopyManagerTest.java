@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.api.editor.server.impl;
+
+import static org.eclipse.che.api.project.shared.dto.EditorChangesDto.Type.INSERT;
+import static org.eclipse.che.api.project.shared.dto.EditorChangesDto.Type.REMOVE;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.Optional;
+import org.eclipse.che.api.core.jsonrpc.commons.RequestTransmitter;
+import org.eclipse.che.api.core.notification.EventService;
+import org.eclipse.che.api.fs.server.FsManager;
+import org.eclipse.che.api.project.server.ProjectManager;
+import org.eclipse.che.api.project.shared.RegisteredProject;
+import org.eclipse.che.api.project.shared.dto.EditorChangesDto;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+/** Tests for {@link EditorWorkingCopyManager} */
+@Listeners(MockitoTestNGListener.class)
+public class EditorWorkingCopyManagerTest {
+
+  private static final String ENDPOINT_ID = "endpoint";
+  private static final String PROJECT_PATH = "/project";
+  private static final String FILE_PATH = "/project/file.txt";
+
+  @Mock private EventService eventService;
+  @Mock private RequestTransmitter transmitter;
+  @Mock private FsManager fsManager;
+  @Mock private ProjectManager projectManager;
+  @Mock private RegisteredProject project;
+
+  private EditorWorkingCopyManager workingCopyManager;
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    when(fsManager.read(FILE_PATH)).thenReturn(new ByteArrayInputStream("hello world".getBytes()));
+    when(projectManager.getClosest(FILE_PATH)).thenReturn(Optional.of(project));
+    when(project.getPath()).thenReturn(PROJECT_PATH);
+    // the budget is smaller than any working copy, so each one is moved out of memory at once
+    workingCopyManager =
+        new EditorWorkingCopyManager(eventService, transmitter, fsManager, projectManager, 8);
+  }
+
+  @Test
+  public void shouldReloadSpilledWorkingCopyWithChangesMadeMeanwhile() throws Exception {
+    workingCopyManager.onEditorContentUpdated(ENDPOINT_ID, change(INSERT, 5, ",", 0));
+    workingCopyManager.onEditorContentUpdated(ENDPOINT_ID, change(REMOVE, 6, null, 6));
+    workingCopyManager.onEditorContentUpdated(ENDPOINT_ID, change(INSERT, 6, " journal", 0));
+
+    EditorWorkingCopy workingCopy = workingCopyManager.getWorkingCopy(FILE_PATH);
+    assertEquals(workingCopy.getMemorySize(), 0);
+    assertEquals(workingCopy.getContentAsString(), "hello, journal");
+    assertTrue(workingCopy.getMemorySize() > 0);
+  }
+
+  @Test
+  public void shouldSpillReloadedWorkingCopyAgain() throws Exception {
+    workingCopyManager.onEditorContentUpdated(ENDPOINT_ID, change(INSERT, 0, "> ", 0));
+    EditorWorkingCopy workingCopy = workingCopyManager.getWorkingCopy(FILE_PATH);
+    assertEquals(workingCopy.getContentAsString(), "> hello world");
+
+    workingCopyManager.spillColdWorkingCopies();
+    workingCopyManager.onEditorContentUpdated(ENDPOINT_ID, change(REMOVE, 0, null, 2));
+
+    assertEquals(workingCopy.getMemorySize(), 0);
+    assertEquals(new String(workingCopy.getContentAsBytes()), "hello world");
+  }
+
+  private EditorChangesDto change(
+      EditorChangesDto.Type type, int offset, String text, int removedCharCount) {
+    EditorChangesDto changes = mock(EditorChangesDto.class);
+    when(changes.getFileLocation()).thenReturn(FILE_PATH);
+    when(changes.getProjectPath()).thenReturn(PROJECT_PATH);
+    when(changes.getType()).thenReturn(type);
+    when(changes.getOffset()).thenReturn(offset);
+    when(changes.getText()).thenReturn(text);
+    when(changes.getRemovedCharCount()).thenReturn(removedCharCount);
+    return changes;
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.api.editor.server.impl;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class WorkingCopyJournalTest {
+
+  private Path dir;
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    dir = Files.createTempDirectory("working-copy-journal");
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    FileUtils.deleteQuietly(dir.toFile());
+  }
+
+  @Test
+  public void shouldReplayLoggedChangesOverSnapshot() throws Exception {
+    WorkingCopyJournal journal =
+        WorkingCopyJournal.write(dir.resolve("copy"), "hello world".getBytes(), 11);
+
+    journal.insert(5, ",");
+    journal.remove(6, 6);
+    journal.insert(6, " journal");
+
+    assertTrue(journal.hasChanges());
+    EditorDocument document = new EditorDocument(new String(journal.readSnapshot()));
+    journal.replay(document);
+    assertEquals(document.toString(), "hello, journal");
+  }
+
+  @Test
+  public void shouldTreatRecordCutShortAsEndOfLog() throws Exception {
+    WorkingCopyJournal journal =
+        WorkingCopyJournal.write(dir.resolve("copy"), "text".getBytes(), 4);
+    journal.insert(0, "a ");
+    journal.insert(6, " b");
+    Path log = dir.resolve("copy.log");
+    try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 1);
+    }
+
+    EditorDocument document = new EditorDocument(new String(journal.readSnapshot()));
+    journal.replay(document);
+    assertEquals(document.toString(), "a text");
+  }
+
+  @Test
+  public void shouldNotHaveChangesAfterSnapshotIsWritten() throws Exception {
+    WorkingCopyJournal journal =
+        WorkingCopyJournal.write(dir.resolve("copy"), "text".getBytes(), 4);
+
+    assertFalse(journal.hasChanges());
+    assertEquals(new String(journal.readSnapshot()), "text");
+  }
+
+  @Test(expectedExceptions = IndexOutOfBoundsException.class)
+  public void shouldRejectChangesOutOfText() throws Exception {
+    WorkingCopyJournal journal =
+        WorkingCopyJournal.write(dir.resolve("copy"), "text".getBytes(), 4);
+
+    journal.remove(5, 1);
+  }
+
+  @Test
+  public void shouldRemoveUpToEndOfTextWhenCountExceedsIt() throws Exception {
+    WorkingCopyJournal journal =
+        WorkingCopyJournal.write(dir.resolve("copy"), "text".getBytes(), 4);
+
+    journal.remove(2, 3);
+    journal.insert(2, "st");
+
+    EditorDocument document = new EditorDocument(new String(journal.readSnapshot()));
+    journal.replay(document);
+    assertEquals(document.toString(), "test");
+  }
+
+  @Test
+  public void shouldDeleteFiles() throws Exception {
+    WorkingCopyJournal journal =
+        WorkingCopyJournal.write(dir.resolve("copy"), "text".getBytes(), 4);
+    journal.insert(0, "a");
+
+    journal.delete();
+
+    assertEquals(dir.toFile().list().length, 0);
+  }
+}
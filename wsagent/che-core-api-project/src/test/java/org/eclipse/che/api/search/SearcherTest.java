@@ -31,6 +31,7 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -62,6 +63,8 @@ public class SearcherTest {
     "Time to think"
   };
 
+  private static final long MAX_FILE_SIZE = 1024 * 1024;
+
   File indexDirectory;
   File workspaceStorage;
   Set<PathMatcher> excludePatterns;
@@ -77,7 +80,9 @@ public class SearcherTest {
     excludePatterns = Collections.emptySet();
     DummyProvider rootProvider = new DummyProvider(workspaceStorage);
     pathTransformer = new RootAwarePathTransformer(rootProvider);
-    searcher = new LuceneSearcher(excludePatterns, indexDirectory, rootProvider, pathTransformer);
+    searcher =
+        new LuceneSearcher(
+            excludePatterns, indexDirectory, MAX_FILE_SIZE, rootProvider, pathTransformer);
     contentBuilder = new ContentBuilder(workspaceStorage.toPath());
   }
 
@@ -221,6 +226,29 @@ public class SearcherTest {
     assertFind("*stone*", "/folder/xxx.txt");
   }
 
+  @Test
+  public void shouldBeAbleToSearchBySubstringOfCodeIdentifier()
+      throws InvalidQueryException, QueryExecutionException, IOException {
+    // given
+    contentBuilder
+        .createFolder("folder")
+        .createFile("xxx.java", "return this.getFoo();")
+        .createFile("yyy.java", "return this.getBar();")
+        .createFile("zzz.java", "return getF oo;");
+    searcher.add(contentBuilder.getCurrentFolder());
+    // when
+    // then
+    assertFind("*getfoo*", "/folder/xxx.java");
+    assertFind("*GetFoo*", "/folder/xxx.java");
+    assertFind("*this.get*", "/folder/xxx.java", "/folder/yyy.java");
+    assertFind(
+        new QueryExpression().setText("*getFoo*").setIncludePositions(true),
+        new SearchResultEntry(
+            "/folder/xxx.java",
+            ImmutableList.of(
+                new OffsetData("this.getFoo();", 7, 21, 1.0f, 1, "return this.getFoo();"))));
+  }
+
   @Test
   public void shouldBeAbleToSearchByTextTermAndFileName()
       throws InvalidQueryException, QueryExecutionException, IOException {
@@ -440,6 +468,29 @@ public class SearcherTest {
     assertTrue(Collections.disjoint(firstPage.getFilePaths(), lastPage.getFilePaths()));
   }
 
+  @Test
+  public void shouldBeAbleToRetrievesAllResultsPageByPage()
+      throws InvalidQueryException, QueryExecutionException, IOException {
+    for (int i = 0; i < 125; i++) {
+      contentBuilder.createFile(
+          String.format("file%02d", i), TEST_CONTENT[i % TEST_CONTENT.length]);
+    }
+    searcher.add(contentBuilder.getCurrentFolder());
+    List<String> allPaths =
+        searcher.search(new QueryExpression().setText("spaceflight")).getFilePaths();
+
+    List<String> pagedPaths = new ArrayList<>();
+    Optional<QueryExpression> nextPage =
+        Optional.of(new QueryExpression().setText("spaceflight").setMaxItems(4));
+    while (nextPage.isPresent()) {
+      SearchResult page = searcher.search(nextPage.get());
+      pagedPaths.addAll(page.getFilePaths());
+      nextPage = page.getNextPageQueryExpression();
+    }
+
+    assertEquals(pagedPaths, allPaths);
+  }
+
   public void assertFind(QueryExpression query, SearchResultEntry... expectedResults)
       throws InvalidQueryException, QueryExecutionException {
     SearchResult result = searcher.search(query);
@@ -23,6 +23,7 @@ package org.eclipse.che.api.search.server.impl;
 import static com.google.common.collect.Lists.newArrayList;
 import static org.eclipse.che.api.search.SearcherTest.TEST_CONTENT;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 import com.google.common.io.Files;
 import java.io.File;
@@ -42,6 +43,8 @@ import org.testng.annotations.Test;
 @SuppressWarnings("Duplicates")
 public class FSLuceneSearcherTest {
 
+  private static final long MAX_FILE_SIZE = 1024;
+
   File indexDirectory;
   File workspaceStorage;
   Set<PathMatcher> excludePatterns;
@@ -57,7 +60,8 @@ public class FSLuceneSearcherTest {
     DummyProvider dummyRootProvider = new DummyProvider(workspaceStorage);
     pathTransformer = new RootAwarePathTransformer(dummyRootProvider);
     searcher =
-        new LuceneSearcher(excludePatterns, indexDirectory, dummyRootProvider, pathTransformer);
+        new LuceneSearcher(
+            excludePatterns, indexDirectory, MAX_FILE_SIZE, dummyRootProvider, pathTransformer);
     contentBuilder = new ContentBuilder(workspaceStorage.toPath());
   }
 
@@ -84,6 +88,150 @@ public class FSLuceneSearcherTest {
     assertEquals(newArrayList("/folder/zzz.txt"), paths);
   }
 
+  @Test
+  public void shouldBeAbleToInitializesIndexForManyNestedFiles() throws Exception {
+    // given
+    for (int i = 0; i < 20; i++) {
+      contentBuilder.takeWorkspceRoot().createFolder("folder" + i).createFolder("nested");
+      for (int j = 0; j < 50; j++) {
+        contentBuilder.createFile("file" + j + ".txt", TEST_CONTENT[j % 2 == 0 ? 1 : 0]);
+      }
+    }
+
+    // when
+    searcher.initialize();
+    searcher.getInitialIndexingLatch().await();
+
+    // then
+    assertEquals(searcher.search(new QueryExpression().setText("think")).getTotalHits(), 500);
+    assertEquals(searcher.search(new QueryExpression().setText("apollo")).getTotalHits(), 500);
+  }
+
+  @Test
+  public void shouldReconcileExistingIndexWithFileSystemOnInitialization() throws Exception {
+    // given
+    contentBuilder
+        .createFolder("folder")
+        .createFile("xxx.txt", TEST_CONTENT[1])
+        .createFile("yyy.txt", TEST_CONTENT[1])
+        .createFile("zzz.txt", TEST_CONTENT[1]);
+    searcher.initialize();
+    searcher.getInitialIndexingLatch().await();
+    searcher.close();
+
+    contentBuilder.deleteFileInCurrentFolder("yyy.txt").createFile("zzz.txt", TEST_CONTENT[0]);
+
+    // when
+    searcher =
+        new LuceneSearcher(
+            excludePatterns,
+            indexDirectory,
+            MAX_FILE_SIZE,
+            new DummyProvider(workspaceStorage),
+            pathTransformer);
+    searcher.initialize();
+    searcher.getInitialIndexingLatch().await();
+
+    // then
+    List<String> paths = searcher.search(new QueryExpression().setText("think")).getFilePaths();
+    assertEquals(newArrayList("/folder/xxx.txt"), paths);
+    paths = searcher.search(new QueryExpression().setText("apollo")).getFilePaths();
+    assertEquals(newArrayList("/folder/zzz.txt"), paths);
+  }
+
+  @Test
+  public void shouldNotReindexUnchangedFilesOnInitialization() throws Exception {
+    // given
+    contentBuilder
+        .createFolder("folder")
+        .createFile("xxx.txt", TEST_CONTENT[1])
+        .createFile("yyy.txt", TEST_CONTENT[1]);
+    searcher.initialize();
+    searcher.getInitialIndexingLatch().await();
+    assertEquals(searcher.getInitiallyIndexedFiles(), 2);
+    searcher.close();
+
+    // when
+    searcher =
+        new LuceneSearcher(
+            excludePatterns,
+            indexDirectory,
+            MAX_FILE_SIZE,
+            new DummyProvider(workspaceStorage),
+            pathTransformer);
+    searcher.initialize();
+    searcher.getInitialIndexingLatch().await();
+
+    // then
+    assertEquals(searcher.getInitiallyIndexedFiles(), 0);
+    assertEquals(searcher.search(new QueryExpression().setText("think")).getTotalHits(), 2);
+  }
+
+  @Test
+  public void shouldStopInitialIndexingOnClose() throws Exception {
+    // given
+    for (int i = 0; i < 20; i++) {
+      contentBuilder.takeWorkspceRoot().createFolder("folder" + i).createFolder("nested");
+      for (int j = 0; j < 50; j++) {
+        contentBuilder.createFile("file" + j + ".txt", TEST_CONTENT[j % 2 == 0 ? 1 : 0]);
+      }
+    }
+    searcher.initialize();
+
+    // when
+    searcher.close();
+
+    // then
+    assertEquals(searcher.getInitialIndexingLatch().getCount(), 0);
+    searcher =
+        new LuceneSearcher(
+            excludePatterns,
+            indexDirectory,
+            MAX_FILE_SIZE,
+            new DummyProvider(workspaceStorage),
+            pathTransformer);
+    searcher.initialize();
+    searcher.getInitialIndexingLatch().await();
+    assertEquals(searcher.search(new QueryExpression().setText("think")).getTotalHits(), 500);
+  }
+
+  @Test
+  public void shouldIndexOnlyNameOfBinaryFile() throws Exception {
+    // given
+    contentBuilder.createFolder("folder").createFile("binary.txt", "Maybe you\u0000 think");
+    searcher.add(contentBuilder.getCurrentFolder());
+
+    // then
+    assertEquals(searcher.search(new QueryExpression().setText("think")).getTotalHits(), 0);
+    assertEquals(
+        searcher.search(new QueryExpression().setName("binary.txt")).getFilePaths(),
+        newArrayList("/folder/binary.txt"));
+  }
+
+  @Test
+  public void shouldIndexOnlyBeginningOfLargeFile() throws Exception {
+    // given
+    StringBuilder content = new StringBuilder("beginning ");
+    while (content.length() < MAX_FILE_SIZE) {
+      content.append("filler ");
+    }
+    content.append("ending");
+    contentBuilder.createFolder("folder").createFile("large.txt", content.toString());
+    searcher.add(contentBuilder.getCurrentFolder());
+
+    // then
+    assertEquals(
+        searcher.search(new QueryExpression().setText("beginning")).getFilePaths(),
+        newArrayList("/folder/large.txt"));
+    assertEquals(searcher.search(new QueryExpression().setText("ending")).getTotalHits(), 0);
+    assertTrue(
+        searcher
+            .search(new QueryExpression().setText("beginning"))
+            .getResults()
+            .get(0)
+            .isContentTruncated());
+  }
+
   @Test
   public void shouldBeAbleToExcludesFilesFromIndexWithFilter() throws Exception {
     // given
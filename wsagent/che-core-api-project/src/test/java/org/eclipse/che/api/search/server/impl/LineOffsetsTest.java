@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.api.search.server.impl;
+
+import static org.testng.Assert.assertEquals;
+
+import org.testng.annotations.Test;
+
+public class LineOffsetsTest {
+
+  @Test
+  public void shouldResolveLinesSeparatedByDifferentSeparators() {
+    String text = "first\nsecond\r\nthird\rfourth";
+    LineOffsets lineOffsets = LineOffsets.of(text);
+
+    assertEquals(lineOffsets.lineNumber(0), 1);
+    assertEquals(lineOffsets.lineNumber(5), 1);
+    assertEquals(lineOffsets.lineNumber(6), 2);
+    assertEquals(lineOffsets.lineNumber(text.indexOf("third")), 3);
+    assertEquals(lineOffsets.lineNumber(text.indexOf("fourth") + 3), 4);
+
+    assertEquals(lineOffsets.line(1), "first");
+    assertEquals(lineOffsets.line(2), "second");
+    assertEquals(lineOffsets.line(3), "third");
+    assertEquals(lineOffsets.line(4), "fourth");
+  }
+
+  @Test
+  public void shouldResolveEmptyLines() {
+    LineOffsets lineOffsets = LineOffsets.of("a\n\nb\n");
+
+    assertEquals(lineOffsets.lineNumber(2), 2);
+    assertEquals(lineOffsets.line(2), "");
+    assertEquals(lineOffsets.lineNumber(3), 3);
+    assertEquals(lineOffsets.line(3), "b");
+    assertEquals(lineOffsets.line(4), "");
+  }
+}
@@ -12,15 +12,23 @@ package org.eclipse.che.api.watcher.server.impl;
 
 import static java.io.File.createTempFile;
 import static java.lang.Thread.sleep;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
 import static org.apache.commons.io.FileUtils.write;
+import static org.junit.Assume.assumeFalse;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.io.File;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
+import java.nio.file.WatchEvent.Kind;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import org.eclipse.che.api.project.server.impl.RootDirPathProvider;
 import org.junit.After;
@@ -29,6 +37,8 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
@@ -63,11 +73,15 @@ public class FileTreeWalkerTest {
 
   @Mock Consumer<Path> directoryDeleteConsumerMock;
 
+  @Mock FileWatcherService fileWatcherService;
+  @Captor ArgumentCaptor<BiConsumer<Path, Kind<?>>> changeListenerCaptor;
+
   @Before
   public void setUp() throws Exception {
     fileTreeWalker =
         new FileTreeWalker(
             new DummyRootProvider(rootFolder.getRoot()),
+            fileWatcherService,
             directoryUpdateConsumers,
             directoryCreateConsumers,
             directoryDeleteConsumers,
@@ -176,6 +190,57 @@ public class FileTreeWalkerTest {
     verify(directoryDeleteConsumerMock).accept(file.toPath());
   }
 
+  @Test
+  public void shouldRunDeleteConsumersForEntriesOfDeletedDirectory() throws Exception {
+    fileDeleteConsumers.add(fileDeleteConsumerMock);
+    directoryDeleteConsumers.add(directoryDeleteConsumerMock);
+    fileTreeWalker.initialize();
+
+    File folder = rootFolder.newFolder(TEST_FOLDER_NAME);
+    File file = new File(folder, TEST_FILE_NAME);
+    write(file, TEST_FILE_CONTENT);
+    sleep(FS_LATENCY_DELAY);
+    fileTreeWalker.walk();
+
+    file.delete();
+    folder.delete();
+    sleep(FS_LATENCY_DELAY);
+    fileTreeWalker.walk();
+
+    verify(fileDeleteConsumerMock).accept(file.toPath());
+    verify(directoryDeleteConsumerMock).accept(folder.toPath());
+  }
+
+  @Test
+  public void shouldRunDeleteConsumerWhenOtherDirectoryCanNotBeRead() throws Exception {
+    fileDeleteConsumers.add(fileDeleteConsumerMock);
+    directoryDeleteConsumers.add(directoryDeleteConsumerMock);
+    fileTreeWalker.initialize();
+
+    File folder = rootFolder.newFolder(TEST_FOLDER_NAME);
+    File nested = new File(folder, TEST_FILE_NAME);
+    write(nested, TEST_FILE_CONTENT);
+    File file = rootFolder.newFile(TEST_FILE_NAME);
+    sleep(FS_LATENCY_DELAY);
+    fileTreeWalker.walk();
+
+    folder.setReadable(false);
+    folder.setExecutable(false);
+    try {
+      assumeFalse("Directory permissions are not enforced", folder.canRead());
+      file.delete();
+      sleep(FS_LATENCY_DELAY);
+      fileTreeWalker.walk();
+    } finally {
+      folder.setReadable(true);
+      folder.setExecutable(true);
+    }
+
+    verify(fileDeleteConsumerMock).accept(file.toPath());
+    verify(fileDeleteConsumerMock, never()).accept(nested.toPath());
+    verify(directoryDeleteConsumerMock, never()).accept(folder.toPath());
+  }
+
   @Test
   public void shouldProperlySkipExcludedFile() throws Exception {
     fileExcludes.add(it -> it.getFileName().toString().equals(TEST_FILE_NAME));
@@ -222,6 +287,69 @@ public class FileTreeWalkerTest {
     verify(fileCreatedConsumerMock, never()).accept(file.toPath());
   }
 
+  @Test
+  public void shouldNotReadWatchedDirectoryWithoutEvents() throws Exception {
+    when(fileWatcherService.isWatched(any())).thenReturn(true);
+    fileCreateConsumers.add(fileCreatedConsumerMock);
+    fileTreeWalker.initialize();
+
+    File file = rootFolder.newFile(TEST_FILE_NAME);
+
+    fileTreeWalker.walk();
+    verify(fileCreatedConsumerMock, never()).accept(file.toPath());
+  }
+
+  @Test
+  public void shouldApplyEventsOfWatchedDirectory() throws Exception {
+    when(fileWatcherService.isWatched(any())).thenReturn(true);
+    fileCreateConsumers.add(fileCreatedConsumerMock);
+    directoryCreateConsumers.add(directoryCreatedConsumerMock);
+    fileTreeWalker.initialize();
+    verify(fileWatcherService).addChangeListener(changeListenerCaptor.capture());
+
+    File folder = rootFolder.newFolder(TEST_FOLDER_NAME);
+    File file = new File(folder, TEST_FILE_NAME);
+    file.createNewFile();
+    changeListenerCaptor.getValue().accept(folder.toPath(), ENTRY_CREATE);
+
+    fileTreeWalker.walk();
+    verify(directoryCreatedConsumerMock).accept(folder.toPath());
+    verify(fileCreatedConsumerMock).accept(file.toPath());
+    verify(fileWatcherService).register(folder.toPath());
+  }
+
+  @Test
+  public void shouldReadSubtreeOfOverflowedDirectory() throws Exception {
+    when(fileWatcherService.isWatched(any())).thenReturn(true);
+    fileCreateConsumers.add(fileCreatedConsumerMock);
+    File folder = rootFolder.newFolder(TEST_FOLDER_NAME);
+    fileTreeWalker.initialize();
+    verify(fileWatcherService).addChangeListener(changeListenerCaptor.capture());
+
+    File file = new File(folder, TEST_FILE_NAME);
+    file.createNewFile();
+    changeListenerCaptor.getValue().accept(rootFolder.getRoot().toPath(), OVERFLOW);
+
+    fileTreeWalker.walk();
+    verify(fileCreatedConsumerMock).accept(file.toPath());
+  }
+
+  @Test
+  public void shouldStopWatchingDeletedDirectory() throws Exception {
+    when(fileWatcherService.isWatched(any())).thenReturn(true);
+    directoryDeleteConsumers.add(directoryDeleteConsumerMock);
+    File folder = rootFolder.newFolder(TEST_FOLDER_NAME);
+    fileTreeWalker.initialize();
+    verify(fileWatcherService).addChangeListener(changeListenerCaptor.capture());
+
+    folder.delete();
+    changeListenerCaptor.getValue().accept(folder.toPath(), ENTRY_DELETE);
+
+    fileTreeWalker.walk();
+    verify(directoryDeleteConsumerMock).accept(folder.toPath());
+    verify(fileWatcherService).unRegister(folder.toPath());
+  }
+
   private static class DummyRootProvider extends RootDirPathProvider {
 
     public DummyRootProvider(File folder) {
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.api.watcher.server.impl;
+
+import static org.eclipse.che.api.watcher.server.FileNamePathMatcher.fileName;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.function.Consumer;
+import org.eclipse.che.api.fs.server.PathTransformer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+/** Tests for {@link FileWatcherByPathMatcher} */
+@RunWith(MockitoJUnitRunner.class)
+public class FileWatcherByPathMatcherTest {
+  private static final String FILE_NAME = "pom.xml";
+  private static final String WS_PATH = "/project/pom.xml";
+
+  @Rule public TemporaryFolder rootFolder = new TemporaryFolder();
+
+  @Mock FileWatcherByPathValue watcher;
+  @Mock PathTransformer pathTransformer;
+
+  @Mock Consumer<String> create;
+  @Mock Consumer<String> modify;
+  @Mock Consumer<String> delete;
+
+  FileWatcherByPathMatcher matcher;
+
+  @Before
+  public void setUp() throws Exception {
+    matcher = new FileWatcherByPathMatcher(watcher, pathTransformer);
+  }
+
+  @Test
+  public void shouldWatchPathWithMatchedFileName() throws Exception {
+    Path path = rootFolder.newFile(FILE_NAME).toPath();
+    when(pathTransformer.transform(path)).thenReturn(WS_PATH);
+    matcher.watch(fileName(FILE_NAME), create, modify, delete);
+
+    matcher.accept(path);
+
+    verify(watcher).watch(path, create, modify, delete);
+    verify(create).accept(WS_PATH);
+  }
+
+  @Test
+  public void shouldNotWatchPathWithOtherFileName() throws Exception {
+    Path path = rootFolder.newFile("build.gradle").toPath();
+    matcher.watch(fileName(FILE_NAME), create, modify, delete);
+
+    matcher.accept(path);
+
+    verify(watcher, never()).watch(any(Path.class), any(), any(), any());
+    verify(create, never()).accept(anyString());
+  }
+
+  @Test
+  public void shouldNotWatchPathWhenFileNameConditionIsNotSatisfied() throws Exception {
+    Path path = rootFolder.newFile(FILE_NAME).toPath();
+    matcher.watch(fileName(FILE_NAME, it -> false), create, modify, delete);
+
+    matcher.accept(path);
+
+    verify(watcher, never()).watch(any(Path.class), any(), any(), any());
+  }
+
+  @Test
+  public void shouldWatchPathWithArbitraryMatcher() throws Exception {
+    Path path = rootFolder.newFile(FILE_NAME).toPath();
+    when(pathTransformer.transform(path)).thenReturn(WS_PATH);
+    matcher.watch(it -> it.toString().endsWith(".xml"), create, modify, delete);
+
+    matcher.accept(path);
+
+    verify(watcher).watch(path, create, modify, delete);
+  }
+
+  @Test
+  public void shouldNotWatchPathAfterMatcherIsUnwatched() throws Exception {
+    Path path = rootFolder.newFile(FILE_NAME).toPath();
+    int id = matcher.watch(fileName(FILE_NAME), create, modify, delete);
+    matcher.unwatch(id);
+
+    matcher.accept(path);
+
+    verify(watcher, never()).watch(any(Path.class), any(), any(), any());
+  }
+
+  @Test
+  public void shouldUnwatchPathsRegisteredByUnwatchedOperation() throws Exception {
+    Path path = rootFolder.newFile(FILE_NAME).toPath();
+    when(watcher.watch(path, create, modify, delete)).thenReturn(7);
+    int id = matcher.watch(fileName(FILE_NAME), create, modify, delete);
+    matcher.accept(path);
+
+    matcher.unwatch(id);
+
+    verify(watcher).unwatch(7);
+  }
+
+  @Test
+  public void shouldKeepPathsOfOtherOperationsOfSameMatcherWhenOneIsUnwatched() throws Exception {
+    Path path = rootFolder.newFile(FILE_NAME).toPath();
+    PathMatcher pathMatcher = fileName(FILE_NAME);
+    when(watcher.watch(path, create, modify, delete)).thenReturn(1);
+    when(watcher.watch(path, create, delete, modify)).thenReturn(2);
+    int id = matcher.watch(pathMatcher, create, modify, delete);
+    matcher.watch(pathMatcher, create, delete, modify);
+    matcher.accept(path);
+
+    matcher.unwatch(id);
+
+    verify(watcher).unwatch(1);
+    verify(watcher, never()).unwatch(2);
+  }
+
+  @Test
+  public void shouldNotUnwatchPathsAgainAfterTheyAreDeleted() throws Exception {
+    Path path = rootFolder.newFile(FILE_NAME).toPath();
+    when(watcher.watch(path, create, modify, delete)).thenReturn(7);
+    int id = matcher.watch(fileName(FILE_NAME), create, modify, delete);
+    matcher.accept(path);
+    path.toFile().delete();
+    matcher.accept(path);
+
+    matcher.unwatch(id);
+
+    verify(watcher).unwatch(anyInt());
+  }
+}
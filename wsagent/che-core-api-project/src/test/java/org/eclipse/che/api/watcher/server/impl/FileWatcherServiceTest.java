@@ -14,21 +14,51 @@ import static java.nio.file.Files.createDirectory;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.apache.commons.io.FileUtils.write;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.FileSystems;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchEvent.Kind;
+import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
-import org.junit.AfterClass;
-import org.junit.BeforeClass;
+import java.nio.file.Watchable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -53,7 +83,12 @@ public class FileWatcherServiceTest {
 
   public FileWatcherServiceTest() throws IOException {}
 
-  @BeforeClass
+  FakeWatchService fakeWatchService = new FakeWatchService();
+  Map<Path, FakeWatchKey> fakeWatchKeys = new ConcurrentHashMap<>();
+  List<FakeWatchKey> createdWatchKeys = new CopyOnWriteArrayList<>();
+  Consumer<FakeWatchKey> onWatch = watchKey -> {};
+
+  @Before
   public void setUp() throws Exception {
     service = new FileWatcherService(fileWatcherExcludePatternsRegistry, handler, watchService);
 
@@ -73,7 +108,21 @@ public class FileWatcherServiceTest {
     verify(handler, timeout(TIMEOUT_VALUE)).handle(path, ENTRY_CREATE);
   }
 
-  @AfterClass
+  @Test
+  public void shouldWatchRegisteredFolderForCreationOfManyFiles() throws Exception {
+    service.register(rootFolder.getRoot().toPath());
+
+    List<Path> paths = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      paths.add(rootFolder.newFile(FILE_NAME + i).toPath());
+    }
+
+    for (Path path : paths) {
+      verify(handler, timeout(TIMEOUT_VALUE)).handle(path, ENTRY_CREATE);
+    }
+  }
+
+  @After
   public void tearDown() throws Exception {
     service.stop();
 
@@ -251,4 +300,300 @@ public class FileWatcherServiceTest {
     createDirectory(path.resolve(FILE_NAME));
     verify(handler, after(TIMEOUT_VALUE).never()).handle(path, ENTRY_MODIFY);
   }
+
+  @Test
+  public void shouldCoalesceEventsOfSamePath() throws Exception {
+    FileWatcherService service = startWithFakeWatchService();
+    Path root = rootFolder.getRoot().toPath();
+    service.register(root);
+
+    fakeWatchKeys
+        .get(root)
+        .signal(
+            event(ENTRY_CREATE, FILE_NAME),
+            event(ENTRY_MODIFY, FILE_NAME),
+            event(ENTRY_MODIFY, FILE_NAME),
+            event(ENTRY_CREATE, FOLDER_NAME),
+            event(ENTRY_DELETE, FOLDER_NAME));
+
+    verify(handler, timeout(TIMEOUT_VALUE)).handle(root.resolve(FILE_NAME), ENTRY_CREATE);
+    verify(handler, after(500).never()).handle(root.resolve(FILE_NAME), ENTRY_MODIFY);
+    verify(handler, never()).handle(eq(root.resolve(FOLDER_NAME)), any());
+    service.stop();
+  }
+
+  @Test
+  public void shouldReportDeletionOfEntryRecreatedAndDeletedAgain() throws Exception {
+    FileWatcherService service = startWithFakeWatchService();
+    Path root = rootFolder.getRoot().toPath();
+    service.register(root);
+
+    fakeWatchKeys
+        .get(root)
+        .signal(
+            event(ENTRY_DELETE, FILE_NAME),
+            event(ENTRY_CREATE, FILE_NAME),
+            event(ENTRY_DELETE, FILE_NAME));
+
+    verify(handler, timeout(TIMEOUT_VALUE)).handle(root.resolve(FILE_NAME), ENTRY_DELETE);
+    verify(handler, after(500).never()).handle(root.resolve(FILE_NAME), ENTRY_CREATE);
+    service.stop();
+  }
+
+  @Test
+  public void shouldDispatchEventsOfDirectoryBeforeEventsOfItsEntries() throws Exception {
+    List<String> handled = new CopyOnWriteArrayList<>();
+    doAnswer(invocation -> handled.add(invocation.getArgument(0).toString()))
+        .when(handler)
+        .handle(any(), any());
+    FileWatcherService service = startWithFakeWatchService();
+    Path root = rootFolder.getRoot().toPath();
+    Path folder = rootFolder.newFolder(FOLDER_NAME).toPath();
+    service.register(root);
+    service.register(folder);
+
+    fakeWatchKeys.get(root).signal(event(ENTRY_CREATE, FOLDER_NAME));
+    fakeWatchKeys.get(folder).signal(event(ENTRY_CREATE, FILE_NAME));
+
+    verify(handler, timeout(TIMEOUT_VALUE)).handle(folder.resolve(FILE_NAME), ENTRY_CREATE);
+    assertEquals(asList(folder.toString(), folder.resolve(FILE_NAME).toString()), handled);
+    service.stop();
+  }
+
+  @Test
+  public void shouldReportLostChangesOnOverflow() throws Exception {
+    FileWatcherService service = startWithFakeWatchService();
+    Path root = rootFolder.getRoot().toPath();
+    Path kept = rootFolder.newFile("kept").toPath();
+    Path deleted = rootFolder.newFile("deleted").toPath();
+    service.register(root);
+
+    Files.delete(deleted);
+    Path created = rootFolder.newFile("created").toPath();
+    fakeWatchKeys.get(root).signal(event(OVERFLOW, null));
+
+    verify(handler, timeout(TIMEOUT_VALUE)).handle(deleted, ENTRY_DELETE);
+    verify(handler, timeout(TIMEOUT_VALUE)).handle(created, ENTRY_CREATE);
+    verify(handler, timeout(TIMEOUT_VALUE)).handle(kept, ENTRY_MODIFY);
+    service.stop();
+  }
+
+  @Test
+  public void shouldWatchDirectoryUntilItIsUnregisteredAsManyTimesAsRegistered() throws Exception {
+    FileWatcherService service = startWithFakeWatchService();
+    Path root = rootFolder.getRoot().toPath();
+
+    service.register(root);
+    service.register(root);
+    service.unRegister(root);
+
+    assertEquals(1, createdWatchKeys.size());
+    FakeWatchKey watchKey = fakeWatchKeys.get(root);
+    assertTrue(watchKey.isValid());
+    watchKey.signal(event(ENTRY_CREATE, FILE_NAME));
+    verify(handler, timeout(TIMEOUT_VALUE)).handle(root.resolve(FILE_NAME), ENTRY_CREATE);
+
+    service.unRegister(root);
+
+    assertFalse(watchKey.isValid());
+    service.stop();
+  }
+
+  @Test
+  public void shouldNotLeakWatchKeysWhenDirectoryIsRegisteredAndUnregisteredConcurrently()
+      throws Exception {
+    FileWatcherService service = startWithFakeWatchService();
+    Path root = rootFolder.getRoot().toPath();
+    int threads = 8;
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  for (int j = 0; j < 500; j++) {
+                    service.register(root);
+                    service.unRegister(root);
+                  }
+                  return null;
+                }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(TIMEOUT_VALUE, MILLISECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertTrue(createdWatchKeys.stream().noneMatch(FakeWatchKey::isValid));
+
+    service.register(root);
+    FakeWatchKey watchKey = fakeWatchKeys.get(root);
+    assertEquals(1, createdWatchKeys.stream().filter(FakeWatchKey::isValid).count());
+    watchKey.signal(event(ENTRY_CREATE, FILE_NAME));
+    verify(handler, timeout(TIMEOUT_VALUE)).handle(root.resolve(FILE_NAME), ENTRY_CREATE);
+    service.stop();
+  }
+
+  @Test
+  public void shouldHandleEventsOfKeySignalledBeforeItIsRecorded() throws Exception {
+    FileWatcherService service = startWithFakeWatchService();
+    Path root = rootFolder.getRoot().toPath();
+    onWatch =
+        watchKey -> {
+          int taken = fakeWatchService.taken.get();
+          watchKey.signal(event(ENTRY_CREATE, FILE_NAME));
+          // let the service poll the key while it is not recorded yet
+          long deadline = System.currentTimeMillis() + TIMEOUT_VALUE;
+          while (fakeWatchService.taken.get() == taken && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+          }
+        };
+
+    service.register(root);
+
+    verify(handler, timeout(TIMEOUT_VALUE)).handle(root.resolve(FILE_NAME), ENTRY_CREATE);
+    service.stop();
+  }
+
+  /** Starts a service which watch keys are signalled by tests instead of the file system. */
+  private FileWatcherService startWithFakeWatchService() throws IOException {
+    FileWatcherService service =
+        new FileWatcherService(fileWatcherExcludePatternsRegistry, handler, fakeWatchService) {
+          @Override
+          WatchKey watch(Path dir) {
+            FakeWatchKey watchKey = new FakeWatchKey(dir, fakeWatchService);
+            fakeWatchKeys.put(dir, watchKey);
+            createdWatchKeys.add(watchKey);
+            onWatch.accept(watchKey);
+            return watchKey;
+          }
+        };
+    service.start();
+    return service;
+  }
+
+  private static WatchEvent<Path> event(Kind<?> kind, String name) {
+    return new WatchEvent<Path>() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public Kind<Path> kind() {
+        return (Kind<Path>) kind;
+      }
+
+      @Override
+      public int count() {
+        return 1;
+      }
+
+      @Override
+      public Path context() {
+        return name == null ? null : Paths.get(name);
+      }
+    };
+  }
+
+  /** Watch service which queues signalled {@link FakeWatchKey}s. */
+  private static class FakeWatchService implements WatchService {
+    private final BlockingQueue<WatchKey> signalled = new LinkedBlockingQueue<>();
+    private final AtomicInteger taken = new AtomicInteger();
+    private volatile boolean closed;
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+
+    @Override
+    public WatchKey poll() {
+      checkOpen();
+      return signalled.poll();
+    }
+
+    @Override
+    public WatchKey poll(long timeout, TimeUnit unit) throws InterruptedException {
+      checkOpen();
+      WatchKey watchKey = signalled.poll(timeout, unit);
+      if (watchKey != null) {
+        taken.incrementAndGet();
+      }
+      return watchKey;
+    }
+
+    @Override
+    public WatchKey take() throws InterruptedException {
+      WatchKey watchKey;
+      while ((watchKey = poll(100, MILLISECONDS)) == null) {
+        checkOpen();
+      }
+      return watchKey;
+    }
+
+    private void checkOpen() {
+      if (closed) {
+        throw new ClosedWatchServiceException();
+      }
+    }
+  }
+
+  /** Watch key which behaves as the JDK one: it is queued once until reset, with its events. */
+  private static class FakeWatchKey implements WatchKey {
+    private final Path dir;
+    private final FakeWatchService service;
+    private final List<WatchEvent<?>> events = new ArrayList<>();
+    private boolean valid = true;
+    private boolean signalled;
+
+    private FakeWatchKey(Path dir, FakeWatchService service) {
+      this.dir = dir;
+      this.service = service;
+    }
+
+    synchronized void signal(WatchEvent<?>... signalledEvents) {
+      events.addAll(asList(signalledEvents));
+      if (!signalled) {
+        signalled = true;
+        service.signalled.offer(this);
+      }
+    }
+
+    @Override
+    public synchronized boolean isValid() {
+      return valid;
+    }
+
+    @Override
+    public synchronized List<WatchEvent<?>> pollEvents() {
+      List<WatchEvent<?>> polled = new ArrayList<>(events);
+      events.clear();
+      return polled;
+    }
+
+    @Override
+    public synchronized boolean reset() {
+      if (!valid) {
+        return false;
+      }
+      if (events.isEmpty()) {
+        signalled = false;
+      } else {
+        service.signalled.offer(this);
+      }
+      return true;
+    }
+
+    @Override
+    public synchronized void cancel() {
+      valid = false;
+    }
+
+    @Override
+    public Watchable watchable() {
+      return dir;
+    }
+  }
 }
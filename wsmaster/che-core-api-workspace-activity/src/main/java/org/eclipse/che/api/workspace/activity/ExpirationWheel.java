@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.api.workspace.activity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hierarchical timing wheel of workspace expiration times.
+ *
+ * <p>Time is divided into ticks of {@link #TICK_MILLIS}. Each of the {@link #LEVELS} wheels has
+ * {@link #SLOTS} slots, a slot of the level {@code n} covers {@code SLOTS^n} ticks. An expiration
+ * is put into the lowest level which reaches it, and moves to the lower levels as the time
+ * advances, until it gets to the set of expired ones. Expirations which are too far for the highest
+ * level are kept aside and placed again each time the highest level turns. Updating or removing an
+ * expiration does not depend on the number of stored ones.
+ *
+ * <p>The class is not thread safe.
+ */
+class ExpirationWheel {
+
+  static final long TICK_MILLIS = 1000;
+
+  private static final int SLOT_BITS = 6;
+  private static final int SLOTS = 1 << SLOT_BITS;
+  private static final int LEVELS = 4;
+  private static final int EXPIRED = -1;
+
+  private final Map<String, Entry> entries = new HashMap<>();
+  private final List<Set<String>> slots = new ArrayList<>(LEVELS * SLOTS);
+  private final Set<String> overflow = new HashSet<>();
+  private final Set<String> expired = new LinkedHashSet<>();
+  // number of expirations in each level, the last element counts the ones kept aside
+  private final int[] sizes = new int[LEVELS + 1];
+  private long currentTick;
+
+  /** @param now time the wheel starts at */
+  ExpirationWheel(long now) {
+    for (int i = 0; i < LEVELS * SLOTS; i++) {
+      slots.add(new HashSet<>());
+    }
+    currentTick = now / TICK_MILLIS;
+  }
+
+  /** Sets the expiration time of a workspace, replacing the previous one. */
+  void put(String workspaceId, long expiration) {
+    remove(workspaceId);
+    Entry entry = new Entry(expiration);
+    entries.put(workspaceId, entry);
+    place(workspaceId, entry);
+  }
+
+  /** Removes the expiration time of a workspace. */
+  void remove(String workspaceId) {
+    Entry entry = entries.remove(workspaceId);
+    if (entry != null) {
+      entry.slot.remove(workspaceId);
+      if (entry.level != EXPIRED) {
+        sizes[entry.level]--;
+      }
+    }
+  }
+
+  /** Returns the expiration time of a workspace or {@code null} if there is none. */
+  Long get(String workspaceId) {
+    Entry entry = entries.get(workspaceId);
+    return entry == null ? null : entry.expiration;
+  }
+
+  /** Returns expiration times of all workspaces. */
+  List<WorkspaceExpiration> getAll() {
+    List<WorkspaceExpiration> result = new ArrayList<>(entries.size());
+    entries.forEach((id, entry) -> result.add(new WorkspaceExpiration(id, entry.expiration)));
+    return result;
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  /**
+   * Advances the wheel and returns identifiers of the workspaces which expiration time is older
+   * than the given timestamp.
+   */
+  List<String> findExpired(long timestamp) {
+    advance(timestamp / TICK_MILLIS);
+
+    // the set also contains expirations of the current tick which may be later than the timestamp
+    List<String> result = new ArrayList<>();
+    for (String workspaceId : expired) {
+      if (entries.get(workspaceId).expiration < timestamp) {
+        result.add(workspaceId);
+      }
+    }
+    return result;
+  }
+
+  private void advance(long tick) {
+    while (currentTick < tick) {
+      skipIdleTicks(tick);
+      if (currentTick == tick) {
+        return;
+      }
+      currentTick++;
+      for (int level = LEVELS - 1; level > 0; level--) {
+        if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+          cascade(level, slot(level, currentTick));
+          if (level == LEVELS - 1) {
+            cascade(LEVELS, overflow);
+          }
+        }
+      }
+      Set<String> due = slot(0, currentTick);
+      for (String workspaceId : due) {
+        Entry entry = entries.get(workspaceId);
+        entry.level = EXPIRED;
+        entry.slot = expired;
+        expired.add(workspaceId);
+      }
+      sizes[0] -= due.size();
+      due.clear();
+    }
+  }
+
+  /**
+   * Moves the wheel right before the next tick at which a non empty slot is processed, or to the
+   * given tick if it comes earlier.
+   */
+  private void skipIdleTicks(long tick) {
+    int level = 0;
+    while (level <= LEVELS && sizes[level] == 0) {
+      level++;
+    }
+    if (level > LEVELS) {
+      currentTick = tick;
+    } else if (level > 0) {
+      // slots of the lower levels are empty, so nothing happens until the level turns
+      int shift = SLOT_BITS * Math.min(level, LEVELS - 1);
+      long next = ((currentTick >> shift) + 1) << shift;
+      currentTick = Math.max(currentTick, Math.min(tick, next - 1));
+    }
+  }
+
+  private void cascade(int level, Set<String> slot) {
+    List<String> workspaceIds = new ArrayList<>(slot);
+    sizes[level] -= slot.size();
+    slot.clear();
+    for (String workspaceId : workspaceIds) {
+      place(workspaceId, entries.get(workspaceId));
+    }
+  }
+
+  private void place(String workspaceId, Entry entry) {
+    long tick = entry.expiration / TICK_MILLIS;
+    if (tick <= currentTick) {
+      entry.level = EXPIRED;
+      entry.slot = expired;
+      expired.add(workspaceId);
+      return;
+    }
+    entry.level = LEVELS;
+    entry.slot = overflow;
+    for (int level = 0; level < LEVELS; level++) {
+      int shift = SLOT_BITS * level;
+      if ((tick >> shift) - (currentTick >> shift) < SLOTS) {
+        entry.level = level;
+        entry.slot = slot(level, tick);
+        break;
+      }
+    }
+    sizes[entry.level]++;
+    entry.slot.add(workspaceId);
+  }
+
+  private Set<String> slot(int level, long tick) {
+    return slots.get(level * SLOTS + (int) ((tick >> (SLOT_BITS * level)) & (SLOTS - 1)));
+  }
+
+  private static class Entry {
+    private final long expiration;
+    private int level;
+    private Set<String> slot;
+
+    private Entry(long expiration) {
+      this.expiration = expiration;
+    }
+  }
+}
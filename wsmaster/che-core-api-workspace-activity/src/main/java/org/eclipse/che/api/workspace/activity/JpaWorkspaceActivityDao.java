@@ -13,6 +13,7 @@ package org.eclipse.che.api.workspace.activity;
 import static java.util.Objects.requireNonNull;
 
 import com.google.inject.persist.Transactional;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
@@ -45,6 +46,16 @@ public class JpaWorkspaceActivityDao implements WorkspaceActivityDao {
     }
   }
 
+  @Override
+  public void setExpirations(Collection<WorkspaceExpiration> expirations) throws ServerException {
+    requireNonNull(expirations, "Required non-null expirations");
+    try {
+      doCreateOrUpdate(expirations);
+    } catch (RuntimeException x) {
+      throw new ServerException(x.getLocalizedMessage(), x);
+    }
+  }
+
   @Override
   public void removeExpiration(String workspaceId) throws ServerException {
     requireNonNull(workspaceId, "Required non-null id");
@@ -64,6 +75,15 @@ public class JpaWorkspaceActivityDao implements WorkspaceActivityDao {
     }
   }
 
+  @Override
+  public List<WorkspaceExpiration> getAll() throws ServerException {
+    try {
+      return doGetAll();
+    } catch (RuntimeException x) {
+      throw new ServerException(x.getLocalizedMessage(), x);
+    }
+  }
+
   @Transactional
   protected List<String> doFindExpired(long timestamp) {
     return managerProvider
@@ -87,6 +107,27 @@ public class JpaWorkspaceActivityDao implements WorkspaceActivityDao {
     manager.flush();
   }
 
+  @Transactional
+  protected List<WorkspaceExpiration> doGetAll() {
+    return managerProvider
+        .get()
+        .createNamedQuery("WorkspaceExpiration.getAll", WorkspaceExpiration.class)
+        .getResultList();
+  }
+
+  @Transactional
+  protected void doCreateOrUpdate(Collection<WorkspaceExpiration> expirations) {
+    final EntityManager manager = managerProvider.get();
+    for (WorkspaceExpiration expiration : expirations) {
+      if (manager.find(WorkspaceExpiration.class, expiration.getWorkspaceId()) == null) {
+        manager.persist(expiration);
+      } else {
+        manager.merge(expiration);
+      }
+    }
+    manager.flush();
+  }
+
   @Transactional
   protected void doRemove(String workspaceId) {
     final EntityManager manager = managerProvider.get();
@@ -102,7 +143,8 @@ public class JpaWorkspaceActivityDao implements WorkspaceActivityDao {
       extends CascadeEventSubscriber<BeforeWorkspaceRemovedEvent> {
 
     @Inject private EventService eventService;
-    @Inject private WorkspaceActivityDao workspaceActivityDao;
+    // removes the row within the workspace removal transaction, bypassing the in-memory storage
+    @Inject private JpaWorkspaceActivityDao workspaceActivityDao;
 
     @PostConstruct
     public void subscribe() {
@@ -10,6 +10,7 @@
  */
 package org.eclipse.che.api.workspace.activity;
 
+import java.util.Collection;
 import java.util.List;
 import org.eclipse.che.api.core.ServerException;
 
@@ -29,6 +30,14 @@ public interface WorkspaceActivityDao {
    */
   void setExpiration(WorkspaceExpiration expiration) throws ServerException;
 
+  /**
+   * Sets expiration times of several workspaces at once.
+   *
+   * @param expirations expiration objects to store
+   * @throws ServerException when operation failed
+   */
+  void setExpirations(Collection<WorkspaceExpiration> expirations) throws ServerException;
+
   /**
    * Removes workspace expiration time (basically used on ws stop).
    *
@@ -45,4 +54,12 @@ public interface WorkspaceActivityDao {
    * @throws ServerException when operation failed
    */
   List<String> findExpired(long timestamp) throws ServerException;
+
+  /**
+   * Gets expiration times of all workspaces.
+   *
+   * @return list of all stored expiration objects
+   * @throws ServerException when operation failed
+   */
+  List<WorkspaceExpiration> getAll() throws ServerException;
 }
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.api.workspace.activity;
+
+import static java.util.Collections.singletonList;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.eclipse.che.api.core.ServerException;
+import org.eclipse.che.api.core.notification.EventService;
+import org.eclipse.che.api.core.notification.EventSubscriber;
+import org.eclipse.che.api.workspace.shared.event.WorkspaceRemovedEvent;
+import org.eclipse.che.commons.schedule.ScheduleDelay;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Workspaces expiration times storage which keeps expiration times in memory and writes them to
+ * the database in the background.
+ *
+ * <p>Expiration times are held in an {@link ExpirationWheel}, so expired workspaces are found
+ * without querying the database. Updates of the same workspace made between two writes are
+ * coalesced into one, which is written with others in batches of {@link #BATCH_SIZE}. An update
+ * which fails to be written is retried with the next writes, up to {@link #MAX_WRITE_ATTEMPTS}
+ * times. Removals are written immediately and applied in memory once written. The database row of
+ * a removed workspace is removed within the workspace removal transaction, while its expiration
+ * time is kept in memory until the workspace is removed, so it stays in both places if the
+ * transaction is rolled back. On start, expiration times are loaded from the database, so only
+ * updates made within the last write period are lost if the server is stopped abnormally.
+ *
+ * <p>Expiration times are not shared between servers, so the storage must not be used when several
+ * servers work with the same database.
+ */
+@Singleton
+public class WriteBehindWorkspaceActivityDao implements WorkspaceActivityDao {
+
+  private static final Logger LOG = LoggerFactory.getLogger(WriteBehindWorkspaceActivityDao.class);
+
+  static final int BATCH_SIZE = 100;
+  static final int MAX_WRITE_ATTEMPTS = 5;
+
+  private final WorkspaceActivityDao delegate;
+  private final EventService eventService;
+  private final EventSubscriber<WorkspaceRemovedEvent> workspaceRemovedSubscriber;
+  private final ExpirationWheel wheel = new ExpirationWheel(System.currentTimeMillis());
+  private final Map<String, WorkspaceExpiration> pending = new LinkedHashMap<>();
+  // number of failed attempts to write pending updates, per workspace
+  private final Map<String, Integer> failedAttempts = new HashMap<>();
+  // guards writes to the database, so that a removal can not be followed by a pending update
+  private final Object writeLock = new Object();
+  private final LongAdder updates = new LongAdder();
+  private final LongAdder writes = new LongAdder();
+
+  @Inject
+  public WriteBehindWorkspaceActivityDao(
+      JpaWorkspaceActivityDao delegate, EventService eventService) {
+    this((WorkspaceActivityDao) delegate, eventService);
+  }
+
+  WriteBehindWorkspaceActivityDao(WorkspaceActivityDao delegate, EventService eventService) {
+    this.delegate = delegate;
+    this.eventService = eventService;
+    this.workspaceRemovedSubscriber = event -> forget(event.getWorkspace().getId());
+  }
+
+  @PostConstruct
+  public void start() {
+    eventService.subscribe(workspaceRemovedSubscriber, WorkspaceRemovedEvent.class);
+    load();
+  }
+
+  void load() {
+    try {
+      List<WorkspaceExpiration> expirations = delegate.getAll();
+      synchronized (this) {
+        for (WorkspaceExpiration expiration : expirations) {
+          // an update made meanwhile is newer than the stored expiration
+          if (wheel.get(expiration.getWorkspaceId()) == null) {
+            wheel.put(expiration.getWorkspaceId(), expiration.getExpiration());
+          }
+        }
+      }
+      LOG.info("Loaded {} workspace expiration times", expirations.size());
+    } catch (ServerException e) {
+      LOG.error("Failed to load workspace expiration times. " + e.getLocalizedMessage(), e);
+    }
+  }
+
+  @Override
+  public synchronized void setExpiration(WorkspaceExpiration expiration) {
+    requireNonNull(expiration, "Required non-null expiration object");
+    updates.increment();
+    wheel.put(expiration.getWorkspaceId(), expiration.getExpiration());
+    pending.put(
+        expiration.getWorkspaceId(),
+        new WorkspaceExpiration(expiration.getWorkspaceId(), expiration.getExpiration()));
+  }
+
+  @Override
+  public void setExpirations(Collection<WorkspaceExpiration> expirations) {
+    requireNonNull(expirations, "Required non-null expirations");
+    expirations.forEach(this::setExpiration);
+  }
+
+  @Override
+  public void removeExpiration(String workspaceId) throws ServerException {
+    requireNonNull(workspaceId, "Required non-null id");
+    synchronized (writeLock) {
+      delegate.removeExpiration(workspaceId);
+      forget(workspaceId);
+    }
+  }
+
+  @Override
+  public synchronized List<String> findExpired(long timestamp) {
+    return wheel.findExpired(timestamp);
+  }
+
+  @Override
+  public synchronized List<WorkspaceExpiration> getAll() {
+    return wheel.getAll();
+  }
+
+  /** Returns the number of expiration updates received. */
+  public long getUpdateCount() {
+    return updates.sum();
+  }
+
+  /** Returns the number of expiration updates written to the database. */
+  public long getWriteCount() {
+    return writes.sum();
+  }
+
+  /** Returns the number of expiration updates which were coalesced instead of being written. */
+  public synchronized long getSavedWriteCount() {
+    return updates.sum() - writes.sum() - pending.size();
+  }
+
+  /** Writes pending expiration updates to the database. */
+  @ScheduleDelay(initialDelay = 10, delay = 10)
+  public void flush() {
+    List<WorkspaceExpiration> failed = new ArrayList<>();
+    int batches = 0;
+    while (true) {
+      synchronized (writeLock) {
+        List<WorkspaceExpiration> batch = takeBatch();
+        if (batch.isEmpty()) {
+          break;
+        }
+        write(batch, failed);
+        batches++;
+      }
+    }
+    // failed updates are retried on the next flush
+    retry(failed);
+
+    if (batches > 0) {
+      LOG.debug(
+          "Wrote {} batches of workspace expiration times, {} of {} updates coalesced",
+          batches,
+          getSavedWriteCount(),
+          getUpdateCount());
+    }
+  }
+
+  @PreDestroy
+  public void stop() {
+    eventService.unsubscribe(workspaceRemovedSubscriber, WorkspaceRemovedEvent.class);
+    flush();
+  }
+
+  private synchronized void forget(String workspaceId) {
+    wheel.remove(workspaceId);
+    pending.remove(workspaceId);
+    failedAttempts.remove(workspaceId);
+  }
+
+  private synchronized List<WorkspaceExpiration> takeBatch() {
+    List<WorkspaceExpiration> batch = new ArrayList<>(Math.min(BATCH_SIZE, pending.size()));
+    Iterator<WorkspaceExpiration> it = pending.values().iterator();
+    while (it.hasNext() && batch.size() < BATCH_SIZE) {
+      batch.add(it.next());
+      it.remove();
+    }
+    return batch;
+  }
+
+  private void write(List<WorkspaceExpiration> batch, List<WorkspaceExpiration> failed) {
+    try {
+      delegate.setExpirations(batch);
+      writes.add(batch.size());
+      written(batch);
+      return;
+    } catch (ServerException e) {
+      LOG.warn("Failed to write batch of workspace expiration times. " + e.getLocalizedMessage());
+    }
+
+    // write one by one, so that a single bad expiration does not hold back the others
+    for (WorkspaceExpiration expiration : batch) {
+      try {
+        delegate.setExpiration(expiration);
+        writes.increment();
+        written(singletonList(expiration));
+      } catch (ServerException e) {
+        LOG.warn(
+            "Failed to write expiration time of workspace {}. {}",
+            expiration.getWorkspaceId(),
+            e.getLocalizedMessage());
+        failed.add(expiration);
+      }
+    }
+  }
+
+  private synchronized void written(List<WorkspaceExpiration> expirations) {
+    if (!failedAttempts.isEmpty()) {
+      expirations.forEach(expiration -> failedAttempts.remove(expiration.getWorkspaceId()));
+    }
+  }
+
+  private synchronized void retry(List<WorkspaceExpiration> failed) {
+    for (WorkspaceExpiration expiration : failed) {
+      String workspaceId = expiration.getWorkspaceId();
+      int attempts = failedAttempts.merge(workspaceId, 1, Integer::sum);
+      if (attempts >= MAX_WRITE_ATTEMPTS) {
+        // e.g. the workspace does not exist anymore, the update would fail forever
+        LOG.error(
+            "Expiration time of workspace {} is not written after {} attempts, giving up",
+            workspaceId,
+            attempts);
+        failedAttempts.remove(workspaceId);
+      } else if (wheel.get(workspaceId) != null) {
+        // skip removed expirations, an update made meanwhile is newer than the failed one
+        pending.putIfAbsent(workspaceId, expiration);
+      }
+    }
+  }
+}
@@ -11,11 +11,11 @@
 package org.eclipse.che.api.workspace.activity.inject;
 
 import com.google.inject.AbstractModule;
-import org.eclipse.che.api.workspace.activity.JpaWorkspaceActivityDao;
 import org.eclipse.che.api.workspace.activity.JpaWorkspaceActivityDao.RemoveExpirationBeforeWorkspaceRemovedEventSubscriber;
 import org.eclipse.che.api.workspace.activity.WorkspaceActivityDao;
 import org.eclipse.che.api.workspace.activity.WorkspaceActivityManager;
 import org.eclipse.che.api.workspace.activity.WorkspaceActivityService;
+import org.eclipse.che.api.workspace.activity.WriteBehindWorkspaceActivityDao;
 
 public class WorkspaceActivityModule extends AbstractModule {
 
@@ -23,7 +23,7 @@ public class WorkspaceActivityModule extends AbstractModule {
   protected void configure() {
     bind(WorkspaceActivityService.class);
     bind(WorkspaceActivityManager.class);
-    bind(WorkspaceActivityDao.class).to(JpaWorkspaceActivityDao.class);
+    bind(WorkspaceActivityDao.class).to(WriteBehindWorkspaceActivityDao.class);
     bind(RemoveExpirationBeforeWorkspaceRemovedEventSubscriber.class).asEagerSingleton();
   }
 }
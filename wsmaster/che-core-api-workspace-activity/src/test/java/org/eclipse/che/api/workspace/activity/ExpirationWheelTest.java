@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.api.workspace.activity;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.DAYS;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** Tests for {@link ExpirationWheel} */
+public class ExpirationWheelTest {
+
+  private static final long NOW = 1_500_000_000_000L;
+
+  private ExpirationWheel wheel;
+
+  @BeforeMethod
+  public void setUp() {
+    wheel = new ExpirationWheel(NOW);
+  }
+
+  @Test
+  public void shouldFindExpirationsOfAllLevels() {
+    long[] timeouts = {
+      1500, MINUTES.toMillis(10), HOURS.toMillis(20), DAYS.toMillis(30), DAYS.toMillis(400)
+    };
+    for (int i = 0; i < timeouts.length; i++) {
+      wheel.put("ws" + i, NOW + timeouts[i]);
+    }
+
+    for (int i = 0; i < timeouts.length; i++) {
+      assertEquals(wheel.findExpired(NOW + timeouts[i]).size(), i);
+      assertEquals(wheel.findExpired(NOW + timeouts[i] + 1).size(), i + 1);
+    }
+  }
+
+  @Test
+  public void shouldFindExpirationsOlderThanStart() {
+    wheel.put("ws1", NOW - 1000);
+
+    assertEquals(wheel.findExpired(NOW - 1000), emptyList());
+    assertEquals(wheel.findExpired(NOW), singletonList("ws1"));
+  }
+
+  @Test
+  public void shouldMoveUpdatedExpiration() {
+    wheel.put("ws1", NOW + 1000);
+    wheel.put("ws1", NOW + MINUTES.toMillis(5));
+
+    assertEquals(wheel.findExpired(NOW + MINUTES.toMillis(1)), emptyList());
+    assertEquals(wheel.findExpired(NOW + MINUTES.toMillis(6)), singletonList("ws1"));
+    assertEquals(wheel.size(), 1);
+  }
+
+  @Test
+  public void shouldRemoveExpiration() {
+    wheel.put("ws1", NOW + 1000);
+    wheel.remove("ws1");
+
+    assertEquals(wheel.findExpired(NOW + MINUTES.toMillis(1)), emptyList());
+    assertNull(wheel.get("ws1"));
+  }
+}
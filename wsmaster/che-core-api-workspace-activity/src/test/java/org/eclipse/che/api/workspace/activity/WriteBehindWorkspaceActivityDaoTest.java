@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2012-2018 Red Hat, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Red Hat, Inc. - initial API and implementation
+ */
+package org.eclipse.che.api.workspace.activity;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.Collection;
+import org.eclipse.che.api.core.ServerException;
+import org.eclipse.che.api.core.model.workspace.Workspace;
+import org.eclipse.che.api.core.notification.EventService;
+import org.eclipse.che.api.workspace.shared.event.WorkspaceRemovedEvent;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.testng.MockitoTestNGListener;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Listeners;
+import org.testng.annotations.Test;
+
+/** Tests for {@link WriteBehindWorkspaceActivityDao} */
+@Listeners(MockitoTestNGListener.class)
+public class WriteBehindWorkspaceActivityDaoTest {
+
+  @Mock private WorkspaceActivityDao delegate;
+  @Mock private Workspace workspace;
+
+  @Captor private ArgumentCaptor<Collection<WorkspaceExpiration>> captor;
+
+  private EventService eventService;
+  private WriteBehindWorkspaceActivityDao activityDao;
+
+  @BeforeMethod
+  public void setUp() {
+    eventService = new EventService();
+    activityDao = new WriteBehindWorkspaceActivityDao(delegate, eventService);
+  }
+
+  @Test
+  public void shouldCoalesceUpdatesOfWorkspace() throws Exception {
+    activityDao.setExpiration(new WorkspaceExpiration("ws1", 1000));
+    activityDao.setExpiration(new WorkspaceExpiration("ws1", 2000));
+    activityDao.setExpiration(new WorkspaceExpiration("ws2", 3000));
+    verify(delegate, never()).setExpirations(anyCollection());
+
+    activityDao.flush();
+
+    verify(delegate).setExpirations(captor.capture());
+    assertEquals(captor.getValue().size(), 2);
+    assertTrue(captor.getValue().contains(new WorkspaceExpiration("ws1", 2000)));
+    assertTrue(captor.getValue().contains(new WorkspaceExpiration("ws2", 3000)));
+    assertEquals(activityDao.getUpdateCount(), 3);
+    assertEquals(activityDao.getWriteCount(), 2);
+    assertEquals(activityDao.getSavedWriteCount(), 1);
+  }
+
+  @Test
+  public void shouldWriteUpdatesInBatches() throws Exception {
+    for (int i = 0; i < WriteBehindWorkspaceActivityDao.BATCH_SIZE + 1; i++) {
+      activityDao.setExpiration(new WorkspaceExpiration("ws" + i, 1000));
+    }
+
+    activityDao.flush();
+
+    verify(delegate, times(2)).setExpirations(anyCollection());
+    assertEquals(activityDao.getWriteCount(), WriteBehindWorkspaceActivityDao.BATCH_SIZE + 1);
+  }
+
+  @Test
+  public void shouldFindExpiredWorkspacesWithoutQueryingDelegate() throws Exception {
+    long now = System.currentTimeMillis();
+    activityDao.setExpiration(new WorkspaceExpiration("ws1", now - 1000));
+    activityDao.setExpiration(new WorkspaceExpiration("ws2", now + 60_000));
+
+    assertEquals(activityDao.findExpired(now), singletonList("ws1"));
+    assertEquals(activityDao.findExpired(now + 120_000).size(), 2);
+    verify(delegate, never()).findExpired(anyLong());
+  }
+
+  @Test
+  public void shouldRemoveExpirationImmediatelyAndDropPendingUpdate() throws Exception {
+    long now = System.currentTimeMillis();
+    activityDao.setExpiration(new WorkspaceExpiration("ws1", now - 1000));
+
+    activityDao.removeExpiration("ws1");
+    activityDao.flush();
+
+    verify(delegate).removeExpiration("ws1");
+    verify(delegate, never()).setExpirations(anyCollection());
+    assertTrue(activityDao.findExpired(now).isEmpty());
+  }
+
+  @Test
+  public void shouldKeepExpirationWhenRemovalFails() throws Exception {
+    long now = System.currentTimeMillis();
+    activityDao.setExpiration(new WorkspaceExpiration("ws1", now - 1000));
+    doThrow(new ServerException("failed")).when(delegate).removeExpiration("ws1");
+
+    try {
+      activityDao.removeExpiration("ws1");
+      fail("Removal is expected to fail");
+    } catch (ServerException expected) {
+      // the expiration must stay
+    }
+
+    assertEquals(activityDao.findExpired(now), singletonList("ws1"));
+  }
+
+  @Test
+  public void shouldForgetExpirationOnceWorkspaceIsRemoved() throws Exception {
+    long now = System.currentTimeMillis();
+    when(workspace.getId()).thenReturn("ws1");
+    activityDao.start();
+    activityDao.setExpiration(new WorkspaceExpiration("ws1", now - 1000));
+
+    eventService.publish(new WorkspaceRemovedEvent(workspace));
+    activityDao.flush();
+
+    assertTrue(activityDao.findExpired(now).isEmpty());
+    verify(delegate, never()).setExpirations(anyCollection());
+  }
+
+  @Test
+  public void shouldRetryUpdatesWhichFailedToBeWritten() throws Exception {
+    WorkspaceExpiration expiration = new WorkspaceExpiration("ws1", 1000);
+    doThrow(new ServerException("failed")).when(delegate).setExpirations(anyCollection());
+    doThrow(new ServerException("failed")).when(delegate).setExpiration(expiration);
+    activityDao.setExpiration(expiration);
+
+    activityDao.flush();
+    activityDao.flush();
+
+    verify(delegate, times(2)).setExpiration(expiration);
+    assertEquals(activityDao.getWriteCount(), 0);
+  }
+
+  @Test
+  public void shouldStopRetryingUpdateAfterMaxAttempts() throws Exception {
+    WorkspaceExpiration expiration = new WorkspaceExpiration("ws1", 1000);
+    doThrow(new ServerException("failed")).when(delegate).setExpirations(anyCollection());
+    doThrow(new ServerException("failed")).when(delegate).setExpiration(expiration);
+    activityDao.setExpiration(expiration);
+
+    for (int i = 0; i < WriteBehindWorkspaceActivityDao.MAX_WRITE_ATTEMPTS + 2; i++) {
+      activityDao.flush();
+    }
+
+    verify(delegate, times(WriteBehindWorkspaceActivityDao.MAX_WRITE_ATTEMPTS))
+        .setExpiration(expiration);
+    assertEquals(activityDao.getAll().size(), 1);
+  }
+
+  @Test
+  public void shouldLoadExpirationsFromDelegate() throws Exception {
+    long now = System.currentTimeMillis();
+    when(delegate.getAll())
+        .thenReturn(
+            asList(
+                new WorkspaceExpiration("ws1", now - 1000),
+                new WorkspaceExpiration("ws2", now + 60_000)));
+
+    activityDao.load();
+
+    assertEquals(activityDao.findExpired(now), singletonList("ws1"));
+    assertEquals(activityDao.getAll().size(), 2);
+  }
+}
@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import javax.inject.Inject;
@@ -137,6 +138,26 @@ public class WorkspaceActivityDaoTest {
     assertEquals(found, expected);
   }
 
+  @Test(dependsOnMethods = "shouldFindExpirationsByTimestamp")
+  public void shouldSetSeveralExpirations() throws Exception {
+    workspaceActivityDao.setExpirations(
+        Arrays.asList(
+            new WorkspaceExpiration(expirations[0].getWorkspaceId(), 2_750_000),
+            new WorkspaceExpiration(expirations[2].getWorkspaceId(), 2_250_000)));
+
+    List<String> found = workspaceActivityDao.findExpired(2_500_000);
+    assertEquals(
+        new HashSet<>(found),
+        new HashSet<>(asList(expirations[1].getWorkspaceId(), expirations[2].getWorkspaceId())));
+  }
+
+  @Test
+  public void shouldGetAllExpirations() throws Exception {
+    List<WorkspaceExpiration> found = workspaceActivityDao.getAll();
+
+    assertEquals(new HashSet<>(found), new HashSet<>(asList(expirations)));
+  }
+
   private static WorkspaceConfigImpl createWorkspaceConfig(String name) {
     // Project Sources configuration
     final SourceStorageImpl source1 = new SourceStorageImpl();
@@ -12,7 +12,6 @@ package org.eclipse.che.api.workspace.server.event;
 
 import static org.eclipse.che.api.workspace.shared.Constants.INSTALLER_STATUS_CHANGED_METHOD;
 
-import java.util.Map;
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -32,10 +31,9 @@ public class InstallerStatusJsonRpcMessenger {
   @PostConstruct
   private void postConstruct() {
     remoteSubscriptionManager.register(
-        INSTALLER_STATUS_CHANGED_METHOD, InstallerStatusEvent.class, this::predicate);
-  }
-
-  private boolean predicate(InstallerStatusEvent event, Map<String, String> scope) {
-    return event.getRuntimeId().getWorkspaceId().equals(scope.get("workspaceId"));
+        INSTALLER_STATUS_CHANGED_METHOD,
+        InstallerStatusEvent.class,
+        "workspaceId",
+        event -> event.getRuntimeId().getWorkspaceId());
   }
 }
@@ -12,7 +12,6 @@ package org.eclipse.che.api.workspace.server.event;
 
 import static org.eclipse.che.api.workspace.shared.Constants.MACHINE_LOG_METHOD;
 
-import java.util.Map;
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -37,10 +36,10 @@ public class MachineLogJsonRpcMessenger {
 
   @PostConstruct
   private void postConstruct() {
-    subscriptionManager.register(MACHINE_LOG_METHOD, MachineLogEvent.class, this::predicate);
-  }
-
-  private boolean predicate(MachineLogEvent event, Map<String, String> scope) {
-    return event.getRuntimeId().getWorkspaceId().equals(scope.get("workspaceId"));
+    subscriptionManager.register(
+        MACHINE_LOG_METHOD,
+        MachineLogEvent.class,
+        "workspaceId",
+        event -> event.getRuntimeId().getWorkspaceId());
   }
 }
@@ -12,7 +12,6 @@ package org.eclipse.che.api.workspace.server.event;
 
 import static org.eclipse.che.api.workspace.shared.Constants.MACHINE_STATUS_CHANGED_METHOD;
 
-import java.util.Map;
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -32,10 +31,9 @@ public class MachineStatusJsonRpcMessenger {
   @PostConstruct
   private void postConstruct() {
     remoteSubscriptionManager.register(
-        MACHINE_STATUS_CHANGED_METHOD, MachineStatusEvent.class, this::predicate);
-  }
-
-  private boolean predicate(MachineStatusEvent event, Map<String, String> scope) {
-    return event.getIdentity().getWorkspaceId().equals(scope.get("workspaceId"));
+        MACHINE_STATUS_CHANGED_METHOD,
+        MachineStatusEvent.class,
+        "workspaceId",
+        event -> event.getIdentity().getWorkspaceId());
   }
 }
@@ -12,7 +12,6 @@ package org.eclipse.che.api.workspace.server.event;
 
 import static org.eclipse.che.api.workspace.shared.Constants.WORKSPACE_STATUS_CHANGED_METHOD;
 
-import java.util.Map;
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -32,10 +31,9 @@ public class WorkspaceJsonRpcMessenger {
   @PostConstruct
   private void postConstruct() {
     remoteSubscriptionManager.register(
-        WORKSPACE_STATUS_CHANGED_METHOD, WorkspaceStatusEvent.class, this::predicate);
-  }
-
-  private boolean predicate(WorkspaceStatusEvent event, Map<String, String> scope) {
-    return event.getWorkspaceId().equals(scope.get("workspaceId"));
+        WORKSPACE_STATUS_CHANGED_METHOD,
+        WorkspaceStatusEvent.class,
+        "workspaceId",
+        WorkspaceStatusEvent::getWorkspaceId);
   }
 }
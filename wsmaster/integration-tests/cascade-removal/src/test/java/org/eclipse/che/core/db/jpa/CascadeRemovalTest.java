@@ -62,6 +62,7 @@ import org.eclipse.che.api.user.server.spi.ProfileDao;
 import org.eclipse.che.api.user.server.spi.UserDao;
 import org.eclipse.che.api.workspace.activity.WorkspaceActivityDao;
 import org.eclipse.che.api.workspace.activity.WorkspaceExpiration;
+import org.eclipse.che.api.workspace.activity.WriteBehindWorkspaceActivityDao;
 import org.eclipse.che.api.workspace.activity.inject.WorkspaceActivityModule;
 import org.eclipse.che.api.workspace.server.DefaultWorkspaceLockService;
 import org.eclipse.che.api.workspace.server.DefaultWorkspaceStatusCache;
@@ -350,6 +351,8 @@ public class CascadeRemovalTest {
         new WorkspaceExpiration(workspace1.getId(), System.currentTimeMillis()));
     workspaceActivityDao.setExpiration(
         new WorkspaceExpiration(workspace2.getId(), System.currentTimeMillis()));
+    // expiration times are written to the database in the background
+    ((WriteBehindWorkspaceActivityDao) workspaceActivityDao).flush();
 
     sshDao.create(sshPair1 = createSshPair(user.getId(), "service", "name1"));
     sshDao.create(sshPair2 = createSshPair(user.getId(), "service", "name2"));